@@ -0,0 +1,77 @@
+package applu.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applu.interpreter.BatchEvaluator;
+import applu.parser.AppluParser;
+
+/**
+ * Measures {@link BatchEvaluator} throughput on a million-row table at several pool sizes, to check
+ * how it scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+    private static final int ROWS = 1_000_000;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private ForkJoinPool pool;
+    private BatchEvaluator evaluator;
+    private Map<String, double[]> inputs;
+
+    @Setup
+    public void prepare() {
+        pool = new ForkJoinPool(threads);
+        evaluator = new BatchEvaluator(
+            AppluParser.parseProgram(
+                """
+                Set a to 1.
+                Set b to 1.
+                Loop:
+                    If count is less than 1 then exit loop.
+                    Set next to a plus b.
+                    Set a to b.
+                    Set b to next.
+                    Set count to count minus 1.
+                End of loop.
+                """),
+            pool);
+        var counts = new double[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            counts[row] = row % 20;
+        }
+        inputs = Map.of("count", counts);
+    }
+
+    @TearDown
+    public void shutDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, double[]> evaluate() {
+        return evaluator.evaluate(inputs, List.of("b"));
+    }
+}
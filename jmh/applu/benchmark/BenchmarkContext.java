@@ -0,0 +1,10 @@
+package applu.benchmark;
+
+import applu.compiler.AppluExecutable;
+
+/**
+ * The context interface for compiled benchmark programs. Workloads set up their own inputs, so it
+ * needs no accessors.
+ */
+public interface BenchmarkContext extends AppluExecutable.ExecutionContext {
+}
@@ -0,0 +1,61 @@
+package applu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applu.ast.StatementNode;
+import applu.compiler.AppluCompiler;
+import applu.compiler.AppluExecutable;
+import applu.interpreter.ClosureCompiler;
+import applu.interpreter.ClosureProgram;
+import applu.interpreter.VariableSlots;
+import applu.parser.AppluParser;
+import applu.vm.VmCompiler;
+import applu.vm.VmProgram;
+
+/**
+ * Measures the up-front cost of preparing a parsed program for each execution engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+    @Param
+    public Workload workload;
+
+    private StatementNode program;
+
+    @Setup
+    public void parse() {
+        program = AppluParser.parseProgram(workload.getSource());
+    }
+
+    @Benchmark
+    public AppluExecutable<BenchmarkContext> compileToBytecode() {
+        return AppluCompiler.compile(program, "BenchmarkProgram", BenchmarkContext.class);
+    }
+
+    @Benchmark
+    public ClosureProgram compileToClosures() {
+        return ClosureCompiler.compile(program, new VariableSlots());
+    }
+
+    @Benchmark
+    public VmProgram compileToVm() {
+        return VmCompiler.compile(program, new VariableSlots());
+    }
+}
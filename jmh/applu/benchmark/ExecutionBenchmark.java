@@ -0,0 +1,85 @@
+package applu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applu.ast.StatementNode;
+import applu.compiler.AppluCompiler;
+import applu.compiler.AppluExecutable;
+import applu.interpreter.ClosureCompiler;
+import applu.interpreter.ClosureProgram;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.VariableSlots;
+import applu.parser.AppluParser;
+import applu.vm.VmCompiler;
+import applu.vm.VmProgram;
+
+/**
+ * Measures steady-state execution of an already-prepared program on each engine. Every invocation
+ * runs against a fresh context, and returns it so JMH keeps the program’s results alive.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecutionBenchmark {
+    @Param
+    public Workload workload;
+
+    private StatementNode program;
+    private VariableSlots slots;
+    private ClosureProgram closureProgram;
+    private VmProgram vmProgram;
+    private AppluExecutable<BenchmarkContext> compiledProgram;
+
+    @Setup
+    public void prepare() {
+        program = AppluParser.parseProgram(workload.getSource());
+        slots = new VariableSlots();
+        slots.resolve(program);
+        closureProgram = ClosureCompiler.compile(program, slots);
+        vmProgram = VmCompiler.compile(program, slots);
+        compiledProgram = AppluCompiler.compile(program, "BenchmarkProgram", BenchmarkContext.class);
+    }
+
+    @Benchmark
+    public EvaluationContext treeInterpreter() {
+        var context = new EvaluationContext(slots, null);
+        program.run(context);
+        return context;
+    }
+
+    @Benchmark
+    public EvaluationContext closureInterpreter() {
+        var context = closureProgram.createContext();
+        closureProgram.run(context);
+        return context;
+    }
+
+    @Benchmark
+    public EvaluationContext vm() {
+        var context = vmProgram.createContext();
+        vmProgram.run(context);
+        return context;
+    }
+
+    @Benchmark
+    public BenchmarkContext compiled() {
+        var context = compiledProgram.createContext();
+        compiledProgram.run(context);
+        return context;
+    }
+}
@@ -0,0 +1,42 @@
+package applu.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applu.ast.StatementNode;
+import applu.parser.AppluParser;
+import applu.parser.ParboiledAppluParser;
+
+/**
+ * Measures {@link AppluParser#parseProgram}, with the Parboiled reference grammar for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    @Param
+    public Workload workload;
+
+    @Benchmark
+    public StatementNode parse() {
+        return AppluParser.parseProgram(workload.getSource());
+    }
+
+    @Benchmark
+    public StatementNode parseWithParboiled() {
+        return ParboiledAppluParser.parseProgram(workload.getSource());
+    }
+}
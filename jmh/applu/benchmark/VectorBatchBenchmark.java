@@ -0,0 +1,88 @@
+package applu.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import applu.ast.StatementNode;
+import applu.interpreter.BatchEvaluator;
+import applu.parser.AppluParser;
+import applu.vector.VectorBatchEvaluator;
+
+/**
+ * Compares the SIMD {@link VectorBatchEvaluator} against the scalar {@link BatchEvaluator} on a
+ * loop-free, branchy program over a million rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VectorBatchBenchmark {
+    private static final int ROWS = 1_000_000;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private ForkJoinPool pool;
+    private BatchEvaluator scalar;
+    private VectorBatchEvaluator vector;
+    private Map<String, double[]> inputs;
+
+    @Setup
+    public void prepare() {
+        pool = new ForkJoinPool(threads);
+        StatementNode program = AppluParser.parseProgram(
+            """
+            Set d to x minus y.
+            Set dist to d times d.
+            If dist is greater than 100 then:
+                Set score to 0.
+            Else:
+                Set score to 100 minus dist.
+                If x is less than y then set score to score divided by 2.
+            End of conditional.
+            Set total to score plus x times 0.5.
+            """);
+        scalar = new BatchEvaluator(program, pool);
+        vector = new VectorBatchEvaluator(program, pool);
+
+        var xs = new double[ROWS];
+        var ys = new double[ROWS];
+        for (int row = 0; row < ROWS; row++) {
+            xs[row] = row % 37;
+            ys[row] = row % 23;
+        }
+        inputs = Map.of("x", xs, "y", ys);
+    }
+
+    @TearDown
+    public void shutDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<String, double[]> scalar() {
+        return scalar.evaluate(inputs, List.of("total"));
+    }
+
+    @Benchmark
+    public Map<String, double[]> vector() {
+        return vector.evaluate(inputs, List.of("total"));
+    }
+}
@@ -0,0 +1,72 @@
+package applu.benchmark;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Applu programs the benchmarks run. Each sets up its own inputs, so it needs no variables passed in
+ * from outside.
+ */
+public enum Workload {
+    /**
+     * The Playground’s sample program: a short counted loop.
+     */
+    FIBONACCI(
+        """
+        Set a to 1.
+        Set b to 1.
+        Set count to 10.
+        Loop:
+            If count is less than 1 then exit loop.
+            Set next to a plus b.
+            Set a to b.
+            Set b to next.
+            Set count to count minus 1.
+        End of loop.
+        """),
+
+    /**
+     * Three nested loops of 20 iterations each, stressing loop entry, exit, and conditionals.
+     */
+    NESTED_LOOPS(
+        """
+        Set i to 0.
+        Set total to 0.
+        Loop:
+            If i equals 20 then exit loop.
+            Set j to 0.
+            Loop:
+                If j equals 20 then exit loop.
+                Set k to 0.
+                Loop:
+                    If k equals 20 then exit loop.
+                    Set total to total plus i times j minus k.
+                    Set k to k plus 1.
+                End of loop.
+                Set j to j plus 1.
+            End of loop.
+            Set i to i plus 1.
+        End of loop.
+        """),
+
+    /**
+     * One assignment whose right-hand side is a 500-term expression over a handful of variables,
+     * stressing the parser and deep expression trees.
+     */
+    LONG_EXPRESSION(
+        "Set a to 1. Set b to 2. Set c to 3. Set d to 0.5. Set x to "
+            + IntStream.range(0, 500)
+                .mapToObj(n -> "abcd".charAt(n % 4) + (n % 3 == 0 ? " times " : " plus ") + n)
+                .collect(Collectors.joining(" minus "))
+            + ".");
+
+    private final String source;
+
+    Workload(String source) {
+        this.source = source;
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
@@ -1,7 +1,9 @@
 package applu.ast;
 
 import java.io.PrintWriter;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -12,13 +14,55 @@ import java.util.function.Consumer;
  * @author Paul Cantrell
  */
 public abstract class ASTNode {
+    /**
+     * Returns the number of immediate children of this node.
+     */
+    public abstract int childCount();
+
+    /**
+     * Returns the child at the given index, in the same order as {@link #getChildren()}. Together
+     * with {@link #childCount()}, this lets analyses walk the tree without allocating anything.
+     *
+     * @throws IndexOutOfBoundsException if index is not between 0 and childCount() - 1
+     */
+    public abstract ASTNode child(int index);
+
+    /**
+     * Returns a human-readable label that uniquely identifies the role of the child at the given
+     * index.
+     *
+     * @throws IndexOutOfBoundsException if index is not between 0 and childCount() - 1
+     */
+    public abstract String childLabel(int index);
+
     /**
      * Returns all the children of this node (immediate children, not all descendants).
+     *
+     * This builds a new map on every call. Code that walks large trees should use
+     * {@link #childCount()} and {@link #child(int)} instead.
      * 
      * @return A map whose values are child nodes, and whose keys are human-readable labels that
      *         uniquely identify each child node’s role.
      */
-    public abstract Map<String, ASTNode> getChildren();
+    public Map<String, ASTNode> getChildren() {
+        int count = childCount();
+        Map<String, ASTNode> result = new LinkedHashMap<>(count * 4 / 3 + 1);
+        for (int index = 0; index < count; index++) {
+            result.put(childLabel(index), child(index));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Counts this node and all its descendants.
+     */
+    static int countNodes(ASTNode node) {
+        int count = 1;
+        for (int n = 0, children = node.childCount(); n < children; n++) {
+            count += countNodes(node.child(n));
+        }
+        return count;
+    }
 
     /**
      * Translates this node and its descendants into Java code.
@@ -38,14 +82,21 @@ public abstract class ASTNode {
     private void forEachVariable(Consumer<VariableNode> consumer) {
         if (this instanceof VariableNode)
             consumer.accept((VariableNode) this);
-        for (var child : getChildren().values()) {
-            child.forEachVariable(consumer);
+        for (int index = 0, count = childCount(); index < count; index++) {
+            child(index).forEachVariable(consumer);
         }
     }
 
     @Override
     public abstract boolean equals(Object obj);
 
+    /**
+     * Returns a hash of this node’s whole subtree, consistent with {@link #equals(Object)}.
+     *
+     * AST nodes are immutable, so nodes with children compute this once, when they are constructed,
+     * from their children’s already-computed hashes. Their equals() methods compare hashes before
+     * comparing children, so unequal subtrees are usually told apart without descending into them.
+     */
     @Override
     public abstract int hashCode();
 
@@ -64,7 +115,7 @@ public abstract class ASTNode {
             out.append(lastChild ? "└─" : "├─");
             indent += lastChild ? "  " : "│ ";
 
-            // Identify this node with the label from its parent’s getChildren() method
+            // Identify this node with the label from its parent’s childLabel() method
             out.append(label);
             out.append(": ");
 
@@ -77,9 +128,8 @@ public abstract class ASTNode {
         out.append(describeAttributes());
         out.append('\n');
 
-        for (var childIter = getChildren().entrySet().iterator(); childIter.hasNext();) {
-            var entry = childIter.next();
-            entry.getValue().dump(out, entry.getKey(), indent, !childIter.hasNext());
+        for (int index = 0, count = childCount(); index < count; index++) {
+            child(index).dump(out, childLabel(index), indent, index == count - 1);
         }
         return out;
     }
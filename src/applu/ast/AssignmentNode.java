@@ -1,11 +1,9 @@
 package applu.ast;
 
-import static applu.ast.Utils.orderedMap;
-
 import java.io.PrintWriter;
-import java.util.Map;
 import java.util.Objects;
 
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
 
 /**
@@ -22,17 +20,57 @@ public class AssignmentNode extends StatementNode {
      * LHS variable.
      */
     private final ExpressionNode expression;
+    private final int hash;
+    private final int steps;
 
     public AssignmentNode(VariableNode variable, ExpressionNode expression) {
         this.variable = variable;
         this.expression = expression;
+        this.hash = Objects.hash(variable, expression);
+        this.steps = countNodes(this);
+    }
+
+    public VariableNode getVariable() {
+        return variable;
+    }
+
+    public ExpressionNode getExpression() {
+        return expression;
+    }
+
+    @Override
+    public int childCount() {
+        return 2;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        switch (index) {
+            case 0: {
+                return variable;
+            }
+            case 1: {
+                return expression;
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return orderedMap(
-            "lhs", variable,
-            "rhs", expression);
+    public String childLabel(int index) {
+        switch (index) {
+            case 0: {
+                return "lhs";
+            }
+            case 1: {
+                return "rhs";
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
     }
 
     @Override
@@ -42,13 +80,14 @@ public class AssignmentNode extends StatementNode {
         if (o == null || getClass() != o.getClass())
             return false;
         AssignmentNode that = (AssignmentNode) o;
-        return variable.equals(that.variable)
+        return this.hash == that.hash
+            && variable.equals(that.variable)
             && expression.equals(that.expression);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(variable, expression);
+        return hash;
     }
 
     @Override
@@ -60,8 +99,14 @@ public class AssignmentNode extends StatementNode {
     }
 
     @Override
-    public void doRun(EvaluationContext context) {
-        context.set(variable.getName(), expression.doEvaluate(context));
+    int steps() {
+        return steps;
+    }
+
+    @Override
+    public Completion doRun(EvaluationContext context) {
+        context.set(variable, expression.doEvaluate(context));
+        return Completion.NORMAL;
     }
 
     @Override
@@ -1,9 +1,6 @@
 package applu.ast;
 
-import static applu.ast.Utils.orderedMap;
-
 import java.io.PrintWriter;
-import java.util.Map;
 import java.util.Objects;
 
 import applu.interpreter.EvaluationContext;
@@ -22,18 +19,60 @@ public class BinaryExpressionNode extends ExpressionNode {
 
     private final Operator operator;
     private final ExpressionNode lhs, rhs;
+    private final int hash;
 
     public BinaryExpressionNode(Operator operator, ExpressionNode lhs, ExpressionNode rhs) {
         this.operator = operator;
         this.lhs = lhs;
         this.rhs = rhs;
+        this.hash = Objects.hash(operator, lhs, rhs);
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ExpressionNode getLhs() {
+        return lhs;
+    }
+
+    public ExpressionNode getRhs() {
+        return rhs;
+    }
+
+    @Override
+    public int childCount() {
+        return 2;
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return orderedMap(
-            "lhs", lhs,
-            "rhs", rhs);
+    public ASTNode child(int index) {
+        switch (index) {
+            case 0: {
+                return lhs;
+            }
+            case 1: {
+                return rhs;
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
+    }
+
+    @Override
+    public String childLabel(int index) {
+        switch (index) {
+            case 0: {
+                return "lhs";
+            }
+            case 1: {
+                return "rhs";
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
     }
 
     @Override
@@ -43,14 +82,15 @@ public class BinaryExpressionNode extends ExpressionNode {
         if (o == null || getClass() != o.getClass())
             return false;
         BinaryExpressionNode that = (BinaryExpressionNode) o;
-        return this.operator == that.operator
+        return this.hash == that.hash
+            && this.operator == that.operator
             && this.lhs.equals(that.lhs)
             && this.rhs.equals(that.rhs);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(operator, lhs, rhs);
+        return hash;
     }
 
     @Override
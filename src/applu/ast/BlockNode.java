@@ -1,12 +1,10 @@
 package applu.ast;
 
 import java.io.PrintWriter;
-import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
 
 /**
@@ -19,23 +17,39 @@ public class BlockNode extends StatementNode {
     public static final BlockNode EMPTY = new BlockNode();
 
     private final List<StatementNode> statements;
+    private final int hash;
+    private final int steps;
 
     public BlockNode(List<StatementNode> statements) {
         this.statements = List.copyOf(statements);
+        this.hash = Objects.hash(this.statements);
+        this.steps = countSteps(this.statements);
     }
 
     public BlockNode(StatementNode... statements) {
-        this.statements = Arrays.asList(statements);
+        this.statements = List.of(statements);
+        this.hash = Objects.hash(this.statements);
+        this.steps = countSteps(this.statements);
+    }
+
+    public List<StatementNode> getStatements() {
+        return statements;
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        Map<String, ASTNode> result = new LinkedHashMap<>();
-        var iter = statements.iterator();
-        for (int index = 0; iter.hasNext(); index++) {
-            result.put(String.valueOf(index), iter.next());
-        }
-        return result;
+    public int childCount() {
+        return statements.size();
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        return statements.get(index);
+    }
+
+    @Override
+    public String childLabel(int index) {
+        Objects.checkIndex(index, statements.size());
+        return String.valueOf(index);
     }
 
     @Override
@@ -45,12 +59,13 @@ public class BlockNode extends StatementNode {
         if (o == null || getClass() != o.getClass())
             return false;
         BlockNode blockNode = (BlockNode) o;
-        return statements.equals(blockNode.statements);
+        return hash == blockNode.hash
+            && statements.equals(blockNode.statements);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(statements);
+        return hash;
     }
 
     @Override
@@ -64,11 +79,26 @@ public class BlockNode extends StatementNode {
             .formatted(statements.size(), statements.size() == 1 ? "child" : "children");
     }
 
+    private static int countSteps(List<StatementNode> statements) {
+        int steps = 1;
+        for (var statement : statements) {
+            steps += statement.steps();
+        }
+        return steps;
+    }
+
+    @Override
+    int steps() {
+        return steps;
+    }
+
     @Override
-    public void doRun(EvaluationContext context) {
+    public Completion doRun(EvaluationContext context) {
         for (StatementNode statement : statements) {
-            statement.doRun(context);
+            if (statement.doRun(context) == Completion.LOOP_EXIT)
+                return Completion.LOOP_EXIT;
         }
+        return Completion.NORMAL;
     }
 
     @Override
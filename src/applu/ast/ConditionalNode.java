@@ -1,11 +1,9 @@
 package applu.ast;
 
-import static applu.ast.Utils.orderedMap;
-
 import java.io.PrintWriter;
-import java.util.Map;
 import java.util.Objects;
 
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
 
 /**
@@ -27,6 +25,8 @@ public class ConditionalNode extends StatementNode {
     private final Operator operator;
     private final ExpressionNode lhs, rhs;
     private final StatementNode ifTrue, ifFalse;
+    private final int hash;
+    private final int steps, ifTrueSteps, ifFalseSteps;
 
     public ConditionalNode(Operator operator, ExpressionNode lhs, ExpressionNode rhs, StatementNode ifTrue, StatementNode ifFalse) {
         this.operator = operator;
@@ -34,15 +34,77 @@ public class ConditionalNode extends StatementNode {
         this.rhs = rhs;
         this.ifTrue = ifTrue;
         this.ifFalse = ifFalse;
+        this.hash = Objects.hash(operator, lhs, rhs, ifTrue, ifFalse);
+        this.steps = 1 + countNodes(lhs) + countNodes(rhs);
+        this.ifTrueSteps = ifTrue.steps();
+        this.ifFalseSteps = ifFalse.steps();
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public ExpressionNode getLhs() {
+        return lhs;
+    }
+
+    public ExpressionNode getRhs() {
+        return rhs;
+    }
+
+    public StatementNode getIfTrue() {
+        return ifTrue;
+    }
+
+    public StatementNode getIfFalse() {
+        return ifFalse;
+    }
+
+    @Override
+    public int childCount() {
+        return 4;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        switch (index) {
+            case 0: {
+                return lhs;
+            }
+            case 1: {
+                return rhs;
+            }
+            case 2: {
+                return ifTrue;
+            }
+            case 3: {
+                return ifFalse;
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return orderedMap(
-            "lhs", lhs,
-            "rhs", rhs,
-            "ifTrue", ifTrue,
-            "ifFalse", ifFalse);
+    public String childLabel(int index) {
+        switch (index) {
+            case 0: {
+                return "lhs";
+            }
+            case 1: {
+                return "rhs";
+            }
+            case 2: {
+                return "ifTrue";
+            }
+            case 3: {
+                return "ifFalse";
+            }
+            default: {
+                throw new IndexOutOfBoundsException(index);
+            }
+        }
     }
 
     @Override
@@ -52,7 +114,8 @@ public class ConditionalNode extends StatementNode {
         if (o == null || getClass() != o.getClass())
             return false;
         ConditionalNode that = (ConditionalNode) o;
-        return this.operator == that.operator
+        return this.hash == that.hash
+            && this.operator == that.operator
             && this.lhs.equals(that.lhs)
             && this.rhs.equals(that.rhs)
             && this.ifTrue.equals(that.ifTrue)
@@ -61,7 +124,7 @@ public class ConditionalNode extends StatementNode {
 
     @Override
     public int hashCode() {
-        return Objects.hash(operator, lhs, rhs, ifTrue, ifFalse);
+        return hash;
     }
 
     @Override
@@ -81,7 +144,12 @@ public class ConditionalNode extends StatementNode {
     }
 
     @Override
-    public void doRun(EvaluationContext context) {
+    int steps() {
+        return steps;
+    }
+
+    @Override
+    public Completion doRun(EvaluationContext context) {
         double left = lhs.doEvaluate(context);
         double right = rhs.doEvaluate(context);
         boolean result = false;
@@ -102,9 +170,11 @@ public class ConditionalNode extends StatementNode {
         }
 
         if (result) {
-            ifTrue.doRun(context);
+            context.chargeSteps(ifTrueSteps);
+            return ifTrue.doRun(context);
         } else {
-            ifFalse.doRun(context);
+            context.chargeSteps(ifFalseSteps);
+            return ifFalse.doRun(context);
         }
     }
 
@@ -1,8 +1,6 @@
 package applu.ast;
 
 import java.io.PrintWriter;
-import java.util.Collections;
-import java.util.Map;
 import java.util.Objects;
 
 import applu.interpreter.EvaluationContext;
@@ -17,9 +15,23 @@ public final class ConstantNode extends ExpressionNode {
         this.value = value;
     }
 
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public int childCount() {
+        return 0;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        throw new IndexOutOfBoundsException(index);
+    }
+
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return Collections.emptyMap();
+    public String childLabel(int index) {
+        throw new IndexOutOfBoundsException(index);
     }
 
     @Override
@@ -17,12 +17,19 @@ public abstract class ExpressionNode extends ASTNode {
      * Used to implement the Applu interpreter.
      * 
      * Reports to the evaluation context’s tracer (if present) that expression evaluation is starting,
-     * and reports the resulting value when evaluation is complete.
+     * and reports the resulting value when evaluation is complete. Untraced contexts skip all of that.
      * 
      * @param context Provides the values of variables this expression can use.
      * @return The result of evaluating this expression.
      */
     public final double evaluate(EvaluationContext context) {
+        if (!context.isTracing())
+            return doEvaluate(context);
+        return evaluateTraced(context);
+    }
+
+    // Kept out of evaluate() so that the untraced path stays small enough to inline
+    private double evaluateTraced(EvaluationContext context) {
         context.trace(this, EvaluationContext.Tracer.Phase.STARTED);
         Double result = null;
         try {
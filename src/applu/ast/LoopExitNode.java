@@ -1,17 +1,16 @@
 package applu.ast;
 
 import java.io.PrintWriter;
-import java.util.Collections;
-import java.util.Map;
 
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
-import applu.interpreter.LoopExited;
 
 /**
  * A statement that causes program flow to exit the nearest-nested loop. Often called “break” in
  * other languages.
  * 
- * The interpreter implements this by throwing a `LoopExited` exception.
+ * The interpreter implements this by returning {@link Completion#LOOP_EXIT}, which enclosing
+ * statements pass along until it reaches the innermost loop.
  * 
  * @author Paul Cantrell
  */
@@ -20,8 +19,18 @@ public final class LoopExitNode extends StatementNode {
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return Collections.emptyMap();
+    public int childCount() {
+        return 0;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    @Override
+    public String childLabel(int index) {
+        throw new IndexOutOfBoundsException(index);
     }
 
     @Override
@@ -41,8 +50,13 @@ public final class LoopExitNode extends StatementNode {
     }
 
     @Override
-    public void doRun(EvaluationContext context) {
-        throw new LoopExited();
+    int steps() {
+        return 1;
+    }
+
+    @Override
+    public Completion doRun(EvaluationContext context) {
+        return Completion.LOOP_EXIT;
     }
 
     @Override
@@ -1,30 +1,71 @@
 package applu.ast;
 
 import java.io.PrintWriter;
-import java.util.Map;
 import java.util.Objects;
 
+import applu.compiler.CompilationException;
+import applu.compiler.CompiledStatement;
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
-import applu.interpreter.LoopExited;
 
 /**
  * Applu's only looping construct, essentially an infinite while loop. Repeatedly runs the `body`
  * statement until it encounters a LoopExitNode.
  * 
- * The interpreter implements this by catching a `LoopExited` exception to exit the loop.
+ * The interpreter implements this by running the body until it reports
+ * {@link Completion#LOOP_EXIT}, which the loop consumes rather than passing along.
+ *
+ * A loop that runs long enough is replaced on the stack by compiled code. The interpreter counts the
+ * loop’s back-edges, and once they reach {@link #OSR_THRESHOLD}, it compiles the loop on its own and
+ * finishes the current run in bytecode, starting from the top of the body with the variables’ current
+ * values. Later runs of the loop go straight to the compiled code. The count and the compiled code
+ * belong to the node, not to a program, which is safe for {@linkplain NodeInterner interned} loops
+ * that several programs share: compiled code refers to variables by name, so it works in any of them.
+ * Traced and budgeted contexts never switch to compiled code, and only they pay to count iterations
+ * and steps inside a loop.
  * 
  * @author Paul Cantrell
  */
 public class LoopNode extends StatementNode {
+    /**
+     * Back-edges after which the interpreter compiles a loop and continues in compiled code.
+     */
+    public static final int OSR_THRESHOLD = 10_000;
+
     private final StatementNode body;
+    private final int hash;
+    private final int bodySteps;
+
+    // Racy on purpose: a lost increment only delays compilation slightly
+    private int backEdgeCount;
+    private volatile CompiledStatement compiled;
+    private volatile boolean compilationFailed;
 
     public LoopNode(StatementNode body) {
         this.body = body;
+        this.hash = Objects.hash(body);
+        this.bodySteps = body.steps();
+    }
+
+    public StatementNode getBody() {
+        return body;
+    }
+
+    @Override
+    public int childCount() {
+        return 1;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        Objects.checkIndex(index, 1);
+        return body;
     }
 
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return Map.of("body", body);
+    public String childLabel(int index) {
+        Objects.checkIndex(index, 1);
+        return "body";
     }
 
     @Override
@@ -34,12 +75,13 @@ public class LoopNode extends StatementNode {
         if (o == null || getClass() != o.getClass())
             return false;
         LoopNode loopNode = (LoopNode) o;
-        return body.equals(loopNode.body);
+        return hash == loopNode.hash
+            && body.equals(loopNode.body);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(body);
+        return hash;
     }
 
     @Override
@@ -47,15 +89,56 @@ public class LoopNode extends StatementNode {
         return "LoopNode{body=" + body + '}';
     }
 
+    /**
+     * True once the interpreter has compiled this loop for on-stack replacement.
+     */
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
     @Override
-    public void doRun(EvaluationContext context) {
-        while (true) {
+    int steps() {
+        return 1;  // the body charges its own steps, iteration by iteration
+    }
+
+    @Override
+    public Completion doRun(EvaluationContext context) {
+        if (context.isTracing() || context.isBudgeted()) {
+            context.chargeSteps(bodySteps);
+            while (body.doRun(context) == Completion.NORMAL) {
+                context.chargeIteration();
+                context.chargeSteps(bodySteps);
+            }
+            return Completion.NORMAL;
+        }
+
+        var entry = compiled;
+        if (entry == null) {
+            while (body.doRun(context) == Completion.NORMAL) {
+                if (++backEdgeCount >= OSR_THRESHOLD && !compilationFailed) {
+                    entry = compileForOsr();
+                    if (entry != null)
+                        break;
+                }
+            }
+            if (entry == null)
+                return Completion.NORMAL;
+        }
+
+        // Any `exit loop` in the body belongs to this loop, so the compiled loop always completes normally
+        entry.run(context);
+        return Completion.NORMAL;
+    }
+
+    private synchronized CompiledStatement compileForOsr() {
+        if (compiled == null && !compilationFailed) {
             try {
-                body.doRun(context);
-            } catch (LoopExited exception) {
-                break;
+                compiled = CompiledStatement.compile(this);
+            } catch (CompilationException e) {
+                compilationFailed = true;  // keep interpreting
             }
         }
+        return compiled;
     }
 
     @Override
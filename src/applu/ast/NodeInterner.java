@@ -0,0 +1,157 @@
+package applu.ast;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Creates AST nodes such that structurally identical subtrees are the same object (“hash-consing”).
+ * Programs built through one interner share every subtree they have in common, so a large corpus of
+ * similar programs takes far less heap, and checking whether two interned subtrees are equal
+ * usually succeeds at the first `==`.
+ *
+ * The factory methods assume their child arguments already came from this interner, and so only
+ * need to look up the new node itself, which is O(1) because nodes cache their hash codes and the
+ * canonical children compare by identity. Nodes from elsewhere are still accepted, but are not
+ * shared with equal subtrees; use {@link #intern(ASTNode)} to canonicalize a whole existing tree.
+ *
+ * The interner holds its nodes weakly, so it never keeps a program alive by itself. Thread-safe.
+ *
+ * Note that interned VariableNodes are shared between programs, and so is the slot each one caches
+ * (see {@link VariableNode#slotIn}). That is still correct, but programs that resolve the same
+ * variables against different slot tables will keep overwriting each other’s cached slot.
+ */
+public final class NodeInterner {
+    private final Map<ASTNode, WeakReference<ASTNode>> nodes = new WeakHashMap<>();
+    private long hits, misses;
+
+    public ConstantNode constant(double value) {
+        return canonical(new ConstantNode(value));
+    }
+
+    public VariableNode variable(String name) {
+        return canonical(new VariableNode(name));
+    }
+
+    public BinaryExpressionNode binary(BinaryExpressionNode.Operator operator, ExpressionNode lhs, ExpressionNode rhs) {
+        return canonical(new BinaryExpressionNode(operator, lhs, rhs));
+    }
+
+    public AssignmentNode assignment(VariableNode variable, ExpressionNode expression) {
+        return canonical(new AssignmentNode(variable, expression));
+    }
+
+    public ConditionalNode conditional(
+        ConditionalNode.Operator operator,
+        ExpressionNode lhs,
+        ExpressionNode rhs,
+        StatementNode ifTrue,
+        StatementNode ifFalse) {
+        return canonical(new ConditionalNode(operator, lhs, rhs, ifTrue, ifFalse));
+    }
+
+    public LoopNode loop(StatementNode body) {
+        return canonical(new LoopNode(body));
+    }
+
+    public LoopExitNode loopExit() {
+        return canonical(new LoopExitNode());
+    }
+
+    public BlockNode block(List<StatementNode> statements) {
+        if (statements.isEmpty())
+            return canonical(BlockNode.EMPTY);
+        return canonical(new BlockNode(statements));
+    }
+
+    /**
+     * Returns the canonical copy of the given tree, building and registering canonical copies of any
+     * of its subtrees this interner has not seen before.
+     */
+    @SuppressWarnings("unchecked")  // each node type interns to the same type
+    public <T extends ASTNode> T intern(T tree) {
+        return (T) internTree(tree);
+    }
+
+    private ASTNode internTree(ASTNode node) {
+        if (node instanceof BinaryExpressionNode binary) {
+            var lhs = intern(binary.getLhs());
+            var rhs = intern(binary.getRhs());
+            if (lhs == binary.getLhs() && rhs == binary.getRhs())
+                return canonical(binary);
+            return binary(binary.getOperator(), lhs, rhs);
+        } else if (node instanceof AssignmentNode assignment) {
+            var variable = intern(assignment.getVariable());
+            var expression = intern(assignment.getExpression());
+            if (variable == assignment.getVariable() && expression == assignment.getExpression())
+                return canonical(assignment);
+            return assignment(variable, expression);
+        } else if (node instanceof ConditionalNode conditional) {
+            var lhs = intern(conditional.getLhs());
+            var rhs = intern(conditional.getRhs());
+            var ifTrue = intern(conditional.getIfTrue());
+            var ifFalse = intern(conditional.getIfFalse());
+            if (lhs == conditional.getLhs()
+                && rhs == conditional.getRhs()
+                && ifTrue == conditional.getIfTrue()
+                && ifFalse == conditional.getIfFalse())
+                return canonical(conditional);
+            return conditional(conditional.getOperator(), lhs, rhs, ifTrue, ifFalse);
+        } else if (node instanceof LoopNode loop) {
+            var body = intern(loop.getBody());
+            return (body == loop.getBody()) ? canonical(loop) : loop(body);
+        } else if (node instanceof BlockNode block) {
+            List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+            boolean changed = false;
+            for (var statement : block.getStatements()) {
+                var interned = intern(statement);
+                statements.add(interned);
+                changed |= (interned != statement);
+            }
+            return changed ? block(statements) : canonical(block);
+        } else {
+            return canonical(node);  // leaves
+        }
+    }
+
+    @SuppressWarnings("unchecked")  // equal nodes are always of the same class
+    private synchronized <T extends ASTNode> T canonical(T node) {
+        var existingRef = nodes.get(node);
+        var existing = (existingRef == null) ? null : existingRef.get();
+        if (existing != null) {
+            hits++;
+            return (T) existing;
+        }
+        misses++;
+        nodes.put(node, new WeakReference<>(node));
+        return node;
+    }
+
+    /**
+     * The number of distinct nodes currently interned.
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * The number of nodes requested that matched an existing node, and so were shared.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * The number of nodes requested that were new, and so were added.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "NodeInterner{size=" + nodes.size() + ", hits=" + hits + ", misses=" + misses + '}';
+    }
+}
@@ -1,6 +1,9 @@
 package applu.ast;
 
+import applu.interpreter.Completion;
 import applu.interpreter.EvaluationContext;
+import applu.interpreter.LoopExited;
+import applu.optimizer.Optimizer;
 
 /**
  * An Applu abstract syntax subtree that will evaluate to a specific value when the program runs.
@@ -17,21 +20,65 @@ public abstract class StatementNode extends ASTNode {
      * Used to implement the Applu interpreter.
      *
      * Reports to the evaluation context’s tracer (if present) when expression evaluation is starting,
-     * and when it is complete.
+     * and when it is complete. Untraced contexts skip all of that.
      *
      * @param context Provides the values of variables.
+     * @throws LoopExited if this statement executes an `exit loop` that is not inside any loop
      */
     public final void run(EvaluationContext context) {
+        context.chargeSteps(steps());
+        if (!context.isTracing()) {
+            if (doRun(context) == Completion.LOOP_EXIT)
+                throw new LoopExited();
+            return;
+        }
+        runTraced(context);
+    }
+
+    /**
+     * Simplifies this statement with the given optimizer, then runs the result against the given
+     * context. A traced context sees the optimized tree’s nodes, not this one’s.
+     *
+     * This optimizes on every call; to run the same program repeatedly, call
+     * {@link Optimizer#optimize(StatementNode)} once and run its result instead.
+     *
+     * @param optimizer The optimizer to apply, or null to run this statement as is.
+     * @throws LoopExited if this statement executes an `exit loop` that is not inside any loop
+     */
+    public final void run(EvaluationContext context, Optimizer optimizer) {
+        var program = (optimizer == null) ? this : optimizer.optimize(this);
+        program.run(context);
+    }
+
+    // Kept out of run() so that the untraced path stays small enough to inline
+    private void runTraced(EvaluationContext context) {
         context.trace(this, EvaluationContext.Tracer.Phase.STARTED);
         try {
-            doRun(context);
+            if (doRun(context) == Completion.LOOP_EXIT)
+                throw new LoopExited();
         } finally {
             context.trace(this, EvaluationContext.Tracer.Phase.COMPLETED);
         }
     }
 
+    /**
+     * How many nodes the interpreter executes unconditionally once this statement starts: the
+     * statement itself and the expressions it evaluates, and for a block, the same for every
+     * statement in it. Nodes that run only on some paths (a conditional’s branches, a loop’s body)
+     * are not included.
+     *
+     * Budgets are charged in these straight-line runs, rather than node by node, so that accounting
+     * costs one subtraction per branch taken or loop iteration. {@link #run} charges the program’s
+     * first run; conditionals and loops charge the runs they enter.
+     */
+    abstract int steps();
+
     /**
      * Subclasses should implement this to support interpreted execution.
+     *
+     * @return {@link Completion#LOOP_EXIT} if this statement executed an `exit loop` that is not
+     *         inside a loop within this statement, so that enclosing statements must stop and pass it
+     *         on; otherwise {@link Completion#NORMAL}.
      */
-    protected abstract void doRun(EvaluationContext context);
+    protected abstract Completion doRun(EvaluationContext context);
 }
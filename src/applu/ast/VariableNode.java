@@ -1,11 +1,10 @@
 package applu.ast;
 
 import java.io.PrintWriter;
-import java.util.Collections;
-import java.util.Map;
 import java.util.Objects;
 
 import applu.interpreter.EvaluationContext;
+import applu.interpreter.VariableSlots;
 
 /**
  * A variable reference (e.g. “x”) in an Applu abstract syntax tree. Note that this is a variable
@@ -18,6 +17,17 @@ import applu.interpreter.EvaluationContext;
 public class VariableNode extends ExpressionNode {
     private final String name;
 
+    /**
+     * The slot this variable most recently resolved to, paired with the table that assigned it. The
+     * interpreter usually runs a program against the same table over and over, so caching the slot
+     * here spares it a name lookup on every access. The pair is immutable and replaced as a unit, so
+     * a node shared between threads never sees one table’s slot attributed to another table.
+     */
+    private Resolution resolution;
+
+    private record Resolution(VariableSlots slots, int slot) {
+    }
+
     public VariableNode(String name) {
         this.name = name;
     }
@@ -29,9 +39,31 @@ public class VariableNode extends ExpressionNode {
         return name;
     }
 
+    /**
+     * Returns the slot that the given table assigns to this variable, assigning one if necessary.
+     */
+    public int slotIn(VariableSlots slots) {
+        var cached = resolution;
+        if (cached == null || cached.slots != slots) {
+            cached = new Resolution(slots, slots.slotFor(name));
+            resolution = cached;
+        }
+        return cached.slot;
+    }
+
+    @Override
+    public int childCount() {
+        return 0;
+    }
+
+    @Override
+    public ASTNode child(int index) {
+        throw new IndexOutOfBoundsException(index);
+    }
+
     @Override
-    public Map<String, ASTNode> getChildren() {
-        return Collections.emptyMap();
+    public String childLabel(int index) {
+        throw new IndexOutOfBoundsException(index);
     }
 
     @Override
@@ -61,7 +93,7 @@ public class VariableNode extends ExpressionNode {
 
     @Override
     public double doEvaluate(EvaluationContext context) {
-        return context.get(name);
+        return context.get(this);
     }
 
     @Override
@@ -0,0 +1,72 @@
+package applu.compiler;
+
+import java.util.Objects;
+
+import applu.compiler.ExecutionAbortedException.Reason;
+
+/**
+ * The superclass of every generated `ExecutionContext`. Holds the context’s {@link ExecutionLimits}
+ * and enforces them on behalf of the generated code.
+ *
+ * Polling is split so that the common case costs almost nothing: each run of the generated code
+ * keeps a countdown in a local variable, decrements it at every loop back-edge, and only calls
+ * {@link #poll()} when it reaches zero. The poll then checks interruption, the deadline, and the
+ * iteration budget, and starts a new countdown.
+ *
+ * Not for use outside generated code, except through the {@link AppluExecutable.ExecutionContext}
+ * methods.
+ */
+public abstract class AbstractExecutionContext implements AppluExecutable.ExecutionContext {
+    /**
+     * Back-edges between polls: rare enough that polling is negligible next to the loop bodies, but
+     * frequent enough that a runaway loop stops within microseconds.
+     */
+    static final int POLL_INTERVAL = 1024;
+
+    private ExecutionLimits limits = ExecutionLimits.NONE;
+    private long iterationsRemaining;
+    private int countdown;
+
+    @Override
+    public void setExecutionLimits(ExecutionLimits limits) {
+        this.limits = Objects.requireNonNull(limits, "limits");
+    }
+
+    @Override
+    public ExecutionLimits getExecutionLimits() {
+        return limits;
+    }
+
+    /**
+     * Called by generated code before it runs any loop.
+     *
+     * @return How many back-edges to take before calling {@link #poll()}.
+     */
+    public final int startRun() {
+        iterationsRemaining = limits.getIterationBudget();
+        return nextCountdown();
+    }
+
+    /**
+     * Called by generated code when the countdown from the previous call runs out.
+     *
+     * @return How many back-edges to take before calling this again.
+     * @throws ExecutionAbortedException if the run must stop
+     */
+    public final int poll() {
+        iterationsRemaining -= countdown;
+        if (iterationsRemaining < 0)
+            throw new ExecutionAbortedException(Reason.ITERATION_BUDGET_EXHAUSTED);
+        if (Thread.currentThread().isInterrupted())
+            throw new ExecutionAbortedException(Reason.INTERRUPTED);
+        if (limits.isPastDeadline())
+            throw new ExecutionAbortedException(Reason.DEADLINE_EXCEEDED);
+        return nextCountdown();
+    }
+
+    // One past the remaining budget, so that the poll lands on the first back-edge over it
+    private int nextCountdown() {
+        countdown = (iterationsRemaining >= POLL_INTERVAL) ? POLL_INTERVAL : (int) iterationsRemaining + 1;
+        return countdown;
+    }
+}
@@ -4,10 +4,11 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 
 import applu.ast.StatementNode;
-import net.openhft.compiler.CompilerUtils;
+import applu.ir.ControlFlowGraph;
+import applu.optimizer.Optimizer;
 
 /**
- * Compiles Applu code to Java code.
+ * Compiles Applu code to Java source code, or directly to JVM bytecode.
  * 
  * @author Paul Cantrell
  */
@@ -61,7 +62,7 @@ public class AppluCompiler {
                     return new ExecutionContext();
                 }
 
-                public static class ExecutionContext implements %s {
+                public static class ExecutionContext extends applu.compiler.AbstractExecutionContext implements %s {
             """.formatted(contextInterfaceName));
         for (var variable : program.findAllVariables()) {
             out.println("        private double " + variable.getName() + ";");
@@ -88,8 +89,11 @@ public class AppluCompiler {
     }
 
     /**
-     * Compiles Applu code to Java, then compiles the Java to an executable class. To use this class to
-     * execute Applu code:
+     * Compiles Applu code directly to JVM bytecode and loads it as an executable class. The generated
+     * class has the same structure as the Java source the other `compile()` method emits, but no
+     * Java compiler is involved. Each program is loaded in its own class loader, so the JVM can
+     * unload it once the returned executable and its contexts are no longer referenced. To use this
+     * class to execute Applu code:
      * 
      * <pre>
      * interface MyContext {
@@ -122,28 +126,83 @@ public class AppluCompiler {
      *  program completed
      * context.get_other_variable();
      * </pre>
+     * <p>
+     * Compiled loops stop with an {@link ExecutionAbortedException} if the thread running them is
+     * interrupted, or if they exceed the limits passed to
+     * {@link AppluExecutable.ExecutionContext#setExecutionLimits}.
      * 
      * @param program                   Parsed Applu code. Use Applu Parser.parseProgram() to translate
      *                                  Applu source into an AST that you can pass to this method.
      * @param className                 The name to use for the generated Java class.
      * @param executionContextInterface An interface that declares getters and setters for any variables
-     *                                  you need to pass to / from the Applu code.
+     *                                  you need to pass to / from the Applu code. Its abstract methods
+     *                                  must all be `get_x()` / `set_x(double)` accessors.
      * @return An object whose run() method is the compiled Applu program.
+     * @throws CompilationException if the program or interface cannot be compiled
+     * @see CompiledProgramCache to reuse executables for programs that are compiled repeatedly
      */
     public static <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> compile(
         StatementNode program,
         String className,
         Class<Context> executionContextInterface) {
-        var javaSource = compile(program, className, executionContextInterface.getCanonicalName());
+        var generator = new BytecodeGenerator(program, className, executionContextInterface);
         try {
-            @SuppressWarnings("unchecked")  // No way for Java to check that generated code implements correct interface
-            var compiledClass = (Class<? extends AppluExecutable<Context>>) CompilerUtils.CACHED_COMPILER.loadFromJava(
-                AppluCompiler.class.getClassLoader(),
-                className,
-                javaSource);
-            return compiledClass.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-            throw new CompilationException(e, program, javaSource);
+            return load(generator, executionContextInterface);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new CompilationException(e, program);
         }
     }
+
+    /**
+     * Compiles a program that has already been lowered to SSA form to JVM bytecode. The result
+     * behaves as {@link #compile(StatementNode, String, Class)} would for the original program,
+     * except that the context’s fields are only read when the program starts and only written when
+     * it finishes: if a limit stops the program partway, the context keeps the values it had before.
+     *
+     * @param graph The program to compile, which is {@linkplain ControlFlowGraph#verify() verified}
+     *              first.
+     * @throws applu.ir.VerificationException if the graph is not well formed
+     */
+    public static <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> compile(
+        ControlFlowGraph graph,
+        String className,
+        Class<Context> executionContextInterface) {
+        graph.verify();
+        var generator = new BytecodeGenerator(graph, className, executionContextInterface);
+        try {
+            return load(generator, executionContextInterface);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new CompilationException(e, graph);
+        }
+    }
+
+    private static <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> load(
+        BytecodeGenerator generator,
+        Class<Context> executionContextInterface) throws ReflectiveOperationException {
+        var executableBytecode = generator.generateExecutable();
+        var contextBytecode = generator.generateContext();
+        var loader = new GeneratedClassLoader(executionContextInterface.getClassLoader());
+        loader.define(generator.getContextClassName(), contextBytecode);
+        @SuppressWarnings("unchecked")  // No way for Java to check that generated code implements correct interface
+        var compiledClass = (Class<? extends AppluExecutable<Context>>) loader.define(
+            generator.getExecutableClassName(),
+            executableBytecode);
+        return compiledClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Simplifies the program with the given optimizer, then compiles the result to JVM bytecode as
+     * {@link #compile(StatementNode, String, Class)} does. Variables the optimizer removes from the
+     * program still have accessors if the context interface declares them.
+     *
+     * @param optimizer The optimizer to apply, or null to compile the program as is.
+     */
+    public static <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> compile(
+        StatementNode program,
+        String className,
+        Class<Context> executionContextInterface,
+        Optimizer optimizer) {
+        var optimized = (optimizer == null) ? program : optimizer.optimize(program);
+        return compile(optimized, className, executionContextInterface);
+    }
 }
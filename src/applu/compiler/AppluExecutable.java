@@ -15,6 +15,18 @@ public interface AppluExecutable<Context extends AppluExecutable.ExecutionContex
 
     void run(Context context);
 
+    /**
+     * Holds a compiled program’s variables. The generated class adds a `get_x()` / `set_x(double)`
+     * accessor pair for each variable.
+     */
     interface ExecutionContext {
+        /**
+         * Bounds subsequent runs against this context. Compiled loops check the limits periodically,
+         * and throw {@link ExecutionAbortedException} once one is exceeded; they also stop if the
+         * running thread is interrupted, whatever the limits.
+         */
+        void setExecutionLimits(ExecutionLimits limits);
+
+        ExecutionLimits getExecutionLimits();
     }
 }
@@ -0,0 +1,479 @@
+package applu.compiler;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+import applu.ir.BasicBlock;
+import applu.ir.Constant;
+import applu.ir.ControlFlowGraph;
+import applu.ir.Input;
+import applu.ir.Operation;
+import applu.ir.Terminator;
+import applu.ir.Value;
+
+/**
+ * Translates an Applu AST directly to JVM bytecode using ASM. The output is the same pair of classes
+ * that {@link AppluCompiler#compile(StatementNode, String, String)} describes as Java source:
+ * <ul>
+ * <li>an `AppluExecutable` whose `run()` method contains the compiled program, and
+ * <li>a nested `ExecutionContext` class with one `double` field, getter, and setter per variable.
+ * </ul>
+ *
+ * Unlike the Java source, every loop back-edge also counts down to a poll of the context’s
+ * {@link ExecutionLimits}, so that a runaway program can be stopped; see
+ * {@link AbstractExecutionContext}.
+ *
+ * Generating bytecode ourselves skips javac entirely, so compiling a program takes microseconds
+ * instead of hundreds of milliseconds, and the process does not need a JDK compiler at runtime.
+ *
+ * The generator also accepts a program already lowered to a {@link ControlFlowGraph}. Then each SSA
+ * value gets a `double` local of its own, the context’s fields are only read for the graph’s inputs
+ * and written when it returns, and each phi becomes a copy on every edge into its block.
+ */
+class BytecodeGenerator {
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String EXECUTABLE = Type.getInternalName(AppluExecutable.class);
+    private static final String CONTEXT_SUPERCLASS = Type.getInternalName(AbstractExecutionContext.class);
+
+    // run() keeps the typed context in local 2, and the back-edges left until the next poll in local 3
+    private static final int POLL_COUNTDOWN = 3;
+    private static final String EXECUTION_CONTEXT_DESCRIPTOR = Type.getDescriptor(AppluExecutable.ExecutionContext.class);
+
+    private final StatementNode program;
+    private final ControlFlowGraph graph;
+    private final String className;
+    private final String executableName;
+    private final String contextName;
+    private final Class<?> contextInterface;
+    private final Set<String> variables = new TreeSet<>();
+
+    private MethodVisitor method;
+    private final Deque<Label> loopExits = new ArrayDeque<>();
+
+    // When compiling a graph: where each SSA value lives, after the this, context, typed context and
+    // countdown locals, and where each block’s code starts
+    private final Map<Value, Integer> locals = new HashMap<>();
+    private final Map<BasicBlock, Label> blockLabels = new HashMap<>();
+
+    /**
+     * @param program          The Applu program to compile.
+     * @param className        The binary name of the generated `AppluExecutable` class.
+     * @param contextInterface The interface the generated ExecutionContext implements. Every
+     *                         abstract method it declares must be a `get_name()` or
+     *                         `set_name(double)` accessor; variables it mentions that the program
+     *                         does not use still get fields.
+     */
+    BytecodeGenerator(StatementNode program, String className, Class<?> contextInterface) {
+        this(program, null, className, contextInterface);
+        for (var variable : program.findAllVariables()) {
+            variables.add(variable.getName());
+        }
+    }
+
+    /**
+     * Compiles a program in SSA form instead; the other parameters are as above.
+     *
+     * @param graph A {@linkplain ControlFlowGraph#verify() well-formed} graph.
+     */
+    BytecodeGenerator(ControlFlowGraph graph, String className, Class<?> contextInterface) {
+        this(null, graph, className, contextInterface);
+        variables.addAll(graph.getVariables());
+    }
+
+    private BytecodeGenerator(StatementNode program, ControlFlowGraph graph, String className, Class<?> contextInterface) {
+        if (!contextInterface.isInterface())
+            throw new IllegalArgumentException(contextInterface + " is not an interface");
+
+        this.program = program;
+        this.graph = graph;
+        this.className = className;
+        this.executableName = className.replace('.', '/');
+        this.contextName = executableName + "$ExecutionContext";
+        this.contextInterface = contextInterface;
+
+        for (var accessor : contextInterface.getMethods()) {
+            // AbstractExecutionContext implements ExecutionContext’s own methods
+            if (Modifier.isAbstract(accessor.getModifiers())
+                && accessor.getDeclaringClass() != AppluExecutable.ExecutionContext.class)
+                variables.add(accessedVariable(accessor));
+        }
+    }
+
+    private String accessedVariable(Method accessor) {
+        var name = accessor.getName();
+        var params = accessor.getParameterTypes();
+        if (name.startsWith("get_") && params.length == 0 && accessor.getReturnType() == double.class)
+            return name.substring(4);
+        if (name.startsWith("set_") && params.length == 1 && params[0] == double.class && accessor.getReturnType() == void.class)
+            return name.substring(4);
+        throw failure("Context interface method " + accessor + " is not a get_x() or set_x(double) accessor");
+    }
+
+    private CompilationException failure(String problem) {
+        return (graph == null) ? new CompilationException(problem, program) : new CompilationException(problem, graph);
+    }
+
+    /**
+     * The binary name of the class {@link #generateExecutable()} produces.
+     */
+    String getExecutableClassName() {
+        return className;
+    }
+
+    /**
+     * The binary name of the class {@link #generateContext()} produces.
+     */
+    String getContextClassName() {
+        return className + "$ExecutionContext";
+    }
+
+    byte[] generateExecutable() {
+        var writer = new FrameComputingClassWriter();
+        writer.visit(V16, ACC_PUBLIC | ACC_SUPER, executableName,
+            "L" + OBJECT + ";L" + EXECUTABLE + "<L" + contextName + ";>;",
+            OBJECT,
+            new String[] { EXECUTABLE });
+        writer.visitInnerClass(contextName, executableName, "ExecutionContext", ACC_PUBLIC | ACC_STATIC);
+
+        generateConstructor(writer, OBJECT);
+
+        method = writer.visitMethod(ACC_PUBLIC, "createContext", "()" + EXECUTION_CONTEXT_DESCRIPTOR, null, null);
+        method.visitCode();
+        method.visitTypeInsn(NEW, contextName);
+        method.visitInsn(DUP);
+        method.visitMethodInsn(INVOKESPECIAL, contextName, "<init>", "()V", false);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        method = writer.visitMethod(ACC_PUBLIC, "run", "(" + EXECUTION_CONTEXT_DESCRIPTOR + ")V", null, null);
+        method.visitCode();
+        method.visitVarInsn(ALOAD, 1);
+        method.visitTypeInsn(CHECKCAST, contextName);
+        method.visitVarInsn(ASTORE, 2);
+        if ((graph == null) ? containsLoop(program) : graph.containsBackEdge()) {
+            method.visitVarInsn(ALOAD, 2);
+            method.visitMethodInsn(INVOKEVIRTUAL, CONTEXT_SUPERCLASS, "startRun", "()I", false);
+            method.visitVarInsn(ISTORE, POLL_COUNTDOWN);
+        }
+        if (graph == null) {
+            generate(program);  // the magic happens here
+            method.visitInsn(RETURN);
+        } else {
+            generate(graph);  // every path through the graph ends in its own return
+        }
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        method = null;
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    byte[] generateContext() {
+        var writer = new FrameComputingClassWriter();
+        writer.visit(V16, ACC_PUBLIC | ACC_SUPER, contextName, null, CONTEXT_SUPERCLASS,
+            new String[] { Type.getInternalName(contextInterface) });
+        writer.visitInnerClass(contextName, executableName, "ExecutionContext", ACC_PUBLIC | ACC_STATIC);
+
+        generateConstructor(writer, CONTEXT_SUPERCLASS);
+
+        for (var variable : variables) {
+            // Package-private so that the executable class, which shares our class loader and package,
+            // can access fields directly
+            writer.visitField(0, variable, "D", null, null).visitEnd();
+
+            var getter = writer.visitMethod(ACC_PUBLIC, "get_" + variable, "()D", null, null);
+            getter.visitCode();
+            getter.visitVarInsn(ALOAD, 0);
+            getter.visitFieldInsn(GETFIELD, contextName, variable, "D");
+            getter.visitInsn(DRETURN);
+            getter.visitMaxs(0, 0);
+            getter.visitEnd();
+
+            var setter = writer.visitMethod(ACC_PUBLIC, "set_" + variable, "(D)V", null, null);
+            setter.visitCode();
+            setter.visitVarInsn(ALOAD, 0);
+            setter.visitVarInsn(DLOAD, 1);
+            setter.visitFieldInsn(PUTFIELD, contextName, variable, "D");
+            setter.visitInsn(RETURN);
+            setter.visitMaxs(0, 0);
+            setter.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void generateConstructor(ClassWriter writer, String superclass) {
+        var constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, superclass, "<init>", "()V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    private void generate(StatementNode node) {
+        if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                generate(statement);
+            }
+        } else if (node instanceof AssignmentNode assignment) {
+            method.visitVarInsn(ALOAD, 2);
+            generate(assignment.getExpression());
+            method.visitFieldInsn(PUTFIELD, contextName, assignment.getVariable().getName(), "D");
+        } else if (node instanceof ConditionalNode conditional) {
+            generateConditional(conditional);
+        } else if (node instanceof LoopNode loop) {
+            var top = new Label();
+            var exit = new Label();
+            loopExits.push(exit);
+            method.visitLabel(top);
+            generate(loop.getBody());
+            generateBackEdge(top);
+            method.visitLabel(exit);
+            loopExits.pop();
+        } else if (node instanceof LoopExitNode) {
+            if (loopExits.isEmpty())
+                throw failure("“exit loop” appears outside of any loop");
+            method.visitJumpInsn(GOTO, loopExits.peek());
+        } else {
+            throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+        }
+    }
+
+    // Counts down, and polls for cancellation when the countdown runs out
+    private void generateBackEdge(Label top) {
+        method.visitIincInsn(POLL_COUNTDOWN, -1);
+        method.visitVarInsn(ILOAD, POLL_COUNTDOWN);
+        method.visitJumpInsn(IFGT, top);
+        method.visitVarInsn(ALOAD, 2);
+        method.visitMethodInsn(INVOKEVIRTUAL, CONTEXT_SUPERCLASS, "poll", "()I", false);
+        method.visitVarInsn(ISTORE, POLL_COUNTDOWN);
+        method.visitJumpInsn(GOTO, top);
+    }
+
+    private static boolean containsLoop(ASTNode node) {
+        if (node instanceof LoopNode)
+            return true;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            if (containsLoop(node.child(n)))
+                return true;
+        }
+        return false;
+    }
+
+    private void generateConditional(ConditionalNode conditional) {
+        var ifFalse = new Label();
+        var end = new Label();
+
+        generate(conditional.getLhs());
+        generate(conditional.getRhs());
+        generateComparison(conditional.getOperator(), ifFalse);
+
+        generate(conditional.getIfTrue());
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(ifFalse);
+        generate(conditional.getIfFalse());
+        method.visitLabel(end);
+    }
+
+    // Same comparison instructions javac uses, so NaN compares false under all three operators
+    private void generateComparison(ConditionalNode.Operator operator, Label ifFalse) {
+        switch (operator) {
+            case LESS_THAN: {
+                method.visitInsn(DCMPG);
+                method.visitJumpInsn(IFGE, ifFalse);
+                break;
+            }
+            case EQUALS: {
+                method.visitInsn(DCMPL);
+                method.visitJumpInsn(IFNE, ifFalse);
+                break;
+            }
+            case GREATER_THAN: {
+                method.visitInsn(DCMPL);
+                method.visitJumpInsn(IFLE, ifFalse);
+                break;
+            }
+        }
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    private void generate(ExpressionNode node) {
+        if (node instanceof ConstantNode constant) {
+            generateConstant(constant.getValue());
+        } else if (node instanceof VariableNode variable) {
+            method.visitVarInsn(ALOAD, 2);
+            method.visitFieldInsn(GETFIELD, contextName, variable.getName(), "D");
+        } else if (node instanceof BinaryExpressionNode binary) {
+            generate(binary.getLhs());
+            generate(binary.getRhs());
+            generateOperator(binary.getOperator());
+        } else {
+            throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+        }
+    }
+
+    private void generateConstant(double value) {
+        if (Double.doubleToRawLongBits(value) == 0L)  // excludes -0.0, which DCONST_0 would lose
+            method.visitInsn(DCONST_0);
+        else if (value == 1.0)
+            method.visitInsn(DCONST_1);
+        else
+            method.visitLdcInsn(value);
+    }
+
+    private void generateOperator(BinaryExpressionNode.Operator operator) {
+        switch (operator) {
+            case ADDITION: {
+                method.visitInsn(DADD);
+                break;
+            }
+            case SUBTRACTION: {
+                method.visitInsn(DSUB);
+                break;
+            }
+            case MULTIPLICATION: {
+                method.visitInsn(DMUL);
+                break;
+            }
+            case DIVISION: {
+                method.visitInsn(DDIV);
+                break;
+            }
+            case EXPONENTIATION: {
+                method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", false);
+                break;
+            }
+        }
+    }
+
+    // –––––––––––– Control flow graphs ––––––––––––
+
+    private void generate(ControlFlowGraph graph) {
+        int next = POLL_COUNTDOWN + 1;
+        for (var block : graph.getBlocks()) {
+            blockLabels.put(block, new Label());
+            for (var phi : block.getPhis()) {
+                locals.put(phi, next);
+                next += 2;
+            }
+            for (var instruction : block.getInstructions()) {
+                if (!(instruction instanceof Constant)) {  // loaded where used instead
+                    locals.put(instruction, next);
+                    next += 2;
+                }
+            }
+        }
+
+        for (var block : graph.getBlocks()) {
+            method.visitLabel(blockLabels.get(block));
+            for (var instruction : block.getInstructions()) {
+                if (instruction instanceof Input input) {
+                    method.visitVarInsn(ALOAD, 2);
+                    method.visitFieldInsn(GETFIELD, contextName, input.getVariable(), "D");
+                    method.visitVarInsn(DSTORE, locals.get(input));
+                } else if (instruction instanceof Operation operation) {
+                    load(operation.getLhs());
+                    load(operation.getRhs());
+                    generateOperator(operation.getOperator());
+                    method.visitVarInsn(DSTORE, locals.get(operation));
+                }
+            }
+
+            var terminator = block.getTerminator();
+            if (terminator instanceof Terminator.Jump jump) {
+                generateEdge(block, jump.target());
+            } else if (terminator instanceof Terminator.Branch branch) {
+                var ifFalse = new Label();
+                load(branch.lhs());
+                load(branch.rhs());
+                generateComparison(branch.operator(), ifFalse);
+                generateEdge(block, branch.ifTrue());
+                method.visitLabel(ifFalse);
+                generateEdge(block, branch.ifFalse());
+            } else if (terminator instanceof Terminator.Return ret) {
+                if (ret.loopExited())
+                    throw failure("“exit loop” appears outside of any loop");
+                ret.variables().forEach((variable, value) -> {
+                    method.visitVarInsn(ALOAD, 2);
+                    load(value);
+                    method.visitFieldInsn(PUTFIELD, contextName, variable, "D");
+                });
+                method.visitInsn(RETURN);
+            } else {
+                throw new IllegalArgumentException("Unknown terminator type: " + terminator);
+            }
+        }
+    }
+
+    private void load(Value value) {
+        if (value instanceof Constant constant)
+            generateConstant(constant.getValue());
+        else
+            method.visitVarInsn(DLOAD, locals.get(value));
+    }
+
+    // Gives the target’s phis their values for this edge, then continues there
+    private void generateEdge(BasicBlock from, BasicBlock to) {
+        // Every operand is read before any phi is written, since one phi may read another
+        var phis = to.getPhis();
+        for (var phi : phis) {
+            load(phi.getIncoming(from));
+        }
+        for (int n = phis.size() - 1; n >= 0; n--) {
+            method.visitVarInsn(DSTORE, locals.get(phis.get(n)));
+        }
+
+        if (graph.isBackEdge(from, to))
+            generateBackEdge(blockLabels.get(to));
+        else
+            method.visitJumpInsn(GOTO, blockLabels.get(to));
+    }
+
+    /**
+     * Lets ASM compute stack map frames without loading any classes. The only reference-typed values
+     * our generated code ever merges are the `this` and `context` locals, whose types never change,
+     * so ASM never needs a real common superclass.
+     */
+    private static class FrameComputingClassWriter extends ClassWriter {
+        FrameComputingClassWriter() {
+            super(COMPUTE_FRAMES);
+        }
+
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            return OBJECT;
+        }
+    }
+}
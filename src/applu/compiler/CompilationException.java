@@ -1,6 +1,7 @@
 package applu.compiler;
 
 import applu.ast.StatementNode;
+import applu.ir.ControlFlowGraph;
 
 /**
  * An error that occurred duration compilation of an Applu program _after_ parsing. This usually
@@ -18,4 +19,46 @@ public class CompilationException extends RuntimeException {
                 + javaSource
                 + "\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
     }
+
+    /**
+     * Reports a failure to generate or load bytecode for the given program.
+     */
+    public CompilationException(Throwable cause, StatementNode appluSource) {
+        super(describe(String.valueOf(cause), appluSource), cause);
+    }
+
+    /**
+     * Reports a program that cannot be compiled for the given reason.
+     */
+    public CompilationException(String problem, StatementNode appluSource) {
+        super(describe(problem, appluSource));
+    }
+
+    /**
+     * Reports a failure to generate or load bytecode for the given control flow graph.
+     */
+    public CompilationException(Throwable cause, ControlFlowGraph graph) {
+        super(describe(String.valueOf(cause), graph), cause);
+    }
+
+    /**
+     * Reports a control flow graph that cannot be compiled for the given reason.
+     */
+    public CompilationException(String problem, ControlFlowGraph graph) {
+        super(describe(problem, graph));
+    }
+
+    private static String describe(String problem, ControlFlowGraph graph) {
+        return "Unable to compile Applu IR: " + problem
+            + "\n━━━━━━━━━━━━━━ IR ━━━━━━━━━━━━━━\n"
+            + graph
+            + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━";
+    }
+
+    private static String describe(String problem, StatementNode appluSource) {
+        return "Unable to compile Applu source code: " + problem
+            + "\n━━━━━━━━━━ APPLU AST ━━━━━━━━━━━\n"
+            + appluSource.dump()
+            + "\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━";
+    }
 }
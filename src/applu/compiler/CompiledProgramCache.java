@@ -0,0 +1,120 @@
+package applu.compiler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import applu.ast.StatementNode;
+
+/**
+ * Memoizes {@link AppluCompiler#compile(StatementNode, String, Class)}. Programs are keyed by the
+ * structure of their AST (using the nodes’ structural `equals()` / `hashCode()`) together with the
+ * context interface, so parsing the same source twice, or building the same tree by hand, yields the
+ * already-loaded executable instead of compiling again.
+ *
+ * The cache holds at most a fixed number of programs, evicting the least recently used one when it
+ * is full. It chooses a fresh class name for every program it compiles, so callers never need to
+ * invent unique names, and a name can never refer to a stale class.
+ *
+ * Thread-safe. Two threads that miss on the same program at the same moment may both compile it,
+ * but both receive the same executable.
+ */
+public class CompiledProgramCache {
+    private static final AtomicLong classNameCounter = new AtomicLong();
+
+    private final int maxSize;
+    private final Map<Key, AppluExecutable<?>> entries;
+    private long hits, misses, evictions;
+
+    private record Key(StatementNode program, Class<?> contextInterface) {
+    }
+
+    public CompiledProgramCache(int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("maxSize must be positive, but was " + maxSize);
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {  // access order, for LRU eviction
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, AppluExecutable<?>> eldest) {
+                if (size() <= CompiledProgramCache.this.maxSize)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a compiled executable for the given program, compiling it only if no structurally
+     * identical program with the same context interface is already cached.
+     *
+     * @see AppluCompiler#compile(StatementNode, String, Class)
+     */
+    public <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> compile(
+        StatementNode program,
+        Class<Context> executionContextInterface) {
+        var key = new Key(program, executionContextInterface);
+        synchronized (this) {
+            var cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cast(cached);
+            }
+            misses++;
+        }
+
+        // Compile outside the lock so a slow compilation does not block unrelated lookups
+        var compiled = AppluCompiler.compile(program, nextClassName(), executionContextInterface);
+
+        synchronized (this) {
+            var winner = entries.putIfAbsent(key, compiled);
+            return (winner != null) ? cast(winner) : compiled;
+        }
+    }
+
+    @SuppressWarnings("unchecked")  // Key includes the context interface, so the entry must match it
+    private static <Context extends AppluExecutable.ExecutionContext> AppluExecutable<Context> cast(
+        AppluExecutable<?> executable) {
+        return (AppluExecutable<Context>) executable;
+    }
+
+    private static String nextClassName() {
+        return "AppluProgram" + classNameCounter.incrementAndGet();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Removes all cached programs. Does not reset the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CompiledProgramCache{size=" + entries.size() + "/" + maxSize
+            + ", hits=" + hits
+            + ", misses=" + misses
+            + ", evictions=" + evictions
+            + '}';
+    }
+}
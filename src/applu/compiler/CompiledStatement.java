@@ -0,0 +1,153 @@
+package applu.compiler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.StatementNode;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.VariableSlots;
+
+/**
+ * A statement compiled to JVM bytecode that runs against an interpreter {@link EvaluationContext},
+ * so compiled and interpreted code can take turns on the same variables.
+ *
+ * Each run copies the context’s values into a fresh generated `ExecutionContext` through its public
+ * `get_x()` / `set_x(double)` accessors, runs the bytecode, and copies back the variables the
+ * statement assigns. The others cannot have changed, and copying them would mark them as set in the
+ * context. A variable the statement assigns only on some paths, though, counts as set afterward
+ * even if this run did not take that path.
+ *
+ * Thread-safe.
+ */
+public final class CompiledStatement {
+    private static final AtomicLong classNameCounter = new AtomicLong();
+
+    private static final MethodType GETTER_TYPE =
+        MethodType.methodType(double.class, AppluExecutable.ExecutionContext.class);
+    private static final MethodType SETTER_TYPE =
+        MethodType.methodType(void.class, AppluExecutable.ExecutionContext.class, double.class);
+
+    private final StatementNode statement;
+    private final AppluExecutable<AppluExecutable.ExecutionContext> executable;
+
+    // Parallel arrays, one element per variable
+    private final String[] names;
+    private final boolean[] assignedByStatement;
+    private final MethodHandle[] getters, setters;
+
+    /**
+     * The slots of `names` in the table of the context most recently run, as in
+     * {@link applu.ast.VariableNode}: contexts usually share one table, so this rarely changes.
+     */
+    private volatile Resolution resolution;
+
+    private record Resolution(VariableSlots slots, int[] slotIndices) {
+    }
+
+    /**
+     * Compiles the given statement. An `exit loop` in it must be inside a loop that is also part of
+     * the statement.
+     *
+     * @throws CompilationException if the statement cannot be compiled
+     */
+    public static CompiledStatement compile(StatementNode statement) {
+        return new CompiledStatement(statement);
+    }
+
+    private CompiledStatement(StatementNode statement) {
+        this.statement = statement;
+        this.executable = AppluCompiler.compile(
+            statement,
+            "AppluStatement" + classNameCounter.incrementAndGet(),
+            AppluExecutable.ExecutionContext.class);
+
+        Set<String> assigned = new LinkedHashSet<>();
+        findAssignments(statement, assigned);
+
+        var variables = statement.findAllVariables();
+        int count = variables.size();
+        names = new String[count];
+        assignedByStatement = new boolean[count];
+        getters = new MethodHandle[count];
+        setters = new MethodHandle[count];
+
+        var contextClass = executable.createContext().getClass();
+        var lookup = MethodHandles.publicLookup();
+        int n = 0;
+        for (var variable : variables) {
+            var name = variable.getName();
+            names[n] = name;
+            assignedByStatement[n] = assigned.contains(name);
+            try {
+                getters[n] = lookup.findVirtual(contextClass, "get_" + name, MethodType.methodType(double.class))
+                    .asType(GETTER_TYPE);
+                setters[n] = lookup.findVirtual(contextClass, "set_" + name, MethodType.methodType(void.class, double.class))
+                    .asType(SETTER_TYPE);
+            } catch (ReflectiveOperationException e) {
+                throw new CompilationException(e, statement);
+            }
+            n++;
+        }
+    }
+
+    private static void findAssignments(ASTNode node, Set<String> assigned) {
+        if (node instanceof AssignmentNode assignment)
+            assigned.add(assignment.getVariable().getName());
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            findAssignments(node.child(n), assigned);
+        }
+    }
+
+    public StatementNode getStatement() {
+        return statement;
+    }
+
+    /**
+     * Runs the compiled statement against the given context’s variables. Ignores the context’s
+     * tracer, if it has one.
+     */
+    public void run(EvaluationContext context) {
+        int[] slots = slotsIn(context.getSlots());
+        var executionContext = executable.createContext();
+        try {
+            for (int n = 0; n < names.length; n++) {
+                setters[n].invokeExact(executionContext, context.get(slots[n]));
+            }
+
+            executable.run(executionContext);
+
+            for (int n = 0; n < names.length; n++) {
+                if (assignedByStatement[n])
+                    context.set(slots[n], (double) getters[n].invokeExact(executionContext));
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Generated accessor threw a checked exception", e);
+        }
+    }
+
+    private int[] slotsIn(VariableSlots table) {
+        var cached = resolution;
+        if (cached == null || cached.slots != table) {
+            int[] slotIndices = new int[names.length];
+            for (int n = 0; n < names.length; n++) {
+                slotIndices[n] = table.slotFor(names[n]);
+            }
+            cached = new Resolution(table, slotIndices);
+            resolution = cached;
+        }
+        return cached.slotIndices;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledStatement{variables=" + names.length + ", statement=" + statement + '}';
+    }
+}
@@ -0,0 +1,33 @@
+package applu.compiler;
+
+/**
+ * Thrown by a compiled Applu program that stops before finishing because it exceeded its
+ * {@link ExecutionLimits} or its thread was interrupted. The context’s variables hold whatever
+ * values they had when the program stopped.
+ *
+ * Interruption does not clear the thread’s interrupted status.
+ */
+public class ExecutionAbortedException extends RuntimeException {
+    public enum Reason {
+        INTERRUPTED("Thread was interrupted"),
+        DEADLINE_EXCEEDED("Deadline exceeded"),
+        ITERATION_BUDGET_EXHAUSTED("Iteration budget exhausted");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+    }
+
+    private final Reason reason;
+
+    public ExecutionAbortedException(Reason reason) {
+        super(reason.message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,79 @@
+package applu.compiler;
+
+import java.time.Duration;
+
+/**
+ * Bounds on how long one run of a compiled Applu program may take. Compiled loops check these limits
+ * every so many iterations, and abort the run with an {@link ExecutionAbortedException} once one is
+ * exceeded. Thread interruption is always honored, even with {@link #NONE}.
+ *
+ * Immutable. A deadline is an absolute point in time, fixed when {@link #withTimeout} is called, so
+ * one instance can bound several runs that must all finish by the same moment.
+ *
+ * @see AppluExecutable.ExecutionContext#setExecutionLimits
+ */
+public final class ExecutionLimits {
+    /**
+     * No deadline and no iteration budget.
+     */
+    public static final ExecutionLimits NONE = new ExecutionLimits(false, 0, Long.MAX_VALUE);
+
+    private final boolean hasDeadline;
+    private final long deadline;  // in System.nanoTime() terms
+    private final long iterationBudget;
+
+    private ExecutionLimits(boolean hasDeadline, long deadline, long iterationBudget) {
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.iterationBudget = iterationBudget;
+    }
+
+    /**
+     * Returns limits with a deadline the given time from now, and this instance’s iteration budget.
+     */
+    public ExecutionLimits withTimeout(Duration timeout) {
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            return new ExecutionLimits(false, 0, iterationBudget);  // too far away to ever be reached
+        }
+        return new ExecutionLimits(true, System.nanoTime() + nanos, iterationBudget);
+    }
+
+    /**
+     * Returns limits that allow at most the given number of loop iterations per run, counted across
+     * all of the program’s loops, and this instance’s deadline.
+     */
+    public ExecutionLimits withIterationBudget(long iterations) {
+        if (iterations < 0)
+            throw new IllegalArgumentException("Iteration budget must not be negative, but was " + iterations);
+        return new ExecutionLimits(hasDeadline, deadline, iterations);
+    }
+
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * True if this has a deadline, and it has passed.
+     */
+    public boolean isPastDeadline() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * The most loop iterations a run may perform, or {@link Long#MAX_VALUE} for no limit.
+     */
+    public long getIterationBudget() {
+        return iterationBudget;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionLimits{"
+            + (hasDeadline ? "remaining=" + Duration.ofNanos(deadline - System.nanoTime()) : "no deadline")
+            + ", iterationBudget=" + (iterationBudget == Long.MAX_VALUE ? "unlimited" : iterationBudget)
+            + '}';
+    }
+}
@@ -0,0 +1,24 @@
+package applu.compiler;
+
+/**
+ * Defines the classes that {@link BytecodeGenerator} produces for a single compiled program.
+ *
+ * Each compilation gets its own loader, so generated class names never collide with earlier
+ * compilations, and the generated classes can see the program’s context interface through the
+ * parent loader.
+ *
+ * Nothing but the generated classes themselves refers to a loader, so once a program’s executable
+ * and its contexts are unreachable, the loader and both classes become garbage together and the JVM
+ * can unload them. This keeps metaspace bounded in processes that compile programs indefinitely. (Do
+ * not cache loaders or generated classes anywhere that outlives the executable; that would pin them.
+ * {@code CompilerSoakTest} checks this.)
+ */
+class GeneratedClassLoader extends ClassLoader {
+    GeneratedClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    Class<?> define(String name, byte[] bytecode) {
+        return defineClass(name, bytecode, 0, bytecode.length);
+    }
+}
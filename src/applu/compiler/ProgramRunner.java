@@ -0,0 +1,153 @@
+package applu.compiler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import applu.ast.StatementNode;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.VariableSlots;
+
+/**
+ * Runs an Applu program in whichever tier pays off: the interpreter while the program is cold, and
+ * compiled bytecode once it is hot.
+ *
+ * Compiling costs far more than interpreting one run, so a program that runs only a few times should
+ * never be compiled. The runner counts invocations; when the count reaches the compile threshold, it
+ * compiles the program on a background executor and keeps interpreting until compilation finishes.
+ * After that, every run uses the compiled {@link AppluExecutable}. If compilation fails, the runner
+ * stays in the interpreter for good.
+ *
+ * Callers always pass variables in an {@link EvaluationContext}, whichever tier runs; compiled runs
+ * go through a {@link CompiledStatement}, which copies values to and from the generated code.
+ * Contexts from {@link #createContext()} share the runner’s slot table, so that copy never has to
+ * look up names. They may still set variables the program never mentions; the shared
+ * {@link VariableSlots} table is safe to grow from several threads.
+ *
+ * Traced and budgeted contexts always run in the interpreter, because compiled code can neither
+ * report individual nodes to a tracer nor charge steps and iterations to a budget.
+ *
+ * Thread-safe, provided each thread runs with its own context.
+ */
+public final class ProgramRunner {
+    /**
+     * Invocations after which a program is compiled, unless the caller chooses otherwise.
+     */
+    public static final int DEFAULT_COMPILE_THRESHOLD = 1000;
+
+    /**
+     * Which engine runs the program.
+     */
+    public enum Tier {
+        /** Below the compile threshold, or compilation failed. */
+        INTERPRETED,
+        /** Compilation has started in the background; runs are still interpreted meanwhile. */
+        COMPILING,
+        /** Runs use compiled bytecode. */
+        COMPILED
+    }
+
+    private final StatementNode program;
+    private final VariableSlots slots;
+    private final long compileThreshold;
+    private final Executor compileExecutor;
+
+    private final AtomicLong invocationCount = new AtomicLong();
+    private final AtomicReference<Tier> tier = new AtomicReference<>(Tier.INTERPRETED);
+    private volatile CompiledStatement compiled;
+    private volatile Throwable compilationFailure;
+
+    /**
+     * Creates a runner that compiles after {@link #DEFAULT_COMPILE_THRESHOLD} invocations, on the
+     * common fork-join pool.
+     */
+    public ProgramRunner(StatementNode program) {
+        this(program, DEFAULT_COMPILE_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param compileThreshold The invocation that triggers compilation. 0 compiles before the first
+     *                         run; {@link Long#MAX_VALUE} effectively never compiles.
+     * @param compileExecutor  Runs the compilation. Pass `Runnable::run` to compile synchronously on
+     *                         the thread that crosses the threshold.
+     */
+    public ProgramRunner(StatementNode program, long compileThreshold, Executor compileExecutor) {
+        if (compileThreshold < 0)
+            throw new IllegalArgumentException("compileThreshold must not be negative, but was " + compileThreshold);
+        this.program = program;
+        this.compileThreshold = compileThreshold;
+        this.compileExecutor = compileExecutor;
+        this.slots = new VariableSlots();
+        slots.resolve(program);
+    }
+
+    /**
+     * Creates an untraced context laid out for this runner’s program.
+     */
+    public EvaluationContext createContext() {
+        return new EvaluationContext(slots, null);
+    }
+
+    /**
+     * Runs the program once against the given context, in the current tier.
+     *
+     * @throws applu.interpreter.LoopExited if the program executes an `exit loop` outside of any loop
+     */
+    public void run(EvaluationContext context) {
+        if (invocationCount.getAndIncrement() >= compileThreshold
+            && tier.get() == Tier.INTERPRETED
+            && compilationFailure == null)
+            startCompilation();
+
+        var compiledProgram = compiled;
+        if (compiledProgram != null && !context.isTracing() && !context.isBudgeted())
+            compiledProgram.run(context);
+        else
+            program.run(context);
+    }
+
+    private void startCompilation() {
+        if (!tier.compareAndSet(Tier.INTERPRETED, Tier.COMPILING))
+            return;  // another thread got there first
+        compileExecutor.execute(() -> {
+            try {
+                compiled = CompiledStatement.compile(program);
+                tier.set(Tier.COMPILED);
+            } catch (RuntimeException | LinkageError e) {
+                compilationFailure = e;
+                tier.set(Tier.INTERPRETED);
+            }
+        });
+    }
+
+    public Tier getTier() {
+        return tier.get();
+    }
+
+    /**
+     * How many times {@link #run} has been called, in any tier.
+     */
+    public long getInvocationCount() {
+        return invocationCount.get();
+    }
+
+    public long getCompileThreshold() {
+        return compileThreshold;
+    }
+
+    /**
+     * Why background compilation failed, or null if it has not failed.
+     */
+    public Throwable getCompilationFailure() {
+        return compilationFailure;
+    }
+
+    @Override
+    public String toString() {
+        return "ProgramRunner{tier=" + tier.get()
+            + ", invocations=" + invocationCount.get()
+            + ", threshold=" + compileThreshold
+            + '}';
+    }
+}
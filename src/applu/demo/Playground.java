@@ -132,12 +132,11 @@ public class Playground {
 
             reevaluate(ast);
         } catch (ParseException e) {
-            var error = e.getFirstError();
             var errorHighlight = new DefaultHighlighter.DefaultHighlightPainter(new Color(0xFF8866));
             try {
                 codeEditor.getHighlighter().addHighlight(
-                    Math.max(0, error.getStartIndex() - 1),
-                    error.getEndIndex(),
+                    Math.max(0, e.getStartIndex()),
+                    e.getEndIndex(),
                     errorHighlight);
             } catch (Exception ble) {
                 // sometimes highlighting just doesn't work
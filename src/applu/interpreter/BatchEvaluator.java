@@ -0,0 +1,176 @@
+package applu.interpreter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import applu.ast.StatementNode;
+
+/**
+ * Runs one Applu program over many rows of input, in parallel.
+ *
+ * Input and output are columnar: one `double[]` per variable, with one element per row. Each row
+ * runs as if in a fresh context: the input variables hold that row’s values, every other variable
+ * starts at zero, and afterward each output column receives its variable’s final value.
+ *
+ * The program is converted to closures once, with every variable slot resolved up front, so no row
+ * ever has to assign one. Rows are then split recursively across a fork-join pool. Each leaf task
+ * owns one context, which it resets and reuses for every row in its range, so the steady state
+ * allocates nothing per row.
+ *
+ * Thread-safe: one evaluator can serve concurrent batches.
+ */
+public final class BatchEvaluator {
+    /**
+     * Below this many rows, a task runs its rows itself rather than splitting further, so that task
+     * overhead stays small relative to the work.
+     */
+    private static final int MIN_ROWS_PER_TASK = 256;
+
+    /**
+     * How many leaf tasks to aim for per worker thread, so that workers that finish early can steal
+     * remaining work.
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final ClosureProgram program;
+    private final VariableSlots slots;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an evaluator that runs on the common fork-join pool.
+     */
+    public BatchEvaluator(StatementNode program) {
+        this(program, ForkJoinPool.commonPool());
+    }
+
+    public BatchEvaluator(StatementNode program, ForkJoinPool pool) {
+        this.slots = new VariableSlots();
+        slots.resolve(program);
+        this.program = ClosureCompiler.compile(program, slots);
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the program once per row.
+     *
+     * @param inputs  Input columns, keyed by variable name. There must be at least one, and all must
+     *                have the same length, which is the number of rows. Variables the program does not
+     *                mention are ignored.
+     * @param outputs The variables to report.
+     * @return One column per requested output, in the order requested. An output the program never
+     *         mentions reports its input column if it has one, and zeros otherwise.
+     * @throws IllegalArgumentException if there are no input columns, or they have different lengths
+     * @throws LoopExited               if the program executes an `exit loop` outside of any loop
+     */
+    public Map<String, double[]> evaluate(Map<String, double[]> inputs, List<String> outputs) {
+        int rowCount = rowCount(inputs);
+
+        int[] inputSlots = new int[inputs.size()];
+        double[][] inputColumns = new double[inputs.size()][];
+        int inputCount = 0;
+        for (var input : inputs.entrySet()) {
+            int slot = slots.find(input.getKey());
+            if (slot >= 0) {
+                inputSlots[inputCount] = slot;
+                inputColumns[inputCount] = input.getValue();
+                inputCount++;
+            }
+        }
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        int[] outputSlots = new int[outputs.size()];
+        double[][] outputColumns = new double[outputs.size()][];
+        int outputCount = 0;
+        for (var name : outputs) {
+            var column = new double[rowCount];
+            results.put(name, column);
+            int slot = slots.find(name);
+            if (slot >= 0) {
+                outputSlots[outputCount] = slot;
+                outputColumns[outputCount] = column;
+                outputCount++;
+            } else if (inputs.containsKey(name)) {
+                System.arraycopy(inputs.get(name), 0, column, 0, rowCount);
+            }
+        }
+
+        var batch = new Batch(
+            inputCount, inputSlots, inputColumns,
+            outputCount, outputSlots, outputColumns,
+            Math.max(MIN_ROWS_PER_TASK, rowCount / (pool.getParallelism() * TASKS_PER_THREAD)));
+        pool.invoke(new RowRange(batch, 0, rowCount));
+        return results;
+    }
+
+    /**
+     * The number of rows in a batch: the common length of its input columns.
+     *
+     * @throws IllegalArgumentException if there are no input columns, so no row count, or if the
+     *                                  columns have different lengths
+     */
+    public static int rowCount(Map<String, double[]> inputs) {
+        if (inputs.isEmpty())
+            throw new IllegalArgumentException("A batch needs at least one input column to set its row count");
+        int rowCount = -1;
+        for (var input : inputs.entrySet()) {
+            int length = input.getValue().length;
+            if (rowCount < 0)
+                rowCount = length;
+            else if (length != rowCount)
+                throw new IllegalArgumentException(
+                    "Input column " + input.getKey() + " has " + length + " rows, but others have " + rowCount);
+        }
+        return rowCount;
+    }
+
+    /**
+     * What every task of one evaluate() call shares. Slot arrays are parallel to column arrays.
+     */
+    private record Batch(
+        int inputCount,
+        int[] inputSlots,
+        double[][] inputColumns,
+        int outputCount,
+        int[] outputSlots,
+        double[][] outputColumns,
+        int rowsPerTask) {
+    }
+
+    private final class RowRange extends RecursiveAction {
+        private final Batch batch;
+        private final int start, end;
+
+        RowRange(Batch batch, int start, int end) {
+            this.batch = batch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > batch.rowsPerTask()) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RowRange(batch, start, middle), new RowRange(batch, middle, end));
+            } else {
+                runRows();
+            }
+        }
+
+        private void runRows() {
+            var context = program.createContext();
+            for (int row = start; row < end; row++) {
+                context.reset();
+                for (int n = 0; n < batch.inputCount(); n++) {
+                    context.set(batch.inputSlots()[n], batch.inputColumns()[n][row]);
+                }
+                program.run(context);
+                for (int n = 0; n < batch.outputCount(); n++) {
+                    batch.outputColumns()[n][row] = context.get(batch.outputSlots()[n]);
+                }
+            }
+        }
+    }
+}
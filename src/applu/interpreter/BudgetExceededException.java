@@ -0,0 +1,28 @@
+package applu.interpreter;
+
+/**
+ * Stops an interpreted Applu program that has used up its {@linkplain EvaluationContext#setBudget
+ * budget}. The context’s variables hold whatever values they had when the program stopped.
+ */
+public class BudgetExceededException extends RuntimeException {
+    /**
+     * Which of a context’s two budgets ran out.
+     */
+    public enum Kind {
+        /** Node executions. */
+        STEPS,
+        /** Loop iterations. */
+        ITERATIONS
+    }
+
+    private final Kind kind;
+
+    public BudgetExceededException(Kind kind) {
+        super((kind == Kind.STEPS ? "Step" : "Iteration") + " budget exceeded");
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,243 @@
+package applu.interpreter;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * A faster interpreter tier: converts an Applu AST, once, into a tree of closures that are
+ * pre-bound to their children, specialized per operator, and read and write variables by
+ * pre-resolved slot.
+ *
+ * Running the closure tree does the same work as the tree-walking interpreter in
+ * {@link StatementNode#run}, minus the per-node dispatch on `operator`, the per-access slot
+ * resolution, and the tracing checks. Unlike {@link applu.compiler.AppluCompiler}, conversion is
+ * just a walk over the AST, so there is no compile latency to pay back.
+ *
+ * The closures never report to an {@link EvaluationContext.Tracer}; use the AST interpreter when you
+ * need tracing.
+ */
+public final class ClosureCompiler {
+    /**
+     * A compiled expression.
+     */
+    @FunctionalInterface
+    public interface Expression {
+        double evaluate(EvaluationContext context);
+    }
+
+    /**
+     * A compiled statement. Reports how it finished using the same protocol as
+     * {@link StatementNode#doRun}.
+     */
+    @FunctionalInterface
+    public interface Statement {
+        Completion run(EvaluationContext context);
+    }
+
+    /**
+     * Converts a program to closures whose variables use slots from the given table. The resulting
+     * program runs against any EvaluationContext that uses the same table.
+     */
+    public static ClosureProgram compile(StatementNode program, VariableSlots slots) {
+        return new ClosureProgram(new ClosureCompiler(slots).compile(program), slots);
+    }
+
+    /**
+     * Converts an expression to a closure whose variables use slots from the given table. The result
+     * must only be evaluated against contexts that use the same table.
+     */
+    public static Expression compile(ExpressionNode expression, VariableSlots slots) {
+        return new ClosureCompiler(slots).compile(expression);
+    }
+
+    private final VariableSlots slots;
+
+    private ClosureCompiler(VariableSlots slots) {
+        this.slots = slots;
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    private Statement compile(StatementNode node) {
+        if (node instanceof AssignmentNode assignment)
+            return compileAssignment(assignment);
+        if (node instanceof BlockNode block)
+            return compileBlock(block);
+        if (node instanceof ConditionalNode conditional)
+            return compileConditional(conditional);
+        if (node instanceof LoopNode loop) {
+            Statement body = compile(loop.getBody());
+            return context -> {
+                while (body.run(context) == Completion.NORMAL) {
+                }
+                return Completion.NORMAL;
+            };
+        }
+        if (node instanceof LoopExitNode)
+            return context -> Completion.LOOP_EXIT;
+        throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+    }
+
+    private Statement compileAssignment(AssignmentNode assignment) {
+        int slot = assignment.getVariable().slotIn(slots);
+        var expression = assignment.getExpression();
+        if (expression instanceof ConstantNode constant) {
+            double value = constant.getValue();
+            return context -> {
+                context.set(slot, value);
+                return Completion.NORMAL;
+            };
+        }
+        Expression value = compile(expression);
+        return context -> {
+            context.set(slot, value.evaluate(context));
+            return Completion.NORMAL;
+        };
+    }
+
+    private Statement compileBlock(BlockNode block) {
+        var statements = block.getStatements();
+        if (statements.isEmpty())
+            return context -> Completion.NORMAL;
+        if (statements.size() == 1)
+            return compile(statements.get(0));
+
+        Statement[] compiled = new Statement[statements.size()];
+        for (int n = 0; n < compiled.length; n++) {
+            compiled[n] = compile(statements.get(n));
+        }
+
+        if (!canExitLoop(block)) {
+            // No statement can report LOOP_EXIT, so skip checking their results
+            return context -> {
+                for (Statement statement : compiled) {
+                    statement.run(context);
+                }
+                return Completion.NORMAL;
+            };
+        }
+        return context -> {
+            for (Statement statement : compiled) {
+                if (statement.run(context) == Completion.LOOP_EXIT)
+                    return Completion.LOOP_EXIT;
+            }
+            return Completion.NORMAL;
+        };
+    }
+
+    private Statement compileConditional(ConditionalNode conditional) {
+        Expression lhs = compile(conditional.getLhs());
+        Expression rhs = compile(conditional.getRhs());
+        Statement ifTrue = compile(conditional.getIfTrue());
+        Statement ifFalse = compile(conditional.getIfFalse());
+
+        switch (conditional.getOperator()) {
+            case LESS_THAN: {
+                return context -> (lhs.evaluate(context) < rhs.evaluate(context))
+                    ? ifTrue.run(context)
+                    : ifFalse.run(context);
+            }
+            case EQUALS: {
+                return context -> (lhs.evaluate(context) == rhs.evaluate(context))
+                    ? ifTrue.run(context)
+                    : ifFalse.run(context);
+            }
+            case GREATER_THAN: {
+                return context -> (lhs.evaluate(context) > rhs.evaluate(context))
+                    ? ifTrue.run(context)
+                    : ifFalse.run(context);
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + conditional.getOperator());
+            }
+        }
+    }
+
+    /**
+     * True if running the given statement can produce {@link Completion#LOOP_EXIT}, i.e. it contains
+     * an `exit loop` that is not nested inside a loop within the statement.
+     */
+    private static boolean canExitLoop(StatementNode node) {
+        if (node instanceof LoopExitNode)
+            return true;
+        if (node instanceof LoopNode || node instanceof AssignmentNode)
+            return false;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            if (node.child(n) instanceof StatementNode statement && canExitLoop(statement))
+                return true;
+        }
+        return false;
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    private Expression compile(ExpressionNode node) {
+        if (node instanceof ConstantNode constant) {
+            double value = constant.getValue();
+            return context -> value;
+        }
+        if (node instanceof VariableNode variable) {
+            int slot = variable.slotIn(slots);
+            return context -> context.get(slot);
+        }
+        if (node instanceof BinaryExpressionNode binary)
+            return compileBinary(binary);
+        throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+    }
+
+    private Expression compileBinary(BinaryExpressionNode binary) {
+        Expression lhs = compile(binary.getLhs());
+
+        // A constant right operand is common enough (“x plus 1”, “x times 2”) to deserve its own closures
+        if (binary.getRhs() instanceof ConstantNode constant) {
+            double rhs = constant.getValue();
+            switch (binary.getOperator()) {
+                case ADDITION: {
+                    return context -> lhs.evaluate(context) + rhs;
+                }
+                case SUBTRACTION: {
+                    return context -> lhs.evaluate(context) - rhs;
+                }
+                case MULTIPLICATION: {
+                    return context -> lhs.evaluate(context) * rhs;
+                }
+                case DIVISION: {
+                    return context -> lhs.evaluate(context) / rhs;
+                }
+                case EXPONENTIATION: {
+                    return context -> Math.pow(lhs.evaluate(context), rhs);
+                }
+            }
+        }
+
+        Expression rhs = compile(binary.getRhs());
+        switch (binary.getOperator()) {
+            case ADDITION: {
+                return context -> lhs.evaluate(context) + rhs.evaluate(context);
+            }
+            case SUBTRACTION: {
+                return context -> lhs.evaluate(context) - rhs.evaluate(context);
+            }
+            case MULTIPLICATION: {
+                return context -> lhs.evaluate(context) * rhs.evaluate(context);
+            }
+            case DIVISION: {
+                return context -> lhs.evaluate(context) / rhs.evaluate(context);
+            }
+            case EXPONENTIATION: {
+                return context -> Math.pow(lhs.evaluate(context), rhs.evaluate(context));
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown operator: " + binary.getOperator());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package applu.interpreter;
+
+/**
+ * An Applu program converted to closures by {@link ClosureCompiler}. To run it, create a context
+ * with {@link #createContext()} (or any context that uses the same {@link VariableSlots}), then call
+ * {@link #run(EvaluationContext)}.
+ */
+public final class ClosureProgram {
+    private final ClosureCompiler.Statement root;
+    private final VariableSlots slots;
+
+    ClosureProgram(ClosureCompiler.Statement root, VariableSlots slots) {
+        this.root = root;
+        this.slots = slots;
+    }
+
+    /**
+     * The slot table this program’s variables were resolved against.
+     */
+    public VariableSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * Creates an untraced context whose frame matches this program’s slots.
+     */
+    public EvaluationContext createContext() {
+        return new EvaluationContext(slots, null);
+    }
+
+    /**
+     * Runs the program against the given context.
+     *
+     * @throws IllegalArgumentException if the context uses a different slot table
+     * @throws LoopExited               if the program executes an `exit loop` outside of any loop
+     */
+    public void run(EvaluationContext context) {
+        if (context.getSlots() != slots)
+            throw new IllegalArgumentException("Context does not use the slots this program was compiled against");
+        if (root.run(context) == Completion.LOOP_EXIT)
+            throw new LoopExited();
+    }
+}
@@ -0,0 +1,19 @@
+package applu.interpreter;
+
+/**
+ * How an interpreted statement finished. {@link applu.ast.StatementNode#doRun} returns this so that
+ * `exit loop` can travel up to the innermost enclosing {@link applu.ast.LoopNode} as an ordinary
+ * return value, without allocating or throwing an exception.
+ */
+public enum Completion {
+    /**
+     * The statement ran to completion; execution continues with the next statement.
+     */
+    NORMAL,
+
+    /**
+     * The statement executed an `exit loop`; enclosing statements must stop and pass this along until
+     * it reaches the innermost loop, which consumes it.
+     */
+    LOOP_EXIT
+}
@@ -1,60 +1,335 @@
 package applu.interpreter;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 import applu.ast.ASTNode;
+import applu.ast.VariableNode;
 
 /**
  * Holds the values of an Applu program’s variables before, during, and after interpreted execution.
  * {@link applu.ast.VariableNode}s read and write from this context.
  *
+ * Variable values live in a primitive `double[]` frame, indexed by the slots that a
+ * {@link VariableSlots} table assigns to each variable name. The name-based methods
+ * ({@link #get(String)}, {@link #set(String, double)}, {@link #allVariables()}) are views on top of
+ * that frame; the interpreter itself uses the slot-based methods, which neither hash names nor box
+ * values.
+ *
  * Also allows an optional Tracer, which receives notifications about the interpreter’s progress.
  * Tracing allows a debug UI to log program execution, and allows a UI to cancel execution early by
  * throwing an exception.
  *
+ * The choice of tracing is made once, when the context is built. A context without a tracer runs in
+ * untraced mode: {@link applu.ast.ExpressionNode#evaluate} and {@link applu.ast.StatementNode#run} check
+ * {@link #isTracing()} and go straight to the interpreter, with no tracer call, no boxing of
+ * results, and no try/finally.
+ *
+ * A context can also carry a budget that bounds how much work a program may do: a number of steps
+ * (node executions) and a number of loop iterations. The interpreter charges steps a straight-line
+ * run of statements at a time, when it takes a branch or starts a loop iteration, so accounting costs
+ * one subtraction per branch rather than one per node. When a budget runs out, the context’s
+ * {@link BudgetHandler} decides whether the program stops or continues.
+ *
  * @see applu.compiler.AppluExecutable.ExecutionContext for the compiler counterpart to this class
  * 
  * @author Paul Cantrell
  */
 public class EvaluationContext {
-    private final Map<String, Double> variables = new LinkedHashMap<>();
+    private final VariableSlots slots;
     private final Tracer tracer;
 
-    public EvaluationContext(Tracer tracer) {
+    private double[] frame;
+    private boolean[] assigned;  // distinguishes variables that were set from ones that merely have a slot
+
+    private long stepsRemaining = Long.MAX_VALUE, iterationsRemaining = Long.MAX_VALUE;
+    private boolean budgeted;
+    private BudgetHandler budgetHandler = BudgetHandler.ABORT;
+
+    /**
+     * Creates a context whose frame is laid out according to the given slots. Use this with a
+     * {@link VariableSlots} table that has already {@linkplain VariableSlots#resolve resolved} a
+     * program to size the frame once up front.
+     *
+     * @param tracer Receives interpreter progress, or null to run in untraced mode.
+     */
+    public EvaluationContext(VariableSlots slots, Tracer tracer) {
+        this.slots = slots;
         this.tracer = tracer;
+        this.frame = new double[Math.max(slots.size(), 8)];
+        this.assigned = new boolean[frame.length];
+    }
+
+    public EvaluationContext(Tracer tracer) {
+        this(new VariableSlots(), tracer);
     }
 
+    /**
+     * Creates an untraced context.
+     */
     public EvaluationContext() {
-        this((node, ctx, phase, result) -> {});
+        this(new VariableSlots(), null);
+    }
+
+    /**
+     * True if this context has a tracer that must see every node the interpreter runs.
+     */
+    public boolean isTracing() {
+        return tracer != null;
+    }
+
+    /**
+     * The table that maps variable names to indices in this context’s frame.
+     */
+    public VariableSlots getSlots() {
+        return slots;
     }
 
     /**
      * Returns the current value of the variable with the given name.
      */
     public double get(String name) {
-        Double result = variables.get(name);
-        return (result == null) ? 0 : result;
+        int slot = slots.find(name);
+        return (slot < 0) ? 0 : get(slot);
     }
 
     /**
      * Changes the current value of the variable with the given name.
      */
     public void set(String name, double value) {
-        variables.put(name, value);
+        set(slots.slotFor(name), value);
+    }
+
+    /**
+     * Returns the current value of the given variable, resolving its slot if necessary.
+     */
+    public double get(VariableNode variable) {
+        return get(variable.slotIn(slots));
+    }
+
+    /**
+     * Changes the current value of the given variable, resolving its slot if necessary.
+     */
+    public void set(VariableNode variable, double value) {
+        set(variable.slotIn(slots), value);
+    }
+
+    /**
+     * Returns the current value of the variable in the given slot. Variables that have never been
+     * set are zero.
+     */
+    public double get(int slot) {
+        return (slot < frame.length) ? frame[slot] : 0;
+    }
+
+    /**
+     * Changes the current value of the variable in the given slot.
+     */
+    public void set(int slot, double value) {
+        if (slot >= frame.length)
+            growFrame(slot);
+        frame[slot] = value;
+        assigned[slot] = true;
+    }
+
+    /**
+     * Resets every variable to zero and unassigned, as in a fresh context, but keeps the frame so that
+     * one context can be reused across many runs without allocating.
+     */
+    public void reset() {
+        Arrays.fill(frame, 0);
+        Arrays.fill(assigned, false);
+    }
+
+    // –––––––––––– Budgets ––––––––––––
+
+    /**
+     * Limits the work that programs running against this context may do from now on. Replaces any
+     * budget that remains. Use {@link Long#MAX_VALUE} for no limit.
+     *
+     * Budgets apply to the tree-walking interpreter ({@link applu.ast.StatementNode#run}). A budgeted
+     * context never switches a hot loop to compiled code, because compiled code does not count steps.
+     *
+     * @param steps      Node executions. Each statement counts itself plus every node of the
+     *                   expressions it evaluates. Steps are charged when a straight-line run of
+     *                   statements begins, so a program stops at the start of the run that would
+     *                   exceed its budget, and an `exit loop` can leave part of a run charged but
+     *                   not executed.
+     * @param iterations Loop iterations, counted across all loops.
+     */
+    public void setBudget(long steps, long iterations) {
+        if (steps < 0 || iterations < 0)
+            throw new IllegalArgumentException("Budgets must not be negative: steps=" + steps + ", iterations=" + iterations);
+        this.stepsRemaining = steps;
+        this.iterationsRemaining = iterations;
+        this.budgeted = true;
+    }
+
+    /**
+     * Chooses what happens when a budget runs out. The default, {@link BudgetHandler#ABORT}, throws
+     * {@link BudgetExceededException}.
+     */
+    public void setBudgetHandler(BudgetHandler budgetHandler) {
+        this.budgetHandler = Objects.requireNonNull(budgetHandler, "budgetHandler");
+    }
+
+    /**
+     * True if {@link #setBudget} has been called on this context.
+     */
+    public boolean isBudgeted() {
+        return budgeted;
+    }
+
+    /**
+     * Steps left in the budget; negative once it is exceeded.
+     */
+    public long getStepsRemaining() {
+        return stepsRemaining;
+    }
+
+    /**
+     * Loop iterations left in the budget; negative once it is exceeded.
+     */
+    public long getIterationsRemaining() {
+        return iterationsRemaining;
+    }
+
+    /**
+     * Charges the given number of steps against this context’s budget. Called by the interpreter.
+     *
+     * @throws BudgetExceededException if the budget runs out and the handler does not replenish it
+     */
+    public void chargeSteps(int steps) {
+        if ((stepsRemaining -= steps) < 0)
+            budgetExhausted(BudgetExceededException.Kind.STEPS);
+    }
+
+    /**
+     * Charges one loop iteration against this context’s budget. Called by the interpreter.
+     *
+     * @throws BudgetExceededException if the budget runs out and the handler does not replenish it
+     */
+    public void chargeIteration() {
+        if (--iterationsRemaining < 0)
+            budgetExhausted(BudgetExceededException.Kind.ITERATIONS);
     }
 
+    // Kept out of the charge methods so that they stay small enough to inline
+    private void budgetExhausted(BudgetExceededException.Kind kind) {
+        budgetHandler.budgetExhausted(this, kind);
+        if (stepsRemaining < 0 || iterationsRemaining < 0)
+            throw new BudgetExceededException(kind);  // the handler returned without replenishing
+    }
+
+    private void growFrame(int slot) {
+        int newLength = Math.max(slot + 1, Math.max(slots.size(), frame.length * 2));
+        frame = Arrays.copyOf(frame, newLength);
+        assigned = Arrays.copyOf(assigned, newLength);
+    }
+
+    /**
+     * Returns a read-only view of all the variables that have been set in this context, in slot
+     * order. The view reflects later changes to the context.
+     */
     public Map<String, Double> allVariables() {
-        return Collections.unmodifiableMap(variables);
+        return new FrameView();
     }
 
     public void trace(ASTNode astNode, Tracer.Phase phase) {
-        tracer.traceNode(astNode, this, phase, null);
+        if (tracer != null)
+            tracer.traceNode(astNode, this, phase, null);
     }
 
     public void trace(ASTNode astNode, Tracer.Phase phase, Object result) {
-        tracer.traceNode(astNode, this, phase, result);
+        if (tracer != null)
+            tracer.traceNode(astNode, this, phase, result);
+    }
+
+    private class FrameView extends AbstractMap<String, Double> {
+        @Override
+        public Double get(Object key) {
+            if (!(key instanceof String))
+                return null;
+            int slot = slots.find((String) key);
+            return isAssigned(slot) ? frame[slot] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return (key instanceof String) && isAssigned(slots.find((String) key));
+        }
+
+        @Override
+        public Set<Entry<String, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Double>> iterator() {
+                    return new Iterator<>() {
+                        private int nextSlot = advance(0);
+
+                        private int advance(int slot) {
+                            while (slot < assigned.length && !assigned[slot])
+                                slot++;
+                            return slot;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return nextSlot < assigned.length;
+                        }
+
+                        @Override
+                        public Entry<String, Double> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            int slot = nextSlot;
+                            nextSlot = advance(slot + 1);
+                            return new SimpleImmutableEntry<>(slots.nameOf(slot), frame[slot]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    int count = 0;
+                    for (boolean isSet : assigned) {
+                        if (isSet)
+                            count++;
+                    }
+                    return count;
+                }
+            };
+        }
+
+        private boolean isAssigned(int slot) {
+            return slot >= 0 && slot < assigned.length && assigned[slot];
+        }
+    }
+
+    /**
+     * Decides what happens when a context’s budget runs out.
+     *
+     * A handler can stop the program by throwing, or let it continue by giving the context a new
+     * budget with {@link EvaluationContext#setBudget} and returning. The latter allows cooperative
+     * time-slicing: a handler that calls `Thread.yield()` and then grants another slice lets other
+     * work onto the CPU at regular points in a long-running program.
+     */
+    @FunctionalInterface
+    public interface BudgetHandler {
+        /**
+         * Throws {@link BudgetExceededException}.
+         */
+        BudgetHandler ABORT = (context, kind) -> {
+            throw new BudgetExceededException(kind);
+        };
+
+        void budgetExhausted(EvaluationContext context, BudgetExceededException.Kind kind);
     }
 
     /**
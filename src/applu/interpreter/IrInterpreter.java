@@ -0,0 +1,95 @@
+package applu.interpreter;
+
+import applu.ir.BasicBlock;
+import applu.ir.Constant;
+import applu.ir.ControlFlowGraph;
+import applu.ir.Input;
+import applu.ir.Operation;
+import applu.ir.Terminator;
+import applu.ir.Value;
+
+/**
+ * Runs a {@link ControlFlowGraph} against an {@link EvaluationContext}. Every variable ends with the
+ * same value as running the program it was lowered from with {@link applu.ast.StatementNode#run},
+ * but the set of variables the context counts as assigned, which {@link EvaluationContext#allVariables}
+ * reports, can differ. A graph’s return sets every variable the program assigns on any path, so
+ * after “if a equals 0 then set x to 1 else set y to 2.” both x and y count as assigned; and it never
+ * sets a variable that ends with the value it started with, so after “set i to i.” i does not.
+ *
+ * Values live in an array indexed by {@linkplain Value#getId() value id}; the context is
+ * only read for the graph’s inputs and written when the program returns. Each block run charges
+ * one step per instruction against the context’s budget, if it has one, and each back-edge one
+ * iteration; a program stopped by its budget leaves the context as it found it. The interpreter
+ * never reports to an {@link EvaluationContext.Tracer}.
+ */
+public final class IrInterpreter {
+    private IrInterpreter() {
+    }
+
+    /**
+     * Runs the graph, leaving its results in the context.
+     *
+     * @throws LoopExited if the program runs an `exit loop` outside of any loop, after setting the
+     *                    variables it had assigned by then
+     */
+    public static void run(ControlFlowGraph graph, EvaluationContext context) {
+        var values = new double[graph.getValueIdLimit()];
+        boolean budgeted = context.isBudgeted();
+        BasicBlock previous = null;
+        var block = graph.getEntry();
+        while (true) {
+            if (previous != null)
+                assignPhis(block, previous, values);
+            for (var instruction : block.getInstructions()) {
+                values[instruction.getId()] = evaluate(instruction, values, context);
+            }
+            if (budgeted)
+                context.chargeSteps(block.getInstructions().size() + 1);
+
+            var terminator = block.getTerminator();
+            BasicBlock next;
+            if (terminator instanceof Terminator.Jump jump) {
+                next = jump.target();
+            } else if (terminator instanceof Terminator.Branch branch) {
+                boolean result = branch.test(values[branch.lhs().getId()], values[branch.rhs().getId()]);
+                next = result ? branch.ifTrue() : branch.ifFalse();
+            } else if (terminator instanceof Terminator.Return ret) {
+                ret.variables().forEach((variable, value) -> context.set(variable, values[value.getId()]));
+                if (ret.loopExited())
+                    throw new LoopExited();
+                return;
+            } else {
+                throw new IllegalArgumentException("Unknown terminator type: " + terminator);
+            }
+
+            if (budgeted && graph.isBackEdge(block, next))
+                context.chargeIteration();
+            previous = block;
+            block = next;
+        }
+    }
+
+    // All of a block’s phis take their values at once, so read every operand before writing any
+    private static void assignPhis(BasicBlock block, BasicBlock predecessor, double[] values) {
+        var phis = block.getPhis();
+        if (phis.isEmpty())
+            return;
+        var incoming = new double[phis.size()];
+        for (int n = 0; n < incoming.length; n++) {
+            incoming[n] = values[phis.get(n).getIncoming(predecessor).getId()];
+        }
+        for (int n = 0; n < incoming.length; n++) {
+            values[phis.get(n).getId()] = incoming[n];
+        }
+    }
+
+    private static double evaluate(Value instruction, double[] values, EvaluationContext context) {
+        if (instruction instanceof Constant constant)
+            return constant.getValue();
+        if (instruction instanceof Input input)
+            return context.get(input.getVariable());
+        if (instruction instanceof Operation operation)
+            return operation.apply(values[operation.getLhs().getId()], values[operation.getRhs().getId()]);
+        throw new IllegalArgumentException("Unknown instruction type: " + instruction.getClass());
+    }
+}
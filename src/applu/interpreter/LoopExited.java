@@ -1,8 +1,9 @@
 package applu.interpreter;
 
 /**
- * Causes the Applu interpreter to exit the current innermost nested loop. Thrown by
- * {@link applu.ast.LoopExitNode}.
+ * Reports that an interpreted statement executed an `exit loop` with no enclosing loop. Thrown by
+ * {@link applu.ast.StatementNode#run}. (Inside a loop, the interpreter exits loops by returning
+ * {@link Completion#LOOP_EXIT} instead, and never throws this.)
  * 
  * @author Paul Cantrell
  */
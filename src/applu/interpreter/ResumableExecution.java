@@ -0,0 +1,160 @@
+package applu.interpreter;
+
+import java.util.Arrays;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+
+/**
+ * One run of an Applu program that can stop after any number of steps and pick up later where it
+ * left off, possibly on a different thread.
+ *
+ * {@link StatementNode#run} keeps its place in the program on the Java stack, so it can only stop by
+ * unwinding. This interpreter keeps its place in an explicit stack of frames instead: one per block
+ * or loop it is inside, recording the next statement to run. Suspending is simply returning from
+ * {@link #resume}, and the frames wait on the heap until the next call. That makes an execution cheap
+ * enough to keep thousands alive at once, each multiplexed onto a few threads by a
+ * {@link RoundRobinScheduler}.
+ *
+ * A step is one unit of interpreter work: moving to the next statement of a block or leaving it, running
+ * one assignment or comparison, or starting one loop iteration. Expressions have no loops, so each
+ * statement’s expressions evaluate within a single step.
+ *
+ * This interpreter neither reports statements to a tracer nor charges the context’s budget, and it
+ * never switches to compiled code; slices of steps take the place of budgets.
+ *
+ * Not thread-safe. A scheduler that hands an execution from one thread to another must make sure each
+ * call to {@link #resume} happens-before the next.
+ */
+public final class ResumableExecution {
+    private final StatementNode program;
+    private final EvaluationContext context;
+
+    // The frame stack: each frame is a block or loop, with the index of its next statement (for a
+    // block) or its iteration count (for a loop). The statement on top of the stack runs next.
+    private ASTNode[] nodes = new ASTNode[8];
+    private long[] positions = new long[8];
+    private int depth;
+
+    private long stepCount;
+
+    public ResumableExecution(StatementNode program, EvaluationContext context) {
+        this.program = program;
+        this.context = context;
+        push(program);
+    }
+
+    public StatementNode getProgram() {
+        return program;
+    }
+
+    public EvaluationContext getContext() {
+        return context;
+    }
+
+    /**
+     * True once the program has run to completion.
+     */
+    public boolean isFinished() {
+        return depth == 0;
+    }
+
+    /**
+     * Total steps run so far, across all calls to {@link #resume}.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * Runs the program for at most the given number of steps, or until it finishes.
+     *
+     * @return True if the program has finished.
+     * @throws LoopExited if the program executes an `exit loop` that is not inside any loop. The
+     *                    execution is then finished.
+     */
+    public boolean resume(long maxSteps) {
+        long remaining = maxSteps;
+        while (depth > 0 && remaining > 0) {
+            step();
+            remaining--;
+        }
+        stepCount += maxSteps - remaining;
+        return depth == 0;
+    }
+
+    private void step() {
+        int top = depth - 1;
+        var node = nodes[top];
+        if (node instanceof BlockNode block) {
+            long next = positions[top];
+            if (next < block.getStatements().size()) {
+                positions[top] = next + 1;
+                push(block.getStatements().get((int) next));
+            } else {
+                depth--;
+            }
+        } else if (node instanceof LoopNode loop) {
+            positions[top]++;  // each time the loop is back on top, its body has completed normally
+            push(loop.getBody());
+        } else if (node instanceof AssignmentNode assignment) {
+            depth--;
+            context.set(assignment.getVariable(), assignment.getExpression().evaluate(context));
+        } else if (node instanceof ConditionalNode conditional) {
+            depth--;
+            push(compare(conditional) ? conditional.getIfTrue() : conditional.getIfFalse());
+        } else if (node instanceof LoopExitNode) {
+            exitLoop();
+        } else {
+            throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+        }
+    }
+
+    private boolean compare(ConditionalNode conditional) {
+        double left = conditional.getLhs().evaluate(context);
+        double right = conditional.getRhs().evaluate(context);
+        switch (conditional.getOperator()) {
+            case LESS_THAN: {
+                return left < right;
+            }
+            case EQUALS: {
+                return left == right;
+            }
+            case GREATER_THAN: {
+                return left > right;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + conditional.getOperator());
+            }
+        }
+    }
+
+    private void exitLoop() {
+        while (depth > 0) {
+            var node = nodes[--depth];
+            if (node instanceof LoopNode)
+                return;
+        }
+        throw new LoopExited();
+    }
+
+    private void push(StatementNode node) {
+        if (depth == nodes.length) {
+            nodes = Arrays.copyOf(nodes, depth * 2);
+            positions = Arrays.copyOf(positions, depth * 2);
+        }
+        nodes[depth] = node;
+        positions[depth] = 0;
+        depth++;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumableExecution{depth=" + depth + ", steps=" + stepCount + '}';
+    }
+}
@@ -0,0 +1,163 @@
+package applu.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import applu.ast.StatementNode;
+
+/**
+ * Interleaves many Applu programs on a few carrier threads, as green threads.
+ *
+ * Each submitted program becomes a {@link ResumableExecution} in a single FIFO run queue. A carrier
+ * takes the execution at the head of the queue, runs it for one slice of steps, and puts it back at
+ * the tail unless it has finished. Every runnable program therefore gets one slice per trip around
+ * the queue, so a program’s wait between slices is bounded by the number of runnable programs times
+ * the slice length divided by the number of carriers. Short programs finish within a few trips, no
+ * matter how many long ones are running.
+ *
+ * Thread-safe. Call {@link #close()} to stop the carriers; programs that have not finished then
+ * complete exceptionally.
+ */
+public final class RoundRobinScheduler implements AutoCloseable {
+    /**
+     * Steps per slice, unless the caller chooses otherwise: long enough that switching between
+     * programs is a small fraction of the work, short enough that a slice takes microseconds.
+     */
+    public static final long DEFAULT_SLICE_STEPS = 1000;
+
+    private static final AtomicLong schedulerCounter = new AtomicLong();
+
+    private final long sliceSteps;
+    private final LinkedBlockingQueue<Task> runQueue = new LinkedBlockingQueue<>();
+    private final List<Thread> carriers = new ArrayList<>();
+    private final AtomicLong sliceCount = new AtomicLong();
+    private volatile boolean closed;
+
+    private record Task(ResumableExecution execution, CompletableFuture<EvaluationContext> result) {
+    }
+
+    public RoundRobinScheduler(int carrierCount) {
+        this(carrierCount, DEFAULT_SLICE_STEPS);
+    }
+
+    /**
+     * Starts the given number of carrier threads. They are daemon threads, so an open scheduler does
+     * not keep the JVM alive.
+     */
+    public RoundRobinScheduler(int carrierCount, long sliceSteps) {
+        if (carrierCount < 1)
+            throw new IllegalArgumentException("carrierCount must be positive, but was " + carrierCount);
+        if (sliceSteps < 1)
+            throw new IllegalArgumentException("sliceSteps must be positive, but was " + sliceSteps);
+        this.sliceSteps = sliceSteps;
+
+        long id = schedulerCounter.incrementAndGet();
+        for (int n = 0; n < carrierCount; n++) {
+            var carrier = new Thread(this::runCarrier, "applu-scheduler-" + id + "-carrier-" + n);
+            carrier.setDaemon(true);
+            carriers.add(carrier);
+        }
+        carriers.forEach(Thread::start);
+    }
+
+    /**
+     * Schedules a program to run against the given context.
+     *
+     * @return Completes with the context when the program finishes, or exceptionally if the program
+     *         throws or the scheduler closes first. Cancelling it removes the program from the
+     *         queue before its next slice.
+     */
+    public CompletableFuture<EvaluationContext> submit(StatementNode program, EvaluationContext context) {
+        var result = new CompletableFuture<EvaluationContext>();
+        if (closed) {
+            result.completeExceptionally(new IllegalStateException("Scheduler is closed"));
+            return result;
+        }
+        runQueue.add(new Task(new ResumableExecution(program, context), result));
+        if (closed)
+            failQueued();  // close() may have drained the queue between the check and the add
+        return result;
+    }
+
+    private void runCarrier() {
+        try {
+            while (!closed) {
+                var task = runQueue.take();
+                if (task.result().isDone())
+                    continue;  // cancelled while waiting
+
+                boolean finished;
+                try {
+                    finished = task.execution().resume(sliceSteps);
+                } catch (Throwable e) {
+                    // Errors too, so that no program is left pending; the carrier moves on
+                    task.result().completeExceptionally(e);
+                    continue;
+                }
+                sliceCount.incrementAndGet();
+
+                if (finished)
+                    task.result().complete(task.execution().getContext());
+                else
+                    runQueue.add(task);
+            }
+        } catch (InterruptedException e) {
+            // closing
+        }
+    }
+
+    /**
+     * Programs waiting for a slice, not counting any that carriers are running right now.
+     */
+    public int getQueuedCount() {
+        return runQueue.size();
+    }
+
+    /**
+     * Slices run so far, across all programs.
+     */
+    public long getSliceCount() {
+        return sliceCount.get();
+    }
+
+    public long getSliceSteps() {
+        return sliceSteps;
+    }
+
+    /**
+     * Stops the carriers after their current slices, and fails every program that has not finished.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        carriers.forEach(Thread::interrupt);
+        for (var carrier : carriers) {
+            try {
+                carrier.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        failQueued();
+    }
+
+    private void failQueued() {
+        Task task;
+        while ((task = runQueue.poll()) != null) {
+            task.result().completeExceptionally(new IllegalStateException("Scheduler closed"));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RoundRobinScheduler{carriers=" + carriers.size()
+            + ", sliceSteps=" + sliceSteps
+            + ", queued=" + runQueue.size()
+            + ", slices=" + sliceCount.get()
+            + '}';
+    }
+}
@@ -0,0 +1,93 @@
+package applu.interpreter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import applu.ast.ASTNode;
+import applu.ast.VariableNode;
+
+/**
+ * Assigns each distinct variable name a fixed integer “slot,” an index into the `double[]` frame
+ * that holds variable values in an {@link EvaluationContext}. Slots are handed out in the order
+ * names are first seen, starting at zero, and never change once assigned.
+ *
+ * {@link #resolve(ASTNode)} is the resolution pass: it walks a program once, giving every
+ * {@link VariableNode} a slot up front so that the interpreter can read and write variables by
+ * index instead of hashing names on every access.
+ *
+ * Thread-safe. Contexts on different threads often share one table, and any of them may assign a
+ * slot to a name the program never mentions, so lookups never lock, and assigning a new slot takes
+ * a lock only for that name’s first appearance.
+ */
+public final class VariableSlots {
+    private final Map<String, Integer> slotsByName = new ConcurrentHashMap<>();
+
+    // Written only while holding the lock. A slot’s name is stored before the slot is published,
+    // either in slotsByName or by the volatile write to size.
+    private volatile String[] names = new String[8];
+    private volatile int size;
+
+    /**
+     * Returns the slot for the given variable name, assigning the next free slot if the name has not
+     * been seen before.
+     */
+    public int slotFor(String name) {
+        Integer slot = slotsByName.get(name);
+        return (slot != null) ? slot : assignSlot(name);
+    }
+
+    private synchronized int assignSlot(String name) {
+        Integer existing = slotsByName.get(name);
+        if (existing != null)
+            return existing;  // another thread assigned it first
+        int slot = size;
+        if (slot == names.length)
+            names = Arrays.copyOf(names, slot * 2);
+        names[slot] = name;
+        slotsByName.put(name, slot);
+        size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Returns the slot for the given variable name, or -1 if it has not been assigned one.
+     */
+    public int find(String name) {
+        Integer slot = slotsByName.get(name);
+        return (slot == null) ? -1 : slot;
+    }
+
+    /**
+     * Returns the name of the variable stored in the given slot.
+     */
+    public String nameOf(int slot) {
+        if (slot >= size)
+            throw new IndexOutOfBoundsException("Slot " + slot + " is not assigned; there are " + size);
+        return names[slot];
+    }
+
+    /**
+     * The number of slots assigned so far. A frame of this length can hold every resolved variable.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Assigns slots to every variable in the given subtree (in tree order), and caches each
+     * VariableNode’s slot on the node so the interpreter does not need to look it up again.
+     */
+    public void resolve(ASTNode node) {
+        if (node instanceof VariableNode)
+            ((VariableNode) node).slotIn(this);
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            resolve(node.child(n));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VariableSlots" + Arrays.toString(Arrays.copyOf(names, size));
+    }
+}
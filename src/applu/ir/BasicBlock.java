@@ -0,0 +1,199 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import applu.ast.BinaryExpressionNode;
+import applu.ast.ConditionalNode;
+
+/**
+ * A straight-line sequence of instructions in a {@link ControlFlowGraph}: first its {@linkplain Phi
+ * phis}, then its other instructions in order, then a {@link Terminator} that says where control goes
+ * next. Control only enters a block at the top.
+ *
+ * The methods that add instructions and set the terminator double as the graph’s builder; see
+ * {@link ControlFlowGraph}.
+ */
+public final class BasicBlock {
+    private final ControlFlowGraph graph;
+    private final int id;
+    private final List<Phi> phis = new ArrayList<>();
+    private final List<Value> instructions = new ArrayList<>();
+    private final List<BasicBlock> predecessors = new ArrayList<>();
+    private Terminator terminator;
+
+    BasicBlock(ControlFlowGraph graph, int id) {
+        this.graph = graph;
+        this.id = id;
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * A number unique to this block within its graph.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The name the {@linkplain IrPrinter printed form} uses for this block, e.g. “block2”.
+     */
+    public String getName() {
+        return "block" + id;
+    }
+
+    public List<Phi> getPhis() {
+        return Collections.unmodifiableList(phis);
+    }
+
+    /**
+     * The instructions between the phis and the terminator, in the order they run.
+     */
+    public List<Value> getInstructions() {
+        return Collections.unmodifiableList(instructions);
+    }
+
+    /**
+     * The blocks whose terminators can continue at this one, in the order the edges were added.
+     */
+    public List<BasicBlock> getPredecessors() {
+        return Collections.unmodifiableList(predecessors);
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return (terminator == null) ? List.of() : terminator.successors();
+    }
+
+    /**
+     * How control leaves this block, or null if the block is still being built.
+     */
+    public Terminator getTerminator() {
+        return terminator;
+    }
+
+    // –––––––––––– Building ––––––––––––
+
+    public Constant constant(double value) {
+        return append(new Constant(graph.nextValueId(), value));
+    }
+
+    /**
+     * Adds a constant before the instruction at the given position, e.g. to replace an instruction
+     * with its value.
+     */
+    public Constant insertConstant(int position, double value) {
+        var constant = new Constant(graph.nextValueId(), value);
+        insert(position, constant);
+        return constant;
+    }
+
+    public Operation operation(BinaryExpressionNode.Operator operator, Value lhs, Value rhs) {
+        return append(new Operation(graph.nextValueId(), operator, lhs, rhs));
+    }
+
+    /**
+     * Adds a phi with no operands yet; give it one per predecessor with {@link Phi#setIncoming}.
+     */
+    public Phi phi() {
+        var phi = new Phi(graph.nextValueId());
+        phi.block = this;
+        phis.add(phi);
+        return phi;
+    }
+
+    public void jump(BasicBlock target) {
+        setTerminator(new Terminator.Jump(target));
+    }
+
+    public void branch(ConditionalNode.Operator operator, Value lhs, Value rhs, BasicBlock ifTrue, BasicBlock ifFalse) {
+        setTerminator(new Terminator.Branch(operator, lhs, rhs, ifTrue, ifFalse));
+    }
+
+    /**
+     * Sets or replaces how control leaves this block, updating the predecessors of the blocks it
+     * leaves for. A block that is no longer a successor also loses the operands its phis had for
+     * this block.
+     *
+     * @throws IllegalArgumentException if the terminator continues at a block of another graph, or
+     *                                  at the same block along two edges
+     */
+    public void setTerminator(Terminator terminator) {
+        var successors = terminator.successors();
+        if (new HashSet<>(successors).size() != successors.size())
+            throw new IllegalArgumentException("Both edges of " + terminator + " lead to the same block; use a jump");
+        for (var successor : successors) {
+            if (successor.graph != graph)
+                throw new IllegalArgumentException(successor + " belongs to another graph");
+        }
+
+        for (var successor : getSuccessors()) {
+            if (!successors.contains(successor)) {
+                successor.predecessors.remove(this);
+                for (var phi : successor.phis) {
+                    phi.removeIncoming(this);
+                }
+            }
+        }
+        for (var successor : successors) {
+            if (!getSuccessors().contains(successor))
+                successor.predecessors.add(this);
+        }
+        this.terminator = terminator;
+        graph.edgesChanged();
+    }
+
+    /**
+     * Removes the given phi or instruction from this block. Its uses must be gone or replaced first;
+     * see {@link ControlFlowGraph#replaceAllUses}.
+     */
+    public void remove(Value value) {
+        if (value.block != this)
+            throw new IllegalArgumentException(value + " is not in " + this);
+        if (value instanceof Phi phi)
+            phis.remove(phi);
+        else
+            instructions.remove(value);
+        value.block = null;
+    }
+
+    <V extends Value> V append(V value) {
+        value.block = this;
+        instructions.add(value);
+        return value;
+    }
+
+    void insert(int position, Value value) {
+        value.block = this;
+        instructions.add(position, value);
+    }
+
+    void replaceTerminatorOperand(Value from, Value to) {
+        if (terminator != null)
+            terminator = terminator.replaceOperand(from, to);
+    }
+
+    void detach() {
+        for (var successor : getSuccessors()) {
+            successor.predecessors.remove(this);
+            for (var phi : successor.phis) {
+                phi.removeIncoming(this);
+            }
+        }
+        for (var phi : phis) {
+            phi.block = null;
+        }
+        for (var instruction : instructions) {
+            instruction.block = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
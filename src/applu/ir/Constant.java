@@ -0,0 +1,28 @@
+package applu.ir;
+
+import java.util.List;
+
+/**
+ * A number known when the program is compiled.
+ */
+public final class Constant extends Value {
+    private final double value;
+
+    Constant(int id, double value) {
+        super(id);
+        this.value = value;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public List<Value> getOperands() {
+        return List.of();
+    }
+
+    @Override
+    void replaceOperand(Value from, Value to) {
+    }
+}
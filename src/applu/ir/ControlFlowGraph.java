@@ -0,0 +1,218 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import applu.ast.StatementNode;
+
+/**
+ * An Applu program as a graph of {@linkplain BasicBlock basic blocks} in SSA form, for analyses and
+ * backends that need to follow values and control flow rather than the shape of the source. Loops
+ * appear as edges back to a loop’s first block, and `exit loop` as an edge to the block after the
+ * loop; there are no other loop constructs.
+ *
+ * {@link #lower(StatementNode)} builds the graph for a program. Graphs can also be built by hand:
+ * <pre>
+ * var graph = new ControlFlowGraph();
+ * var entry = graph.getEntry();
+ * var x = graph.input("x");
+ * var doubled = entry.operation(MULTIPLICATION, x, entry.constant(2));
+ * entry.setTerminator(new Terminator.Return(Map.of("x", doubled), false));
+ * graph.verify();
+ * </pre>
+ *
+ * Graphs are mutable, and not thread-safe while they are being changed. Once finished, a graph can
+ * be run by any number of threads at once.
+ */
+public final class ControlFlowGraph {
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private final BasicBlock entry;
+    private int nextBlockId, nextValueId;
+    private Dominators dominators;
+
+    /**
+     * Creates a graph with an empty entry block.
+     */
+    public ControlFlowGraph() {
+        entry = newBlock();
+    }
+
+    /**
+     * Translates the given program to SSA form.
+     */
+    public static ControlFlowGraph lower(StatementNode program) {
+        var graph = new SsaBuilder().build(program);
+        assert verified(graph);  // with assertions enabled, as in tests, every lowering is checked
+        return graph;
+    }
+
+    private static boolean verified(ControlFlowGraph graph) {
+        graph.verify();
+        return true;
+    }
+
+    /**
+     * The block where the program starts. It has no predecessors.
+     */
+    public BasicBlock getEntry() {
+        return entry;
+    }
+
+    /**
+     * All the blocks in the graph, the entry block first, then in the order they were created.
+     */
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    public BasicBlock newBlock() {
+        var block = new BasicBlock(this, nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Returns the value the given variable has when the program starts, adding it to the entry block
+     * if it is not there yet.
+     */
+    public Input input(String variable) {
+        int position = 0;
+        for (var instruction : entry.getInstructions()) {
+            if (!(instruction instanceof Input input))
+                break;
+            if (input.getVariable().equals(variable))
+                return input;
+            position++;
+        }
+        // Keeps the inputs together at the top of the entry block
+        var input = new Input(nextValueId(), variable);
+        entry.insert(position, input);
+        return input;
+    }
+
+    /**
+     * The inputs the program reads, by variable name.
+     */
+    public SortedMap<String, Input> getInputs() {
+        var inputs = new TreeMap<String, Input>();
+        for (var instruction : entry.getInstructions()) {
+            if (instruction instanceof Input input)
+                inputs.put(input.getVariable(), input);
+        }
+        return inputs;
+    }
+
+    /**
+     * Every variable the program reads or may assign.
+     */
+    public SortedSet<String> getVariables() {
+        var variables = new TreeSet<>(getInputs().keySet());
+        for (var block : blocks) {
+            if (block.getTerminator() instanceof Terminator.Return ret)
+                variables.addAll(ret.variables().keySet());
+        }
+        return variables;
+    }
+
+    /**
+     * One more than the largest {@linkplain Value#getId() id} of any value in the graph.
+     */
+    public int getValueIdLimit() {
+        return nextValueId;
+    }
+
+    int nextValueId() {
+        return nextValueId++;
+    }
+
+    // –––––––––––– Transformations ––––––––––––
+
+    /**
+     * Makes every phi, instruction and terminator that reads one value read another instead.
+     */
+    public void replaceAllUses(Value from, Value to) {
+        for (var block : blocks) {
+            for (var phi : block.getPhis()) {
+                phi.replaceOperand(from, to);
+            }
+            for (var instruction : block.getInstructions()) {
+                instruction.replaceOperand(from, to);
+            }
+            block.replaceTerminatorOperand(from, to);
+        }
+    }
+
+    /**
+     * Removes the blocks that control cannot reach from the entry block.
+     *
+     * @return The number of blocks removed.
+     */
+    public int removeUnreachableBlocks() {
+        var dominators = getDominators();
+        var unreachable = new ArrayList<BasicBlock>();
+        for (var block : blocks) {
+            if (!dominators.isReachable(block))
+                unreachable.add(block);
+        }
+        for (var block : unreachable) {
+            block.detach();
+        }
+        blocks.removeAll(unreachable);
+        edgesChanged();
+        return unreachable.size();
+    }
+
+    // –––––––––––– Analysis ––––––––––––
+
+    /**
+     * The dominator tree of the graph as it is now.
+     */
+    public Dominators getDominators() {
+        var dominators = this.dominators;
+        if (dominators == null)
+            this.dominators = dominators = new Dominators(this);
+        return dominators;
+    }
+
+    void edgesChanged() {
+        dominators = null;
+    }
+
+    /**
+     * Whether the edge from one block to another returns to the top of a loop, i.e. whether the
+     * target dominates the source. Every cycle in a graph lowered from Applu passes through such an
+     * edge, so engines can poll or count iterations there.
+     */
+    public boolean isBackEdge(BasicBlock from, BasicBlock to) {
+        return getDominators().dominates(to, from);
+    }
+
+    public boolean containsBackEdge() {
+        for (var block : blocks) {
+            for (var successor : block.getSuccessors()) {
+                if (isBackEdge(block, successor))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that the graph is well formed.
+     *
+     * @throws VerificationException if it is not
+     */
+    public void verify() {
+        Verifier.verify(this);
+    }
+
+    @Override
+    public String toString() {
+        return IrPrinter.print(this);
+    }
+}
@@ -0,0 +1,129 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dominator tree of a {@link ControlFlowGraph}: block A dominates block B if every path from the
+ * entry block to B passes through A. Computed with the iterative algorithm of Cooper, Harvey and
+ * Kennedy, which takes a couple of passes over graphs as small as Applu programs produce.
+ *
+ * A snapshot: changing the graph’s edges afterwards does not update it.
+ */
+public final class Dominators {
+    private final List<BasicBlock> reversePostorder;
+    private final Map<BasicBlock, Integer> order = new HashMap<>();
+    private final Map<BasicBlock, BasicBlock> immediateDominators = new HashMap<>();
+
+    Dominators(ControlFlowGraph graph) {
+        reversePostorder = reversePostorder(graph.getEntry());
+        for (int n = 0; n < reversePostorder.size(); n++) {
+            order.put(reversePostorder.get(n), n);
+        }
+
+        var entry = graph.getEntry();
+        immediateDominators.put(entry, entry);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : reversePostorder) {
+                if (block == entry)
+                    continue;
+                BasicBlock dominator = null;
+                for (var predecessor : block.getPredecessors()) {
+                    if (!immediateDominators.containsKey(predecessor))
+                        continue;  // not processed yet, or unreachable
+                    dominator = (dominator == null) ? predecessor : intersect(predecessor, dominator);
+                }
+                if (dominator != immediateDominators.get(block)) {
+                    immediateDominators.put(block, dominator);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private BasicBlock intersect(BasicBlock a, BasicBlock b) {
+        while (a != b) {
+            while (order.get(a) > order.get(b))
+                a = immediateDominators.get(a);
+            while (order.get(b) > order.get(a))
+                b = immediateDominators.get(b);
+        }
+        return a;
+    }
+
+    private static List<BasicBlock> reversePostorder(BasicBlock entry) {
+        // Iterative, so that deeply nested programs cannot overflow the stack
+        var postorder = new ArrayList<BasicBlock>();
+        Set<BasicBlock> visited = new HashSet<>();
+        var blocks = new ArrayList<BasicBlock>();
+        var positions = new ArrayList<Integer>();
+        visited.add(entry);
+        blocks.add(entry);
+        positions.add(0);
+        while (!blocks.isEmpty()) {
+            int top = blocks.size() - 1;
+            var block = blocks.get(top);
+            int position = positions.get(top);
+            var successors = block.getSuccessors();
+            if (position < successors.size()) {
+                positions.set(top, position + 1);
+                var successor = successors.get(position);
+                if (visited.add(successor)) {
+                    blocks.add(successor);
+                    positions.add(0);
+                }
+            } else {
+                postorder.add(block);
+                blocks.remove(top);
+                positions.remove(top);
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    /**
+     * The blocks reachable from the entry block, each one before its successors except along back
+     * edges.
+     */
+    public List<BasicBlock> getReversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    public boolean isReachable(BasicBlock block) {
+        return order.containsKey(block);
+    }
+
+    /**
+     * The closest block other than the given one that dominates it, or null for the entry block and
+     * unreachable blocks.
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block) {
+        var dominator = immediateDominators.get(block);
+        return (dominator == block) ? null : dominator;
+    }
+
+    /**
+     * Whether every path from the entry block to `block` passes through `dominator`. Every block
+     * dominates itself. Unreachable blocks dominate nothing and are dominated by nothing.
+     */
+    public boolean dominates(BasicBlock dominator, BasicBlock block) {
+        if (!isReachable(dominator) || !isReachable(block))
+            return false;
+        while (true) {
+            if (block == dominator)
+                return true;
+            var next = immediateDominators.get(block);
+            if (next == block)
+                return false;  // reached the entry block
+            block = next;
+        }
+    }
+}
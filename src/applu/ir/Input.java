@@ -0,0 +1,29 @@
+package applu.ir;
+
+import java.util.List;
+
+/**
+ * The value a variable has when the program starts. Inputs only appear in the entry block, at most
+ * once per variable.
+ */
+public final class Input extends Value {
+    private final String variable;
+
+    Input(int id, String variable) {
+        super(id);
+        this.variable = variable;
+    }
+
+    public String getVariable() {
+        return variable;
+    }
+
+    @Override
+    public List<Value> getOperands() {
+        return List.of();
+    }
+
+    @Override
+    void replaceOperand(Value from, Value to) {
+    }
+}
@@ -0,0 +1,94 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a {@link ControlFlowGraph} as text, one instruction per line, e.g.:
+ * <pre>
+ * block0:
+ *     v0 = input n
+ *     v1 = constant 0.0
+ *     jump block1
+ * block1: ← block0, block3
+ *     v2 = phi block0: v1, block3: v5
+ *     branch v2 == v0 ? block2 : block3
+ * …
+ * </pre>
+ */
+public final class IrPrinter {
+    private IrPrinter() {
+    }
+
+    public static String print(ControlFlowGraph graph) {
+        var out = new StringBuilder();
+        for (var block : graph.getBlocks()) {
+            out.append(block.getName()).append(':');
+            if (!block.getPredecessors().isEmpty())
+                out.append(" ← ").append(names(block.getPredecessors()));
+            out.append('\n');
+            for (var phi : block.getPhis()) {
+                var operands = new ArrayList<String>();
+                phi.getIncoming().forEach((predecessor, value) -> operands.add(predecessor.getName() + ": " + value.getName()));
+                line(out, phi.getName() + " = phi " + String.join(", ", operands));
+            }
+            for (var instruction : block.getInstructions()) {
+                line(out, instruction.getName() + " = " + describe(instruction));
+            }
+            line(out, (block.getTerminator() == null) ? "(unterminated)" : describe(block.getTerminator()));
+        }
+        return out.toString();
+    }
+
+    private static void line(StringBuilder out, String text) {
+        out.append("    ").append(text).append('\n');
+    }
+
+    private static String describe(Value value) {
+        if (value instanceof Constant constant)
+            return "constant " + constant.getValue();
+        if (value instanceof Input input)
+            return "input " + input.getVariable();
+        if (value instanceof Operation operation)
+            return operation.getOperator().name().toLowerCase() + " " + operation.getLhs().getName() + ", " + operation.getRhs().getName();
+        throw new IllegalArgumentException("Unknown instruction type: " + value.getClass());
+    }
+
+    private static String describe(Terminator terminator) {
+        if (terminator instanceof Terminator.Jump jump)
+            return "jump " + jump.target().getName();
+        if (terminator instanceof Terminator.Branch branch)
+            return "branch " + branch.lhs().getName() + " " + symbol(branch) + " " + branch.rhs().getName()
+                + " ? " + branch.ifTrue().getName() + " : " + branch.ifFalse().getName();
+        if (terminator instanceof Terminator.Return ret) {
+            var variables = ret.variables().entrySet().stream()
+                .map(entry -> entry.getKey() + " = " + entry.getValue().getName())
+                .collect(Collectors.joining(", "));
+            return (ret.loopExited() ? "exit loop outside any loop" : "return")
+                + (variables.isEmpty() ? "" : " " + variables);
+        }
+        throw new IllegalArgumentException("Unknown terminator type: " + terminator.getClass());
+    }
+
+    private static String symbol(Terminator.Branch branch) {
+        switch (branch.operator()) {
+            case LESS_THAN: {
+                return "<";
+            }
+            case EQUALS: {
+                return "==";
+            }
+            case GREATER_THAN: {
+                return ">";
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown operator: " + branch.operator());
+            }
+        }
+    }
+
+    private static String names(List<BasicBlock> blocks) {
+        return blocks.stream().map(BasicBlock::getName).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,76 @@
+package applu.ir;
+
+import java.util.List;
+
+import applu.ast.BinaryExpressionNode;
+
+/**
+ * An arithmetic operation on two values, with the same meaning as a
+ * {@link BinaryExpressionNode} with the same operator.
+ */
+public final class Operation extends Value {
+    private final BinaryExpressionNode.Operator operator;
+    private Value lhs, rhs;
+
+    Operation(int id, BinaryExpressionNode.Operator operator, Value lhs, Value rhs) {
+        super(id);
+        this.operator = operator;
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    public BinaryExpressionNode.Operator getOperator() {
+        return operator;
+    }
+
+    public Value getLhs() {
+        return lhs;
+    }
+
+    public Value getRhs() {
+        return rhs;
+    }
+
+    @Override
+    public List<Value> getOperands() {
+        return List.of(lhs, rhs);
+    }
+
+    @Override
+    void replaceOperand(Value from, Value to) {
+        if (lhs == from)
+            lhs = to;
+        if (rhs == from)
+            rhs = to;
+    }
+
+    /**
+     * Applies this operation’s operator to the given operands, exactly as the interpreter does.
+     */
+    public double apply(double left, double right) {
+        return apply(operator, left, right);
+    }
+
+    static double apply(BinaryExpressionNode.Operator operator, double left, double right) {
+        switch (operator) {
+            case ADDITION: {
+                return left + right;
+            }
+            case SUBTRACTION: {
+                return left - right;
+            }
+            case MULTIPLICATION: {
+                return left * right;
+            }
+            case DIVISION: {
+                return left / right;
+            }
+            case EXPONENTIATION: {
+                return Math.pow(left, right);
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A value that depends on which edge control arrived at its block by: it takes the operand given for
+ * the predecessor that jumped there. Phis sit at the start of a block, and all of a block’s phis take
+ * their values at once, so one phi’s operand may be another phi of the same block.
+ */
+public final class Phi extends Value {
+    private final Map<BasicBlock, Value> operands = new LinkedHashMap<>();
+
+    Phi(int id) {
+        super(id);
+    }
+
+    /**
+     * The operand for each predecessor of this phi’s block.
+     */
+    public Map<BasicBlock, Value> getIncoming() {
+        return Collections.unmodifiableMap(operands);
+    }
+
+    /**
+     * The value this phi takes when control arrives from the given predecessor.
+     */
+    public Value getIncoming(BasicBlock predecessor) {
+        var value = operands.get(predecessor);
+        if (value == null)
+            throw new IllegalArgumentException(predecessor + " is not a predecessor of " + this);
+        return value;
+    }
+
+    /**
+     * Sets the value this phi takes when control arrives from the given predecessor.
+     */
+    public void setIncoming(BasicBlock predecessor, Value value) {
+        operands.put(predecessor, value);
+    }
+
+    void removeIncoming(BasicBlock predecessor) {
+        operands.remove(predecessor);
+    }
+
+    @Override
+    public List<Value> getOperands() {
+        return new ArrayList<>(operands.values());
+    }
+
+    @Override
+    void replaceOperand(Value from, Value to) {
+        operands.replaceAll((predecessor, value) -> (value == from) ? to : value);
+    }
+}
@@ -0,0 +1,295 @@
+package applu.ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Lowers an Applu program to a {@link ControlFlowGraph}, building SSA form as it goes with the
+ * algorithm of Braun et al., “Simple and Efficient Construction of Static Single Assignment Form”:
+ * each block records the value last assigned to each variable, a read in a block that assigns nothing
+ * looks through its predecessors, and a block only gets a phi for a variable when predecessors
+ * disagree about its value. A loop’s first block is not “sealed” until the back-edges into it are
+ * known, so reads there get placeholder phis whose operands are filled in afterwards. Phis that turn
+ * out to merge only one value are removed.
+ *
+ * The shapes this produces:
+ * <ul>
+ * <li>A conditional branches to one block per side, and both continue at a join block.
+ * <li>A loop jumps to a header block; the end of its body jumps back to the header, and each `exit
+ * loop` jumps to the block after the loop.
+ * <li>Statements after an `exit loop` in the same block are never reached, and get no code.
+ * <li>The program ends with a {@link Terminator.Return} of each variable it may have changed. An
+ * `exit loop` outside of any loop ends it the same way, flagged as an error.
+ * </ul>
+ */
+final class SsaBuilder {
+    private final ControlFlowGraph graph = new ControlFlowGraph();
+    private final Map<BasicBlock, Map<String, Value>> definitions = new HashMap<>();
+    private final Map<BasicBlock, Map<String, Phi>> incompletePhis = new HashMap<>();
+    private final Set<BasicBlock> sealed = new HashSet<>();
+    private final Set<Phi> filling = new HashSet<>();
+    private final Map<Phi, Value> replacements = new HashMap<>();
+    private final Deque<BasicBlock> loopExits = new ArrayDeque<>();
+    private final Set<String> assigned = new TreeSet<>();
+
+    // Where the next statement’s code goes, or null if control cannot reach it
+    private BasicBlock current;
+
+    ControlFlowGraph build(StatementNode program) {
+        findAssignedVariables(program);
+        current = graph.getEntry();
+        seal(current);
+        lower(program);
+        if (current != null)
+            finish(current, false);
+
+        graph.removeUnreachableBlocks();
+        removeUnchangedVariables();
+        return graph;
+    }
+
+    private void findAssignedVariables(StatementNode node) {
+        if (node instanceof AssignmentNode assignment) {
+            assigned.add(assignment.getVariable().getName());
+        } else if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                findAssignedVariables(statement);
+            }
+        } else if (node instanceof ConditionalNode conditional) {
+            findAssignedVariables(conditional.getIfTrue());
+            findAssignedVariables(conditional.getIfFalse());
+        } else if (node instanceof LoopNode loop) {
+            findAssignedVariables(loop.getBody());
+        }
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    private void lower(StatementNode node) {
+        if (current == null)
+            return;  // follows an exit loop
+        if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                lower(statement);
+            }
+        } else if (node instanceof AssignmentNode assignment) {
+            write(assignment.getVariable().getName(), current, lower(assignment.getExpression()));
+        } else if (node instanceof ConditionalNode conditional) {
+            var lhs = lower(conditional.getLhs());
+            var rhs = resolve(lower(conditional.getRhs()));
+            lhs = resolve(lhs);
+            var ifTrue = graph.newBlock();
+            var ifFalse = graph.newBlock();
+            var join = graph.newBlock();
+            current.branch(conditional.getOperator(), lhs, rhs, ifTrue, ifFalse);
+            seal(ifTrue);
+            seal(ifFalse);
+
+            current = ifTrue;
+            lower(conditional.getIfTrue());
+            if (current != null)
+                current.jump(join);
+            current = ifFalse;
+            lower(conditional.getIfFalse());
+            if (current != null)
+                current.jump(join);
+
+            seal(join);
+            current = join.getPredecessors().isEmpty() ? null : join;
+        } else if (node instanceof LoopNode loop) {
+            var header = graph.newBlock();
+            var exit = graph.newBlock();
+            current.jump(header);
+            loopExits.push(exit);
+
+            current = header;
+            lower(loop.getBody());
+            if (current != null)
+                current.jump(header);  // the back-edge
+
+            loopExits.pop();
+            seal(header);
+            seal(exit);
+            current = exit.getPredecessors().isEmpty() ? null : exit;
+        } else if (node instanceof LoopExitNode) {
+            if (loopExits.isEmpty())
+                finish(current, true);
+            else
+                current.jump(loopExits.peek());
+            current = null;
+        } else {
+            throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+        }
+    }
+
+    private void finish(BasicBlock block, boolean loopExited) {
+        var variables = new LinkedHashMap<String, Value>();
+        for (var variable : assigned) {
+            variables.put(variable, read(variable, block));
+        }
+        variables.replaceAll((variable, value) -> resolve(value));  // later reads may remove phis
+        block.setTerminator(new Terminator.Return(variables, loopExited));
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    private Value lower(ExpressionNode node) {
+        if (node instanceof ConstantNode constant) {
+            return current.constant(constant.getValue());
+        } else if (node instanceof VariableNode variable) {
+            return read(variable.getName(), current);
+        } else if (node instanceof BinaryExpressionNode binary) {
+            var lhs = lower(binary.getLhs());
+            var rhs = resolve(lower(binary.getRhs()));
+            lhs = resolve(lhs);
+            return current.operation(binary.getOperator(), lhs, rhs);
+        } else {
+            throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+        }
+    }
+
+    // –––––––––––– SSA construction ––––––––––––
+
+    private void write(String variable, BasicBlock block, Value value) {
+        definitions.computeIfAbsent(block, key -> new HashMap<>()).put(variable, resolve(value));
+    }
+
+    /**
+     * Returns the value that now stands for the given one. Removing a trivial phi can remove others
+     * in turn, including ones that callers further up the stack are still holding; those callers
+     * must look their values up here before storing or using them.
+     */
+    private Value resolve(Value value) {
+        while (value instanceof Phi phi && replacements.containsKey(phi)) {
+            value = replacements.get(phi);
+        }
+        return value;
+    }
+
+    private Value read(String variable, BasicBlock block) {
+        var value = definitions.getOrDefault(block, Map.of()).get(variable);
+        if (value != null)
+            return resolve(value);
+
+        if (!sealed.contains(block)) {
+            var phi = block.phi();
+            incompletePhis.computeIfAbsent(block, key -> new LinkedHashMap<>()).put(variable, phi);
+            value = phi;
+        } else if (block == graph.getEntry()) {
+            value = graph.input(variable);
+        } else if (block.getPredecessors().size() == 1) {
+            value = read(variable, block.getPredecessors().get(0));
+        } else {
+            var phi = block.phi();
+            write(variable, block, phi);  // breaks cycles through loops
+            value = addOperands(variable, phi);
+        }
+        value = resolve(value);
+        write(variable, block, value);
+        return value;
+    }
+
+    private void seal(BasicBlock block) {
+        var phis = incompletePhis.remove(block);
+        if (phis != null)
+            phis.forEach(this::addOperands);
+        sealed.add(block);
+    }
+
+    private Value addOperands(String variable, Phi phi) {
+        filling.add(phi);
+        for (var predecessor : phi.getBlock().getPredecessors()) {
+            phi.setIncoming(predecessor, resolve(read(variable, predecessor)));
+        }
+        filling.remove(phi);
+        return removeIfTrivial(phi);
+    }
+
+    /**
+     * Replaces a phi whose operands are all the same value, or itself, with that value.
+     */
+    private Value removeIfTrivial(Phi phi) {
+        Value same = null;
+        for (var operand : phi.getOperands()) {
+            if (operand == same || operand == phi)
+                continue;
+            if (same != null)
+                return phi;  // merges at least two values
+            same = operand;
+        }
+        if (same == null)
+            throw new IllegalStateException(phi + " in unreachable " + phi.getBlock() + " has no value");
+
+        var users = new ArrayList<Phi>();
+        for (var block : graph.getBlocks()) {
+            for (var other : block.getPhis()) {
+                if (other != phi && other.getOperands().contains(phi))
+                    users.add(other);
+            }
+        }
+        replacements.put(phi, same);
+        graph.replaceAllUses(phi, same);
+        for (var blockDefinitions : definitions.values()) {
+            final var replacement = same;
+            blockDefinitions.replaceAll((variable, value) -> (value == phi) ? replacement : value);
+        }
+        phi.getBlock().remove(phi);
+
+        // Removing this phi may leave the phis that used it trivial too
+        for (var user : users) {
+            if (user.getBlock() != null && !filling.contains(user))
+                removeIfTrivial(user);
+        }
+        return resolve(same);
+    }
+
+    // –––––––––––– Cleanup ––––––––––––
+
+    /**
+     * Leaves variables that end with the value they started with out of each return, and drops the
+     * inputs that nothing then reads.
+     */
+    private void removeUnchangedVariables() {
+        Set<Value> used = new HashSet<>();
+        for (var block : graph.getBlocks()) {
+            if (block.getTerminator() instanceof Terminator.Return ret) {
+                var variables = new LinkedHashMap<String, Value>();
+                ret.variables().forEach((variable, value) -> {
+                    if (!(value instanceof Input input && input.getVariable().equals(variable)))
+                        variables.put(variable, value);
+                });
+                if (variables.size() != ret.variables().size())
+                    block.setTerminator(new Terminator.Return(variables, ret.loopExited()));
+            }
+            for (var phi : block.getPhis()) {
+                used.addAll(phi.getOperands());
+            }
+            for (var instruction : block.getInstructions()) {
+                used.addAll(instruction.getOperands());
+            }
+            used.addAll(block.getTerminator().operands());
+        }
+        for (var input : graph.getInputs().values()) {
+            if (!used.contains(input))
+                graph.getEntry().remove(input);
+        }
+    }
+}
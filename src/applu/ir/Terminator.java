@@ -0,0 +1,122 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import applu.ast.ConditionalNode;
+
+/**
+ * How control leaves a {@link BasicBlock}. Every block ends with exactly one terminator.
+ */
+public sealed interface Terminator {
+    /**
+     * The blocks control may go to next.
+     */
+    List<BasicBlock> successors();
+
+    /**
+     * The values this terminator reads.
+     */
+    List<Value> operands();
+
+    /**
+     * Returns this terminator with every use of one value replaced by another.
+     */
+    Terminator replaceOperand(Value from, Value to);
+
+    /**
+     * Unconditionally continues at the target block.
+     */
+    record Jump(BasicBlock target) implements Terminator {
+        @Override
+        public List<BasicBlock> successors() {
+            return List.of(target);
+        }
+
+        @Override
+        public List<Value> operands() {
+            return List.of();
+        }
+
+        @Override
+        public Terminator replaceOperand(Value from, Value to) {
+            return this;
+        }
+    }
+
+    /**
+     * Compares two values as a {@link ConditionalNode} with the same operator would, and continues at
+     * one block if the comparison holds and another if not.
+     */
+    record Branch(ConditionalNode.Operator operator, Value lhs, Value rhs, BasicBlock ifTrue, BasicBlock ifFalse)
+        implements Terminator {
+        @Override
+        public List<BasicBlock> successors() {
+            return List.of(ifTrue, ifFalse);
+        }
+
+        @Override
+        public List<Value> operands() {
+            return List.of(lhs, rhs);
+        }
+
+        @Override
+        public Terminator replaceOperand(Value from, Value to) {
+            return new Branch(operator, (lhs == from) ? to : lhs, (rhs == from) ? to : rhs, ifTrue, ifFalse);
+        }
+
+        /**
+         * Whether the comparison holds for the given operands. NaN compares false under every
+         * operator.
+         */
+        public boolean test(double left, double right) {
+            switch (operator) {
+                case LESS_THAN: {
+                    return left < right;
+                }
+                case EQUALS: {
+                    return left == right;
+                }
+                case GREATER_THAN: {
+                    return left > right;
+                }
+                default: {
+                    throw new IllegalArgumentException("Unknown operator: " + operator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the program, leaving each listed variable with the given value. Variables not listed keep
+     * the value they started with.
+     *
+     * @param loopExited Whether the program ends by running an `exit loop` outside of any loop,
+     *                   which the engines report as an error once the variables are set.
+     */
+    record Return(Map<String, Value> variables, boolean loopExited) implements Terminator {
+        public Return {
+            variables = Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+        }
+
+        @Override
+        public List<BasicBlock> successors() {
+            return List.of();
+        }
+
+        @Override
+        public List<Value> operands() {
+            return new ArrayList<>(variables.values());
+        }
+
+        @Override
+        public Terminator replaceOperand(Value from, Value to) {
+            var replaced = new LinkedHashMap<>(variables);
+            replaced.replaceAll((name, value) -> (value == from) ? to : value);
+            return new Return(replaced, loopExited);
+        }
+    }
+}
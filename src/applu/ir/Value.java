@@ -0,0 +1,52 @@
+package applu.ir;
+
+import java.util.List;
+
+/**
+ * A value computed by a {@link ControlFlowGraph}. The graph is in SSA form: each value is defined
+ * exactly once, by the instruction that is the value itself, and Applu variables only exist as names
+ * for the values that were last assigned to them (see {@link Input} and
+ * {@link Terminator.Return}). Values are compared by identity.
+ */
+public abstract sealed class Value permits Constant, Input, Operation, Phi {
+    private final int id;
+    BasicBlock block;
+
+    Value(int id) {
+        this.id = id;
+    }
+
+    /**
+     * A number unique to this value within its graph, which stays the same as the graph changes. Ids
+     * are at most {@link ControlFlowGraph#getValueIdLimit()}, so engines can use them to index arrays.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The block that defines this value, or null if it has been removed from the graph.
+     */
+    public BasicBlock getBlock() {
+        return block;
+    }
+
+    /**
+     * The values this one is computed from.
+     */
+    public abstract List<Value> getOperands();
+
+    abstract void replaceOperand(Value from, Value to);
+
+    /**
+     * The name the {@linkplain IrPrinter printed form} uses for this value, e.g. “v3”.
+     */
+    public String getName() {
+        return "v" + id;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
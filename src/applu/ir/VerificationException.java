@@ -0,0 +1,26 @@
+package applu.ir;
+
+import java.util.List;
+
+/**
+ * A {@link ControlFlowGraph} that is not well formed, as reported by
+ * {@link ControlFlowGraph#verify()}.
+ */
+public class VerificationException extends RuntimeException {
+    private final List<String> problems;
+
+    public VerificationException(List<String> problems, String graph) {
+        super("Invalid control flow graph:\n  " + String.join("\n  ", problems)
+            + "\n━━━━━━━━━━━━━━ IR ━━━━━━━━━━━━━━\n"
+            + graph
+            + "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
+        this.problems = List.copyOf(problems);
+    }
+
+    /**
+     * Everything the verifier found wrong, one problem per entry.
+     */
+    public List<String> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,124 @@
+package applu.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the rules every {@link ControlFlowGraph} must follow, so that transformations can catch
+ * their own mistakes before an engine runs the result:
+ * <ul>
+ * <li>Every block ends with a terminator, and is reachable from the entry block, which has no
+ * predecessors.
+ * <li>Each block’s predecessors are exactly the blocks whose terminators lead to it.
+ * <li>Each phi has exactly one operand per predecessor of its block.
+ * <li>Every value is defined once, in the block it claims to be in, and inputs are only defined in
+ * the entry block, once per variable.
+ * <li>Every use of a value is dominated by its definition. An operand of a phi counts as a use at the
+ * end of the corresponding predecessor.
+ * </ul>
+ */
+final class Verifier {
+    private final ControlFlowGraph graph;
+    private final List<String> problems = new ArrayList<>();
+
+    private Verifier(ControlFlowGraph graph) {
+        this.graph = graph;
+    }
+
+    static void verify(ControlFlowGraph graph) {
+        var verifier = new Verifier(graph);
+        verifier.check();
+        if (!verifier.problems.isEmpty())
+            throw new VerificationException(verifier.problems, IrPrinter.print(graph));
+    }
+
+    private void check() {
+        var blocks = new HashSet<>(graph.getBlocks());
+        var dominators = graph.getDominators();
+        var entry = graph.getEntry();
+        if (!entry.getPredecessors().isEmpty())
+            problems.add("entry block " + entry + " has predecessors " + entry.getPredecessors());
+
+        // Where each value is defined: its block, and its position there (phis all count as -1)
+        Map<Value, Integer> positions = new HashMap<>();
+        Set<String> inputs = new HashSet<>();
+        for (var block : graph.getBlocks()) {
+            if (block.getTerminator() == null)
+                problems.add(block + " has no terminator");
+            if (!dominators.isReachable(block))
+                problems.add(block + " is unreachable");
+            for (var successor : block.getSuccessors()) {
+                if (!blocks.contains(successor))
+                    problems.add(block + " continues at " + successor + ", which is not in the graph");
+                else if (!successor.getPredecessors().contains(block))
+                    problems.add(block + " continues at " + successor + ", which does not list it as a predecessor");
+            }
+            for (var predecessor : block.getPredecessors()) {
+                if (!predecessor.getSuccessors().contains(block))
+                    problems.add(block + " lists " + predecessor + " as a predecessor, but does not follow it");
+            }
+            if (new HashSet<>(block.getPredecessors()).size() != block.getPredecessors().size())
+                problems.add(block + " lists a predecessor twice");
+
+            for (var phi : block.getPhis()) {
+                define(phi, block, -1, positions);
+                if (!phi.getIncoming().keySet().equals(new HashSet<>(block.getPredecessors())))
+                    problems.add(phi + " has operands for " + phi.getIncoming().keySet()
+                        + " but " + block + " has predecessors " + block.getPredecessors());
+            }
+            var instructions = block.getInstructions();
+            for (int n = 0; n < instructions.size(); n++) {
+                var instruction = instructions.get(n);
+                define(instruction, block, n, positions);
+                if (instruction instanceof Input input) {
+                    if (block != entry)
+                        problems.add(input + " is an input outside the entry block");
+                    if (!inputs.add(input.getVariable()))
+                        problems.add(input + " is a second input for “" + input.getVariable() + "”");
+                }
+            }
+        }
+
+        for (var block : graph.getBlocks()) {
+            for (var phi : block.getPhis()) {
+                phi.getIncoming().forEach((predecessor, value) -> checkUse(phi, value, predecessor, Integer.MAX_VALUE, positions));
+            }
+            var instructions = block.getInstructions();
+            for (int n = 0; n < instructions.size(); n++) {
+                var instruction = instructions.get(n);
+                for (var operand : instruction.getOperands()) {
+                    checkUse(instruction, operand, block, n, positions);
+                }
+            }
+            if (block.getTerminator() != null) {
+                for (var operand : block.getTerminator().operands()) {
+                    checkUse(block.getTerminator(), operand, block, Integer.MAX_VALUE, positions);
+                }
+            }
+        }
+    }
+
+    private void define(Value value, BasicBlock block, int position, Map<Value, Integer> positions) {
+        if (value.getBlock() != block)
+            problems.add(value + " is in " + block + " but belongs to " + value.getBlock());
+        if (positions.put(value, position) != null)
+            problems.add(value + " is defined twice");
+    }
+
+    // Checks a use in the given block, before the instruction at the given position
+    private void checkUse(Object user, Value value, BasicBlock block, int position, Map<Value, Integer> positions) {
+        var definedAt = positions.get(value);
+        if (definedAt == null) {
+            problems.add(user + " uses " + value + ", which is not in the graph");
+        } else if (value.getBlock() == block) {
+            if (definedAt >= position)
+                problems.add(user + " uses " + value + " before it is defined");
+        } else if (!graph.getDominators().dominates(value.getBlock(), block)) {
+            problems.add(user + " in " + block + " uses " + value + ", whose " + value.getBlock() + " does not dominate it");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package applu.optimizer;
+
+import applu.ast.BinaryExpressionNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+
+/**
+ * Removes operations that leave their other operand unchanged:
+ * <ul>
+ * <li>`x plus -0`, `-0 plus x`, and `x minus 0` become `x`,
+ * <li>`x times 1`, `1 times x`, `x divided by 1`, and `x to the power of 1` become `x`, and
+ * <li>`x to the power of 0` becomes `1`.
+ * </ul>
+ *
+ * These hold for every double, NaN, infinities and both zeros included, so results are identical
+ * bit for bit. That is why `x plus 0` stays: IEEE arithmetic says −0 + 0 is +0, and the sign of a
+ * zero is observable, e.g. in `1 divided by x`. Adding −0 or subtracting +0 never changes a value,
+ * so the zeros are matched by their exact bits. Rewrites that would only be valid for finite values,
+ * such as `x times 0` becoming `0`, are deliberately absent.
+ */
+public final class AlgebraicSimplification implements RewriteRule {
+    @Override
+    public String getName() {
+        return "AlgebraicSimplification";
+    }
+
+    @Override
+    public ExpressionNode rewrite(ExpressionNode node) {
+        if (!(node instanceof BinaryExpressionNode binary))
+            return node;
+
+        var lhs = binary.getLhs();
+        var rhs = binary.getRhs();
+        switch (binary.getOperator()) {
+            case ADDITION: {
+                if (isExactly(rhs, -0.0))
+                    return lhs;
+                if (isExactly(lhs, -0.0))
+                    return rhs;
+                break;
+            }
+            case SUBTRACTION: {
+                if (isExactly(rhs, 0.0))
+                    return lhs;
+                break;
+            }
+            case MULTIPLICATION: {
+                if (isConstant(rhs, 1))
+                    return lhs;
+                if (isConstant(lhs, 1))
+                    return rhs;
+                break;
+            }
+            case DIVISION: {
+                if (isConstant(rhs, 1))
+                    return lhs;
+                break;
+            }
+            case EXPONENTIATION: {
+                if (isConstant(rhs, 1))
+                    return lhs;
+                if (isConstant(rhs, 0))
+                    return new ConstantNode(1);
+                break;
+            }
+        }
+        return node;
+    }
+
+    private static boolean isConstant(ExpressionNode node, double value) {
+        return node instanceof ConstantNode constant && constant.getValue() == value;
+    }
+
+    // Unlike ==, tells +0 and −0 apart
+    private static boolean isExactly(ExpressionNode node, double value) {
+        return node instanceof ConstantNode constant
+            && Double.doubleToRawLongBits(constant.getValue()) == Double.doubleToRawLongBits(value);
+    }
+}
@@ -0,0 +1,69 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import applu.ast.BlockNode;
+import applu.ast.LoopExitNode;
+import applu.ast.StatementNode;
+
+/**
+ * Simplifies the structure of blocks:
+ * <ul>
+ * <li>statements of a nested block are spliced into the enclosing block,
+ * <li>empty blocks within a block disappear,
+ * <li>statements after an `exit loop` in the same block, which can never run, are dropped, and
+ * <li>a block containing a single statement becomes that statement.
+ * </ul>
+ */
+public final class BlockFlattening implements RewriteRule {
+    @Override
+    public String getName() {
+        return "BlockFlattening";
+    }
+
+    @Override
+    public StatementNode rewrite(StatementNode node) {
+        if (!(node instanceof BlockNode block))
+            return node;
+
+        var statements = block.getStatements();
+        if (statements.size() == 1)
+            return statements.get(0);
+        if (!needsFlattening(statements))
+            return node;
+
+        List<StatementNode> flattened = new ArrayList<>(statements.size());
+        flatten(statements, flattened);
+        return (flattened.size() == 1) ? flattened.get(0) : new BlockNode(flattened);
+    }
+
+    private static boolean needsFlattening(List<StatementNode> statements) {
+        for (int n = 0; n < statements.size(); n++) {
+            var statement = statements.get(n);
+            if (statement instanceof BlockNode)
+                return true;
+            if (statement instanceof LoopExitNode && n < statements.size() - 1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends the statements to the output, splicing in nested blocks. Returns false if it stopped at
+     * an `exit loop`, in which case the caller must not append anything further either.
+     */
+    private static boolean flatten(List<StatementNode> statements, List<StatementNode> output) {
+        for (var statement : statements) {
+            if (statement instanceof BlockNode nested) {
+                if (!flatten(nested.getStatements(), output))
+                    return false;
+            } else {
+                output.add(statement);
+                if (statement instanceof LoopExitNode)
+                    return false;
+            }
+        }
+        return true;
+    }
+}
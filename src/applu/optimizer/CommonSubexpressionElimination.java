@@ -0,0 +1,266 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Computes each repeated operation once: “set a to (x plus y) times 2. set b to (x plus y) divided by
+ * 3.” becomes “set $common1 to x plus y. set a to $common1 times 2. set b to $common1 divided by 3.”.
+ *
+ * Two copies of an operation share a temporary if they are {@linkplain ExpressionNode#equals equal}
+ * and nothing assigns any variable they read between them. The pass looks for copies within a run of
+ * consecutive assignments, optionally ending with the test of a conditional; a loop, an `exit loop`,
+ * or a conditional’s branches end the run, and the statements inside them form runs of their own. The
+ * temporary is assigned just before the statement holding the first copy, when the operands already
+ * have the values every copy would have seen, so results are identical bit for bit.
+ *
+ * The largest repeated operations go first. An operation that only repeats as part of a larger one
+ * disappears along with it; one that also appears elsewhere gets a temporary of its own on a later
+ * round.
+ */
+public final class CommonSubexpressionElimination implements ProgramPass {
+    @Override
+    public String getName() {
+        return "CommonSubexpressionElimination";
+    }
+
+    @Override
+    public Result apply(StatementNode program, Set<String> outputs) {
+        var eliminator = new Eliminator(new TemporaryNames(program, "common"));
+        var result = eliminator.rewrite(program);
+        return new Result(result, eliminator.temporaryCount);
+    }
+
+    private static final class Eliminator {
+        private final TemporaryNames temporaries;
+        private int temporaryCount;
+
+        Eliminator(TemporaryNames temporaries) {
+            this.temporaries = temporaries;
+        }
+
+        StatementNode rewrite(StatementNode node) {
+            if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean changed = false;
+                for (var statement : block.getStatements()) {
+                    var rewritten = rewriteNested(statement);
+                    statements.add(rewritten);
+                    changed |= (rewritten != statement);
+                }
+                var result = eliminateInRuns(statements);
+                return (changed || result != statements) ? new BlockNode(result) : block;
+            } else {
+                var nested = rewriteNested(node);
+                var result = eliminateInRuns(List.of(nested));
+                if (result.size() == 1)
+                    return result.get(0);
+                return new BlockNode(result);
+            }
+        }
+
+        // Handles the statements a statement contains, each a scope of its own
+        private StatementNode rewriteNested(StatementNode node) {
+            if (node instanceof ConditionalNode conditional) {
+                var ifTrue = rewrite(conditional.getIfTrue());
+                var ifFalse = rewrite(conditional.getIfFalse());
+                if (ifTrue == conditional.getIfTrue() && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), conditional.getLhs(), conditional.getRhs(), ifTrue, ifFalse);
+            } else if (node instanceof LoopNode loop) {
+                var body = rewrite(loop.getBody());
+                return (body == loop.getBody()) ? loop : new LoopNode(body);
+            } else if (node instanceof BlockNode) {
+                return rewrite(node);
+            } else if (node instanceof AssignmentNode || node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+
+        /**
+         * Returns the statements with repeats removed from each run, or the same list if there were
+         * none.
+         */
+        private List<StatementNode> eliminateInRuns(List<StatementNode> statements) {
+            List<StatementNode> result = new ArrayList<>(statements.size());
+            boolean changed = false;
+            int start = 0;
+            while (start < statements.size()) {
+                // A run is assignments plus, optionally, the conditional that follows them
+                int end = start;
+                while (end < statements.size() && statements.get(end) instanceof AssignmentNode)
+                    end++;
+                if (end < statements.size() && statements.get(end) instanceof ConditionalNode)
+                    end++;
+                if (end == start) {
+                    result.add(statements.get(start++));
+                    continue;
+                }
+                var run = statements.subList(start, end);
+                var eliminated = eliminate(run);
+                result.addAll(eliminated);
+                changed |= (eliminated != run);
+                start = end;
+            }
+            return changed ? result : statements;
+        }
+
+        /**
+         * Gives every repeated operation in the run its own temporary, largest first.
+         */
+        private List<StatementNode> eliminate(List<StatementNode> run) {
+            List<StatementNode> result = run;
+            Repeat repeat;
+            while ((repeat = findLargestRepeat(result)) != null) {
+                var temporary = temporaries.next();
+                temporaryCount++;
+                var rewritten = new ArrayList<StatementNode>(result.size() + 1);
+                for (int n = 0; n < result.size(); n++) {
+                    var statement = result.get(n);
+                    if (n == repeat.first())
+                        rewritten.add(new AssignmentNode(temporary, repeat.expression()));
+                    boolean inRange = (n >= repeat.first() && n <= repeat.last());
+                    rewritten.add(inRange ? substitute(statement, repeat.expression(), temporary) : statement);
+                }
+                result = rewritten;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Copies of one operation that can share a temporary: they appear in statements first through
+     * last of a run, and nothing those statements assign before the last one reads its operands.
+     */
+    private record Repeat(ExpressionNode expression, int first, int last) {
+    }
+
+    private static final class Candidate {
+        final ExpressionNode expression;
+        final Set<String> reads;
+        final int size;
+        final int first;
+        int last;
+        int count;
+
+        Candidate(ExpressionNode expression, int first) {
+            this.expression = expression;
+            this.reads = expression.findAllVariables().stream().map(VariableNode::getName).collect(Collectors.toSet());
+            this.size = size(expression);
+            this.first = first;
+        }
+    }
+
+    private static Repeat findLargestRepeat(List<StatementNode> run) {
+        Map<ExpressionNode, Candidate> open = new HashMap<>();
+        List<Candidate> closed = new ArrayList<>();
+        for (int n = 0; n < run.size(); n++) {
+            var statement = run.get(n);
+            for (var expression : expressionsOf(statement)) {
+                final int index = n;
+                forEachOperation(expression, operation -> {
+                    var candidate = open.computeIfAbsent(operation, key -> new Candidate(key, index));
+                    candidate.last = index;
+                    candidate.count++;
+                });
+            }
+
+            // An assignment takes effect after its expression is evaluated, so it only stops later
+            // statements from sharing
+            if (statement instanceof AssignmentNode assignment) {
+                var variable = assignment.getVariable().getName();
+                var iterator = open.values().iterator();
+                while (iterator.hasNext()) {
+                    var candidate = iterator.next();
+                    if (candidate.reads.contains(variable)) {
+                        closed.add(candidate);
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+        closed.addAll(open.values());
+
+        Candidate best = null;
+        for (var candidate : closed) {
+            if (candidate.count >= 2
+                && (best == null
+                    || candidate.size > best.size
+                    || (candidate.size == best.size && candidate.first < best.first)))
+                best = candidate;
+        }
+        return (best == null) ? null : new Repeat(best.expression, best.first, best.last);
+    }
+
+    private static List<ExpressionNode> expressionsOf(StatementNode statement) {
+        if (statement instanceof AssignmentNode assignment)
+            return List.of(assignment.getExpression());
+        if (statement instanceof ConditionalNode conditional)
+            return List.of(conditional.getLhs(), conditional.getRhs());
+        return List.of();
+    }
+
+    // Operations on constants alone are left for ConstantFolding
+    private static void forEachOperation(ExpressionNode expression, Consumer<ExpressionNode> action) {
+        if (!(expression instanceof BinaryExpressionNode binary))
+            return;
+        if (!binary.findAllVariables().isEmpty())
+            action.accept(binary);
+        forEachOperation(binary.getLhs(), action);
+        forEachOperation(binary.getRhs(), action);
+    }
+
+    private static StatementNode substitute(StatementNode statement, ExpressionNode target, VariableNode temporary) {
+        if (statement instanceof AssignmentNode assignment) {
+            var expression = substitute(assignment.getExpression(), target, temporary);
+            return (expression == assignment.getExpression())
+                ? assignment
+                : new AssignmentNode(assignment.getVariable(), expression);
+        } else if (statement instanceof ConditionalNode conditional) {
+            var lhs = substitute(conditional.getLhs(), target, temporary);
+            var rhs = substitute(conditional.getRhs(), target, temporary);
+            if (lhs == conditional.getLhs() && rhs == conditional.getRhs())
+                return conditional;
+            return new ConditionalNode(conditional.getOperator(), lhs, rhs, conditional.getIfTrue(), conditional.getIfFalse());
+        }
+        return statement;
+    }
+
+    private static ExpressionNode substitute(ExpressionNode expression, ExpressionNode target, VariableNode temporary) {
+        if (expression.equals(target))
+            return temporary;
+        if (!(expression instanceof BinaryExpressionNode binary))
+            return expression;
+        var lhs = substitute(binary.getLhs(), target, temporary);
+        var rhs = substitute(binary.getRhs(), target, temporary);
+        return (lhs == binary.getLhs() && rhs == binary.getRhs())
+            ? binary
+            : new BinaryExpressionNode(binary.getOperator(), lhs, rhs);
+    }
+
+    private static int size(ASTNode node) {
+        int size = 1;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            size += size(node.child(n));
+        }
+        return size;
+    }
+}
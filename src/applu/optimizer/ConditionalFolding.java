@@ -0,0 +1,58 @@
+package applu.optimizer;
+
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.StatementNode;
+
+/**
+ * Removes conditionals whose outcome is known in advance:
+ * <ul>
+ * <li>a comparison between two constants becomes whichever branch it would take, and
+ * <li>a conditional whose branches are both empty disappears, since evaluating its condition has no
+ * effect.
+ * </ul>
+ */
+public final class ConditionalFolding implements RewriteRule {
+    @Override
+    public String getName() {
+        return "ConditionalFolding";
+    }
+
+    @Override
+    public StatementNode rewrite(StatementNode node) {
+        if (!(node instanceof ConditionalNode conditional))
+            return node;
+
+        if (isEmpty(conditional.getIfTrue()) && isEmpty(conditional.getIfFalse()))
+            return BlockNode.EMPTY;
+
+        if (conditional.getLhs() instanceof ConstantNode lhs && conditional.getRhs() instanceof ConstantNode rhs) {
+            return compare(conditional.getOperator(), lhs.getValue(), rhs.getValue())
+                ? conditional.getIfTrue()
+                : conditional.getIfFalse();
+        }
+        return node;
+    }
+
+    private static boolean compare(ConditionalNode.Operator operator, double lhs, double rhs) {
+        switch (operator) {
+            case EQUALS: {
+                return lhs == rhs;
+            }
+            case LESS_THAN: {
+                return lhs < rhs;
+            }
+            case GREATER_THAN: {
+                return lhs > rhs;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + operator);
+            }
+        }
+    }
+
+    private static boolean isEmpty(StatementNode node) {
+        return node instanceof BlockNode block && block.getStatements().isEmpty();
+    }
+}
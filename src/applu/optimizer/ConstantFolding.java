@@ -0,0 +1,28 @@
+package applu.optimizer;
+
+import applu.ast.BinaryExpressionNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.interpreter.EvaluationContext;
+
+/**
+ * Replaces an operation on two constants with its result, e.g. “2 times 3” becomes “6”.
+ *
+ * The result is computed by the interpreter itself, so it is exactly what the unoptimized program
+ * would have computed at runtime, NaNs and infinities included.
+ */
+public final class ConstantFolding implements RewriteRule {
+    @Override
+    public String getName() {
+        return "ConstantFolding";
+    }
+
+    @Override
+    public ExpressionNode rewrite(ExpressionNode node) {
+        if (node instanceof BinaryExpressionNode binary
+            && binary.getLhs() instanceof ConstantNode
+            && binary.getRhs() instanceof ConstantNode)
+            return new ConstantNode(binary.evaluate(new EvaluationContext()));
+        return node;
+    }
+}
@@ -0,0 +1,184 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+
+/**
+ * Replaces {@linkplain InductionVariables counted loops} whose trip count is known before they start.
+ *
+ * Values are known from constant assignments earlier in the same block, e.g. “set count to 10”. A
+ * counted loop with a known trip count then becomes straight-line code, in one of two ways:
+ * <ul>
+ * <li>If the loop only updates its induction variables, and each one’s value on entry is known, it
+ * becomes one assignment per variable of the value it ends with.
+ * <li>Otherwise, if the loop is short enough, it is fully unrolled: its body is repeated once per
+ * iteration, minus the exit test, whose outcome is known each time. The engines then run the body’s
+ * statements without the test or the back-edge, and later passes can work across iterations.
+ * </ul>
+ * Trip counts and final values are exactly what the loop would compute; see {@link InductionVariables}.
+ *
+ * The optimizer runs this pass again on every pass, and most loops come back unchanged, so the pass
+ * keeps the analyses of the loops it saw most recently. Thread-safe.
+ */
+public final class CountedLoopSimplification implements ProgramPass {
+    /**
+     * The most iterations this pass will unroll.
+     */
+    public static final long MAX_UNROLLED_ITERATIONS = 16;
+
+    /**
+     * The most AST nodes a fully unrolled loop may contain.
+     */
+    public static final int MAX_UNROLLED_SIZE = 512;
+
+    /**
+     * How many loop analyses this pass keeps for reuse.
+     */
+    public static final int MAX_CACHED_ANALYSES = 256;
+
+    // Keyed by the loops’ structure, which is all the analysis depends on. Access order, for LRU eviction.
+    private final Map<LoopNode, InductionVariables> analyses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LoopNode, InductionVariables> eldest) {
+            return size() > MAX_CACHED_ANALYSES;
+        }
+    };
+
+    @Override
+    public String getName() {
+        return "CountedLoopSimplification";
+    }
+
+    @Override
+    public Result apply(StatementNode program, Set<String> outputs) {
+        var simplifier = new Simplifier();
+        var result = simplifier.rewrite(program, new HashMap<>());
+        return new Result(result, simplifier.simplifiedCount);
+    }
+
+    private InductionVariables analyze(LoopNode loop) {
+        synchronized (analyses) {
+            return analyses.computeIfAbsent(loop, InductionVariables::analyze);
+        }
+    }
+
+    private final class Simplifier {
+        private int simplifiedCount;
+
+        /**
+         * Rewrites the statement given the values known before it runs, and updates those values to
+         * the ones known after it.
+         */
+        StatementNode rewrite(StatementNode node, Map<String, Double> known) {
+            if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean changed = false;
+                for (var statement : block.getStatements()) {
+                    var rewritten = rewrite(statement, known);
+                    statements.add(rewritten);
+                    changed |= (rewritten != statement);
+                }
+                return changed ? new BlockNode(statements) : block;
+            } else if (node instanceof AssignmentNode assignment) {
+                var name = assignment.getVariable().getName();
+                if (assignment.getExpression() instanceof ConstantNode constant)
+                    known.put(name, constant.getValue());
+                else
+                    known.remove(name);
+                return assignment;
+            } else if (node instanceof ConditionalNode conditional) {
+                var ifTrue = rewrite(conditional.getIfTrue(), new HashMap<>(known));
+                var ifFalse = rewrite(conditional.getIfFalse(), new HashMap<>(known));
+                forgetAssigned(conditional, known);
+                if (ifTrue == conditional.getIfTrue() && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), conditional.getLhs(), conditional.getRhs(), ifTrue, ifFalse);
+            } else if (node instanceof LoopNode loop) {
+                var replacement = simplify(loop, known);
+                if (replacement != null) {
+                    simplifiedCount++;
+                    return rewrite(replacement, known);
+                }
+                var body = rewrite(loop.getBody(), new HashMap<>());
+                forgetAssigned(loop, known);
+                return (body == loop.getBody()) ? loop : new LoopNode(body);
+            } else if (node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+
+        private StatementNode simplify(LoopNode loop, Map<String, Double> known) {
+            var analysis = analyze(loop);
+            var tripCount = analysis.tripCount(known);
+            if (tripCount.isEmpty())
+                return null;
+            long iterations = tripCount.getAsLong();
+
+            if (analysis.isPurelyInductive()) {
+                List<StatementNode> assignments = new ArrayList<>();
+                for (var variable : analysis.getInductionVariables()) {
+                    var value = analysis.finalValue(variable, iterations, known);
+                    if (value == null) {
+                        assignments = null;
+                        break;
+                    }
+                    assignments.add(new AssignmentNode(variable.update().getVariable(), new ConstantNode(value)));
+                }
+                if (assignments != null)
+                    return new BlockNode(assignments);
+            }
+
+            var statements = (loop.getBody() instanceof BlockNode block) ? block.getStatements() : List.of(loop.getBody());
+            if (iterations > MAX_UNROLLED_ITERATIONS || iterations * size(loop.getBody()) > MAX_UNROLLED_SIZE)
+                return null;
+            int exitTest = analysis.getExitTest().position();
+            List<StatementNode> unrolled = new ArrayList<>();
+            for (long iteration = 1; iteration < iterations; iteration++) {
+                for (int n = 0; n < statements.size(); n++) {
+                    if (n != exitTest)
+                        unrolled.add(statements.get(n));
+                }
+            }
+            unrolled.addAll(statements.subList(0, exitTest));
+            return new BlockNode(unrolled);
+        }
+    }
+
+    private static void forgetAssigned(StatementNode node, Map<String, Double> known) {
+        if (node instanceof AssignmentNode assignment) {
+            known.remove(assignment.getVariable().getName());
+        } else if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                forgetAssigned(statement, known);
+            }
+        } else if (node instanceof ConditionalNode conditional) {
+            forgetAssigned(conditional.getIfTrue(), known);
+            forgetAssigned(conditional.getIfFalse(), known);
+        } else if (node instanceof LoopNode loop) {
+            forgetAssigned(loop.getBody(), known);
+        }
+    }
+
+    private static int size(ASTNode node) {
+        int size = 1;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            size += size(node.child(n));
+        }
+        return size;
+    }
+}
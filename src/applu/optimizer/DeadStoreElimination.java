@@ -0,0 +1,94 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+
+/**
+ * Removes assignments whose values no declared output can depend on, as found by {@link Liveness}.
+ *
+ * As a {@link ProgramPass}, this does nothing unless the optimizer running it has
+ * {@linkplain Optimizer#withOutputs declared outputs}. The optimizer then runs its rules again over
+ * what is left, since removing stores can empty out blocks and conditionals.
+ */
+public final class DeadStoreElimination implements ProgramPass {
+    /**
+     * Returns the given program without its dead stores, sharing every subtree that had none. Dead
+     * stores within blocks disappear; elsewhere they become empty blocks.
+     */
+    public static StatementNode eliminate(StatementNode program, Set<String> outputs) {
+        return eliminate(Liveness.analyze(program, outputs));
+    }
+
+    /**
+     * Returns the analyzed program without its dead stores.
+     */
+    public static StatementNode eliminate(Liveness liveness) {
+        return new Eliminator(liveness).rewrite(liveness.getProgram());
+    }
+
+    @Override
+    public String getName() {
+        return "DeadStoreElimination";
+    }
+
+    @Override
+    public Result apply(StatementNode program, Set<String> outputs) {
+        if (outputs == null)
+            return Result.unchanged(program);
+        var eliminator = new Eliminator(Liveness.analyze(program, outputs));
+        var result = eliminator.rewrite(program);
+        return new Result(result, eliminator.removedCount);
+    }
+
+    private static final class Eliminator {
+        private final Liveness liveness;
+        private int removedCount;
+
+        Eliminator(Liveness liveness) {
+            this.liveness = liveness;
+        }
+
+        StatementNode rewrite(StatementNode node) {
+            if (node instanceof AssignmentNode assignment) {
+                if (liveness.isLive(assignment))
+                    return assignment;
+                removedCount++;
+                return BlockNode.EMPTY;
+            } else if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean changed = false;
+                for (var statement : block.getStatements()) {
+                    var rewritten = rewrite(statement);
+                    if (rewritten != statement) {
+                        changed = true;
+                        if (rewritten == BlockNode.EMPTY)
+                            continue;
+                    }
+                    statements.add(rewritten);
+                }
+                return changed ? new BlockNode(statements) : block;
+            } else if (node instanceof ConditionalNode conditional) {
+                var ifTrue = rewrite(conditional.getIfTrue());
+                var ifFalse = rewrite(conditional.getIfFalse());
+                if (ifTrue == conditional.getIfTrue() && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), conditional.getLhs(), conditional.getRhs(), ifTrue, ifFalse);
+            } else if (node instanceof LoopNode loop) {
+                var body = rewrite(loop.getBody());
+                return (body == loop.getBody()) ? loop : new LoopNode(body);
+            } else if (node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+import applu.interpreter.EvaluationContext;
+
+/**
+ * The induction variables of one loop, and whether it is a counted loop.
+ *
+ * A basic induction variable is assigned exactly once in the loop, by a statement directly in its
+ * body (not inside a conditional or nested loop), from itself and a loop-invariant step:
+ * <ul>
+ * <li>`v plus step`, `step plus v`, or `v minus step` make it {@linkplain Kind#AFFINE affine}, and
+ * <li>`v times step`, `step times v`, or `v divided by step` make it {@linkplain Kind#GEOMETRIC
+ * geometric}.
+ * </ul>
+ * A step is invariant if it reads no variable the loop assigns.
+ *
+ * A loop is counted if the only way out of it is one test directly in its body, such as “if count is
+ * less than 1 then exit loop”, that compares an induction variable (the counter) with an invariant
+ * bound. Given the values of the counter, its step, and the bound on entry, {@link #tripCount}
+ * works out how many times the body starts.
+ *
+ * Trip counts and final values must match what the interpreter computes, rounding included. When an
+ * affine variable starts at an integer and steps by an integer, and every value it takes stays within
+ * ±2<sup>53</sup>, each addition is exact, so a closed form such as “initial plus count times step”
+ * gives the interpreter’s answer however long the loop runs. Otherwise, each update and comparison
+ * is repeated as the interpreter would do it, for at most {@link #MAX_SIMULATED_ITERATIONS}
+ * iterations.
+ */
+public final class InductionVariables {
+    /**
+     * How many iterations {@link #tripCount} and {@link #finalValue} will simulate before giving up,
+     * when they cannot use a closed form.
+     */
+    public static final long MAX_SIMULATED_ITERATIONS = 1 << 12;
+
+    // Integers of at most this magnitude are exact doubles, and so are their sums while they stay in range
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    public enum Kind {
+        /** Changes by adding or subtracting the same step on each iteration. */
+        AFFINE,
+        /** Changes by multiplying or dividing by the same step on each iteration. */
+        GEOMETRIC
+    }
+
+    /**
+     * A basic induction variable, updated by the statement at the given index of the loop body.
+     */
+    public record InductionVariable(String name, Kind kind, AssignmentNode update, int position) {
+        public ExpressionNode step() {
+            var expression = (BinaryExpressionNode) update.getExpression();
+            return isSelf(expression.getLhs(), name) ? expression.getRhs() : expression.getLhs();
+        }
+
+        /**
+         * Applies the update once, as the interpreter would.
+         */
+        public double next(double value, double step) {
+            var expression = (BinaryExpressionNode) update.getExpression();
+            boolean selfFirst = isSelf(expression.getLhs(), name);
+            double left = selfFirst ? value : step;
+            double right = selfFirst ? step : value;
+            switch (expression.getOperator()) {
+                case ADDITION: {
+                    return left + right;
+                }
+                case SUBTRACTION: {
+                    return left - right;
+                }
+                case MULTIPLICATION: {
+                    return left * right;
+                }
+                case DIVISION: {
+                    return left / right;
+                }
+                default: {
+                    throw new IllegalStateException("Not an induction update: " + update);
+                }
+            }
+        }
+    }
+
+    /**
+     * The test that ends a counted loop, at the given index of the loop body.
+     */
+    public record ExitTest(ConditionalNode conditional, int position, boolean exitsIfTrue) {
+    }
+
+    /**
+     * Finds the loop’s induction variables, and its exit test if it is counted.
+     */
+    public static InductionVariables analyze(LoopNode loop) {
+        return new InductionVariables(loop);
+    }
+
+    private final LoopNode loop;
+    private final List<StatementNode> body;
+    private final Set<String> assigned = new HashSet<>();
+    private final Map<String, InductionVariable> inductionVariables = new HashMap<>();
+    private final List<InductionVariable> inOrder = new ArrayList<>();
+    private ExitTest exitTest;
+    private InductionVariable counter;
+
+    private InductionVariables(LoopNode loop) {
+        this.loop = loop;
+        this.body = (loop.getBody() instanceof BlockNode block) ? block.getStatements() : List.of(loop.getBody());
+
+        Map<String, Integer> assignmentCounts = new HashMap<>();
+        countAssignments(loop.getBody(), assignmentCounts);
+        assigned.addAll(assignmentCounts.keySet());
+
+        for (int n = 0; n < body.size(); n++) {
+            if (body.get(n) instanceof AssignmentNode assignment
+                && assignmentCounts.get(assignment.getVariable().getName()) == 1) {
+                var kind = classify(assignment);
+                if (kind != null) {
+                    var variable = new InductionVariable(assignment.getVariable().getName(), kind, assignment, n);
+                    inductionVariables.put(variable.name(), variable);
+                    inOrder.add(variable);
+                }
+            }
+        }
+
+        findExitTest();
+    }
+
+    public LoopNode getLoop() {
+        return loop;
+    }
+
+    /**
+     * The basic induction variables, in the order their updates appear in the body.
+     */
+    public List<InductionVariable> getInductionVariables() {
+        return Collections.unmodifiableList(inOrder);
+    }
+
+    /**
+     * The named variable if it is a basic induction variable of this loop, or null.
+     */
+    public InductionVariable get(String name) {
+        return inductionVariables.get(name);
+    }
+
+    public boolean isCounted() {
+        return exitTest != null;
+    }
+
+    /**
+     * The counted loop’s exit test, or null if the loop is not counted.
+     */
+    public ExitTest getExitTest() {
+        return exitTest;
+    }
+
+    /**
+     * The induction variable the exit test compares, or null if the loop is not counted.
+     */
+    public InductionVariable getCounter() {
+        return counter;
+    }
+
+    /**
+     * True if the loop is counted and does nothing but update its induction variables, so that its
+     * whole effect is the final value of each one.
+     */
+    public boolean isPurelyInductive() {
+        return isCounted() && inOrder.size() == body.size() - 1;
+    }
+
+    /**
+     * True if the expression reads no variable this loop assigns.
+     */
+    public boolean isInvariant(ExpressionNode expression) {
+        return expression.findAllVariables().stream().noneMatch(variable -> assigned.contains(variable.getName()));
+    }
+
+    /**
+     * The number of times the body starts, counting the last, partial iteration that exits. Statements
+     * before the exit test run this many times, and those after it one fewer.
+     *
+     * @param valuesOnEntry Known values of variables when the loop starts.
+     * @return Empty if the loop is not counted, if the counter, its step, or the bound is not known, or
+     *         if the loop never exits. Also empty if there is no closed form for the count and the loop
+     *         would run more than {@link #MAX_SIMULATED_ITERATIONS} times.
+     */
+    public OptionalLong tripCount(Map<String, Double> valuesOnEntry) {
+        if (!isCounted())
+            return OptionalLong.empty();
+        var conditional = exitTest.conditional();
+        boolean counterOnLeft = isSelf(conditional.getLhs(), counter.name());
+        var bound = evaluate(counterOnLeft ? conditional.getRhs() : conditional.getLhs(), valuesOnEntry);
+        var step = evaluate(counter.step(), valuesOnEntry);
+        var initial = valuesOnEntry.get(counter.name());
+        if (bound == null || step == null || initial == null)
+            return OptionalLong.empty();
+
+        boolean updatesFirst = counter.position() < exitTest.position();
+        if (counter.kind() == Kind.AFFINE && isExactInteger(initial) && isExactInteger(step) && isExactInteger(bound))
+            return exactTripCount(initial.longValue(), delta(counter, step), bound, counterOnLeft, updatesFirst);
+
+        double value = initial;
+        for (long iteration = 1; iteration <= MAX_SIMULATED_ITERATIONS; iteration++) {
+            if (updatesFirst)
+                value = counter.next(value, step);
+            if (exits(value, bound, counterOnLeft))
+                return OptionalLong.of(iteration);
+            if (!updatesFirst)
+                value = counter.next(value, step);
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * The value the induction variable holds after the loop ends, given the loop’s trip count.
+     *
+     * @return Null if the variable’s value or step on entry is not known, or if there is no closed
+     *         form for the value and working it out would take more than
+     *         {@link #MAX_SIMULATED_ITERATIONS} updates.
+     * @throws IllegalStateException if the loop is not counted.
+     */
+    public Double finalValue(InductionVariable variable, long tripCount, Map<String, Double> valuesOnEntry) {
+        if (!isCounted())
+            throw new IllegalStateException("Loop is not counted");
+        var initial = valuesOnEntry.get(variable.name());
+        var step = evaluate(variable.step(), valuesOnEntry);
+        if (initial == null || step == null)
+            return null;
+        long updates = (variable.position() < exitTest.position()) ? tripCount : tripCount - 1;
+        if (updates == 0)
+            return initial;
+
+        // A zero that steps by zero can change sign, which the closed form would lose
+        if (variable.kind() == Kind.AFFINE && isExactInteger(initial) && isExactInteger(step)
+            && (initial != 0 || step != 0)) {
+            try {
+                long value = Math.addExact(initial.longValue(), Math.multiplyExact(updates, delta(variable, step)));
+                if (Math.abs(value) <= MAX_EXACT_INTEGER)
+                    return (double) value;
+            } catch (ArithmeticException e) {
+                // Far out of exact range; so is the simulation below
+            }
+        }
+
+        if (updates > MAX_SIMULATED_ITERATIONS)
+            return null;
+        double value = initial;
+        for (long n = 0; n < updates; n++) {
+            value = variable.next(value, step);
+        }
+        return value;
+    }
+
+    /**
+     * The trip count of a loop whose counter starts at an exact integer and changes by an exact
+     * integer delta, compared with an exact integer bound.
+     *
+     * The counter’s values form an arithmetic sequence, and every exit test compares them with the
+     * bound, so it has the same outcome for all values on the same side of the bound. The first value
+     * tested that is at or past the bound is therefore the only place, apart from the one after it,
+     * where the test can first succeed.
+     */
+    private OptionalLong exactTripCount(long initial, long delta, double bound, boolean counterOnLeft, boolean updatesFirst) {
+        // The value tested on iteration i is the counter after i - 1 updates, or after i if it updates first
+        long first = updatesFirst ? 1 : 0;
+        long updates;
+        if (exits(initial + first * delta, bound, counterOnLeft)) {
+            updates = first;
+        } else {
+            long distance = (long) bound - (initial + first * delta);
+            if (delta == 0 || (distance != 0 && (distance < 0) != (delta < 0)))
+                return OptionalLong.empty();  // never reaches the bound
+            long reached = first + ceilDivide(Math.abs(distance), Math.abs(delta));
+            if (exits(initial + reached * delta, bound, counterOnLeft))
+                updates = reached;
+            else if (exits(initial + (reached + 1) * delta, bound, counterOnLeft))
+                updates = reached + 1;
+            else
+                return OptionalLong.empty();
+        }
+
+        // The values in between lie between the first and the last, so they are exact too. Bound,
+        // initial value, and delta are all at most 2^53, so none of this overflows.
+        if (Math.abs(initial + updates * delta) > MAX_EXACT_INTEGER)
+            return OptionalLong.empty();
+        return OptionalLong.of(updates - first + 1);
+    }
+
+    private boolean exits(double counterValue, double bound, boolean counterOnLeft) {
+        var conditional = exitTest.conditional();
+        boolean result = counterOnLeft
+            ? compare(conditional.getOperator(), counterValue, bound)
+            : compare(conditional.getOperator(), bound, counterValue);
+        return result == exitTest.exitsIfTrue();
+    }
+
+    // What one update of an affine variable adds to it
+    private static long delta(InductionVariable variable, double step) {
+        var operator = ((BinaryExpressionNode) variable.update().getExpression()).getOperator();
+        return (operator == BinaryExpressionNode.Operator.SUBTRACTION) ? -(long) step : (long) step;
+    }
+
+    private static long ceilDivide(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    private static boolean isExactInteger(double value) {
+        return Math.abs(value) <= MAX_EXACT_INTEGER && value == Math.rint(value);
+    }
+
+    private Kind classify(AssignmentNode assignment) {
+        if (!(assignment.getExpression() instanceof BinaryExpressionNode expression))
+            return null;
+        var name = assignment.getVariable().getName();
+        boolean selfLeft = isSelf(expression.getLhs(), name);
+        boolean selfRight = isSelf(expression.getRhs(), name);
+        if (selfLeft == selfRight)
+            return null;
+        if (!isInvariant(selfLeft ? expression.getRhs() : expression.getLhs()))
+            return null;
+        switch (expression.getOperator()) {
+            case ADDITION: {
+                return Kind.AFFINE;
+            }
+            case SUBTRACTION: {
+                return selfLeft ? Kind.AFFINE : null;
+            }
+            case MULTIPLICATION: {
+                return Kind.GEOMETRIC;
+            }
+            case DIVISION: {
+                return selfLeft ? Kind.GEOMETRIC : null;
+            }
+            default: {
+                return null;
+            }
+        }
+    }
+
+    private void findExitTest() {
+        if (countExits(loop.getBody()) != 1)
+            return;
+        for (int n = 0; n < body.size(); n++) {
+            if (!(body.get(n) instanceof ConditionalNode conditional))
+                continue;
+            boolean exitsIfTrue = conditional.getIfTrue() instanceof LoopExitNode && isEmpty(conditional.getIfFalse());
+            boolean exitsIfFalse = conditional.getIfFalse() instanceof LoopExitNode && isEmpty(conditional.getIfTrue());
+            if (!exitsIfTrue && !exitsIfFalse)
+                continue;
+
+            // The only exit is this test, so it decides whether the loop is counted
+            InductionVariable compared = null;
+            if (conditional.getLhs() instanceof VariableNode lhs && isInvariant(conditional.getRhs()))
+                compared = inductionVariables.get(lhs.getName());
+            if (compared == null && conditional.getRhs() instanceof VariableNode rhs && isInvariant(conditional.getLhs()))
+                compared = inductionVariables.get(rhs.getName());
+            if (compared != null) {
+                counter = compared;
+                exitTest = new ExitTest(conditional, n, exitsIfTrue);
+            }
+            return;
+        }
+    }
+
+    // Exits from nested loops leave only those loops, so they do not count
+    private static int countExits(StatementNode node) {
+        if (node instanceof LoopExitNode)
+            return 1;
+        if (node instanceof BlockNode block)
+            return block.getStatements().stream().mapToInt(InductionVariables::countExits).sum();
+        if (node instanceof ConditionalNode conditional)
+            return countExits(conditional.getIfTrue()) + countExits(conditional.getIfFalse());
+        return 0;
+    }
+
+    private static void countAssignments(StatementNode node, Map<String, Integer> counts) {
+        if (node instanceof AssignmentNode assignment) {
+            counts.merge(assignment.getVariable().getName(), 1, Integer::sum);
+        } else if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                countAssignments(statement, counts);
+            }
+        } else if (node instanceof ConditionalNode conditional) {
+            countAssignments(conditional.getIfTrue(), counts);
+            countAssignments(conditional.getIfFalse(), counts);
+        } else if (node instanceof LoopNode nested) {
+            countAssignments(nested.getBody(), counts);
+        }
+    }
+
+    // Null unless every variable the expression reads has a known value
+    private static Double evaluate(ExpressionNode expression, Map<String, Double> values) {
+        if (expression instanceof ConstantNode constant)
+            return constant.getValue();
+        if (expression instanceof VariableNode variable)
+            return values.get(variable.getName());
+        var context = new EvaluationContext();
+        for (var variable : expression.findAllVariables()) {
+            var value = values.get(variable.getName());
+            if (value == null)
+                return null;
+            context.set(variable.getName(), value);
+        }
+        return expression.evaluate(context);
+    }
+
+    private static boolean compare(ConditionalNode.Operator operator, double lhs, double rhs) {
+        switch (operator) {
+            case LESS_THAN: {
+                return lhs < rhs;
+            }
+            case EQUALS: {
+                return lhs == rhs;
+            }
+            case GREATER_THAN: {
+                return lhs > rhs;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + operator);
+            }
+        }
+    }
+
+    private static boolean isSelf(ExpressionNode expression, String name) {
+        return expression instanceof VariableNode variable && variable.getName().equals(name);
+    }
+
+    private static boolean isEmpty(StatementNode node) {
+        return node instanceof BlockNode block && block.getStatements().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "InductionVariables{variables=" + inOrder.stream().map(InductionVariable::name).toList()
+            + ", counter=" + (counter == null ? null : counter.name())
+            + '}';
+    }
+}
@@ -0,0 +1,152 @@
+package applu.optimizer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Which variables of an Applu program hold values that may still be read, at each assignment and at
+ * the program’s entry.
+ *
+ * A variable is live at a point if some path from there reads it before assigning it, or reaches the
+ * end of the program without assigning it and is one of the declared outputs. An assignment to a
+ * variable that is not live just after it is a dead store: removing it cannot change any output.
+ * Paths follow the program’s control flow, so a loop’s body flows back to its own start, and
+ * `exit loop` flows to whatever follows the innermost enclosing loop. An `exit loop` outside any loop
+ * ends the program, as it does when the interpreter throws {@link applu.interpreter.LoopExited}.
+ *
+ * Expressions have no side effects, so the analysis ignores reads made by dead stores themselves;
+ * a chain of temporaries that only feed one another is dead as a whole.
+ *
+ * The analysis only describes programs that finish normally. A program stopped part way, by a budget
+ * or an exception, leaves in its context whatever values it had assigned by then.
+ */
+public final class Liveness {
+    /**
+     * Analyzes the given program, treating the given variables as the ones its callers read after it
+     * finishes.
+     */
+    public static Liveness analyze(StatementNode program, Set<String> outputs) {
+        var analysis = new Liveness(program, outputs);
+        analysis.inputs = Collections.unmodifiableSet(analysis.liveBefore(program, analysis.outputs, analysis.outputs));
+        return analysis;
+    }
+
+    private final StatementNode program;
+    private final Set<String> outputs;
+    private Set<String> inputs;
+
+    // Identity, not equality: structurally equal assignments can sit at different points in the tree,
+    // and since nodes may be interned they can even be the same instance. An assignment is live if it
+    // is live at any of the points where it appears.
+    private final Set<AssignmentNode> assignments = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<AssignmentNode> liveAssignments = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Liveness(StatementNode program, Set<String> outputs) {
+        this.program = program;
+        this.outputs = Set.copyOf(outputs);
+    }
+
+    public StatementNode getProgram() {
+        return program;
+    }
+
+    /**
+     * The variables whose values callers read after the program finishes.
+     */
+    public Set<String> getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * The variables live at the program’s entry: those whose initial values can affect an output.
+     * Every other variable can start out with any value, or none, without changing the result.
+     */
+    public Set<String> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * True if some output can depend on the value this assignment stores.
+     *
+     * @throws IllegalArgumentException if the assignment is not part of the analyzed program.
+     */
+    public boolean isLive(AssignmentNode assignment) {
+        if (liveAssignments.contains(assignment))
+            return true;
+        if (!assignments.contains(assignment))
+            throw new IllegalArgumentException("Assignment is not part of the analyzed program: " + assignment);
+        return false;
+    }
+
+    /**
+     * Returns the variables live just before the statement runs, given those live just after it
+     * completes normally and those live after the innermost enclosing loop exits.
+     *
+     * Each loop iterates to a fixed point, starting from the assumption that nothing is live at the
+     * back-edge. Every intermediate result is a subset of the final one, so the assignments recorded
+     * as live along the way are exactly those live in the final result.
+     */
+    private Set<String> liveBefore(StatementNode statement, Set<String> liveAfter, Set<String> liveAfterLoop) {
+        if (statement instanceof AssignmentNode assignment) {
+            assignments.add(assignment);
+            var variable = assignment.getVariable().getName();
+            if (!liveAfter.contains(variable))
+                return liveAfter;
+            liveAssignments.add(assignment);
+            var result = new HashSet<>(liveAfter);
+            result.remove(variable);
+            addReads(assignment.getExpression(), result);
+            return result;
+        } else if (statement instanceof BlockNode block) {
+            var live = liveAfter;
+            var statements = block.getStatements();
+            for (int n = statements.size() - 1; n >= 0; n--) {
+                live = liveBefore(statements.get(n), live, liveAfterLoop);
+            }
+            return live;
+        } else if (statement instanceof ConditionalNode conditional) {
+            var result = new HashSet<>(liveBefore(conditional.getIfTrue(), liveAfter, liveAfterLoop));
+            result.addAll(liveBefore(conditional.getIfFalse(), liveAfter, liveAfterLoop));
+            addReads(conditional.getLhs(), result);
+            addReads(conditional.getRhs(), result);
+            return result;
+        } else if (statement instanceof LoopExitNode) {
+            return liveAfterLoop;
+        } else if (statement instanceof LoopNode loop) {
+            // The body completes normally only by going round again, and the loop ends only by exiting
+            Set<String> live = Set.of();
+            while (true) {
+                var next = liveBefore(loop.getBody(), live, liveAfter);
+                if (next.equals(live))
+                    return live;
+                live = next;
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown statement type: " + statement.getClass());
+        }
+    }
+
+    private static void addReads(ASTNode expression, Set<String> live) {
+        if (expression instanceof VariableNode variable)
+            live.add(variable.getName());
+        for (int n = 0, count = expression.childCount(); n < count; n++) {
+            addReads(expression.child(n), live);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Liveness{outputs=" + outputs + ", inputs=" + inputs + '}';
+    }
+}
@@ -0,0 +1,208 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Moves computations that give the same result on every iteration of a loop out of it: “loop: set x
+ * to x plus rate times scale squared. …” becomes “set $invariant1 to rate times scale squared. loop:
+ * set x to x plus $invariant1. …”.
+ *
+ * An operation is invariant if the loop assigns none of the variables it reads. Only whole
+ * subexpressions move, exactly as written; the pass never reassociates, so “x times rate times
+ * scale”, which means “(x times rate) times scale”, stays put. A hoisted value is computed by the
+ * same operations on the same operands as before, so results are identical bit for bit. Structurally
+ * equal invariants in one loop share a temporary. Outer loops are handled before the loops they
+ * contain, so an invariant moves as far out as it can in one step.
+ *
+ * Applu expressions cannot fail and have no side effects, so computing one that the loop would never
+ * have reached changes nothing but cost. To keep that cost away from loops that exit on their first
+ * iteration, a loop whose body starts with its exit test (“loop: if i equals n then exit loop. …”)
+ * gets a copy of that test in front of the hoisted code, and is skipped entirely if the test would
+ * exit. Other loops pay for at most one evaluation of each invariant per entry.
+ *
+ * The temporaries are ordinary variables, and remain in the context after the program runs.
+ */
+public final class LoopInvariantCodeMotion implements ProgramPass {
+    @Override
+    public String getName() {
+        return "LoopInvariantCodeMotion";
+    }
+
+    @Override
+    public Result apply(StatementNode program, Set<String> outputs) {
+        var hoister = new Hoister(new TemporaryNames(program, "invariant"));
+        var result = hoister.rewrite(program);
+        return new Result(result, hoister.hoistedCount);
+    }
+
+    private static final class Hoister {
+        private final TemporaryNames temporaries;
+        private int hoistedCount;
+
+        Hoister(TemporaryNames temporaries) {
+            this.temporaries = temporaries;
+        }
+
+        StatementNode rewrite(StatementNode node) {
+            if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean changed = false;
+                for (var statement : block.getStatements()) {
+                    var rewritten = rewrite(statement);
+                    statements.add(rewritten);
+                    changed |= (rewritten != statement);
+                }
+                return changed ? new BlockNode(statements) : block;
+            } else if (node instanceof ConditionalNode conditional) {
+                var ifTrue = rewrite(conditional.getIfTrue());
+                var ifFalse = rewrite(conditional.getIfFalse());
+                if (ifTrue == conditional.getIfTrue() && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), conditional.getLhs(), conditional.getRhs(), ifTrue, ifFalse);
+            } else if (node instanceof LoopNode loop) {
+                return hoist(loop);
+            } else if (node instanceof AssignmentNode || node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+
+        private StatementNode hoist(LoopNode loop) {
+            var assigned = new HashSet<String>();
+            findAssignedVariables(loop.getBody(), assigned);
+
+            Map<ExpressionNode, VariableNode> invariants = new LinkedHashMap<>();
+            var body = replaceInvariants(loop.getBody(), assigned, invariants);
+            body = rewrite(body);  // nested loops, minus what just moved out of them
+            if (invariants.isEmpty())
+                return (body == loop.getBody()) ? loop : new LoopNode(body);
+
+            hoistedCount += invariants.size();
+            List<StatementNode> statements = new ArrayList<>(invariants.size() + 1);
+            invariants.forEach((expression, temporary) -> statements.add(new AssignmentNode(temporary, expression)));
+            statements.add(new LoopNode(body));
+            var hoisted = new BlockNode(statements);
+
+            // The copied test uses the original expressions, since the temporaries are not yet set
+            var exitTest = leadingExitTest(loop.getBody());
+            if (exitTest == null)
+                return hoisted;
+            boolean exitsIfTrue = exitTest.getIfTrue() instanceof LoopExitNode;
+            return new ConditionalNode(
+                exitTest.getOperator(),
+                exitTest.getLhs(),
+                exitTest.getRhs(),
+                exitsIfTrue ? BlockNode.EMPTY : hoisted,
+                exitsIfTrue ? hoisted : BlockNode.EMPTY);
+        }
+
+        private StatementNode replaceInvariants(
+            StatementNode node,
+            Set<String> assigned,
+            Map<ExpressionNode, VariableNode> invariants) {
+            if (node instanceof AssignmentNode assignment) {
+                var expression = replaceInvariants(assignment.getExpression(), assigned, invariants);
+                return (expression == assignment.getExpression())
+                    ? assignment
+                    : new AssignmentNode(assignment.getVariable(), expression);
+            } else if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean changed = false;
+                for (var statement : block.getStatements()) {
+                    var replaced = replaceInvariants(statement, assigned, invariants);
+                    statements.add(replaced);
+                    changed |= (replaced != statement);
+                }
+                return changed ? new BlockNode(statements) : block;
+            } else if (node instanceof ConditionalNode conditional) {
+                var lhs = replaceInvariants(conditional.getLhs(), assigned, invariants);
+                var rhs = replaceInvariants(conditional.getRhs(), assigned, invariants);
+                var ifTrue = replaceInvariants(conditional.getIfTrue(), assigned, invariants);
+                var ifFalse = replaceInvariants(conditional.getIfFalse(), assigned, invariants);
+                if (lhs == conditional.getLhs()
+                    && rhs == conditional.getRhs()
+                    && ifTrue == conditional.getIfTrue()
+                    && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), lhs, rhs, ifTrue, ifFalse);
+            } else if (node instanceof LoopNode inner) {
+                var body = replaceInvariants(inner.getBody(), assigned, invariants);
+                return (body == inner.getBody()) ? inner : new LoopNode(body);
+            } else if (node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+
+        // Replaces each largest invariant operation with its temporary. Operations on constants alone
+        // are left for ConstantFolding, and bare variables and constants are already as cheap as a
+        // temporary would be.
+        private ExpressionNode replaceInvariants(
+            ExpressionNode node,
+            Set<String> assigned,
+            Map<ExpressionNode, VariableNode> invariants) {
+            if (!(node instanceof BinaryExpressionNode binary))
+                return node;
+            var reads = binary.findAllVariables();
+            if (!reads.isEmpty() && reads.stream().noneMatch(variable -> assigned.contains(variable.getName())))
+                return invariants.computeIfAbsent(binary, expression -> temporaries.next());
+
+            var lhs = replaceInvariants(binary.getLhs(), assigned, invariants);
+            var rhs = replaceInvariants(binary.getRhs(), assigned, invariants);
+            return (lhs == binary.getLhs() && rhs == binary.getRhs())
+                ? binary
+                : new BinaryExpressionNode(binary.getOperator(), lhs, rhs);
+        }
+    }
+
+    private static void findAssignedVariables(StatementNode node, Set<String> assigned) {
+        if (node instanceof AssignmentNode assignment) {
+            assigned.add(assignment.getVariable().getName());
+        } else if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                findAssignedVariables(statement, assigned);
+            }
+        } else if (node instanceof ConditionalNode conditional) {
+            findAssignedVariables(conditional.getIfTrue(), assigned);
+            findAssignedVariables(conditional.getIfFalse(), assigned);
+        } else if (node instanceof LoopNode loop) {
+            findAssignedVariables(loop.getBody(), assigned);
+        }
+    }
+
+    /**
+     * Returns the body’s first statement if it is “if … then exit loop” or “if … then [nothing] else
+     * exit loop”, or null otherwise.
+     */
+    private static ConditionalNode leadingExitTest(StatementNode body) {
+        var first = body;
+        if (body instanceof BlockNode block)
+            first = block.getStatements().isEmpty() ? null : block.getStatements().get(0);
+        if (first instanceof ConditionalNode conditional
+            && ((conditional.getIfTrue() instanceof LoopExitNode && isEmpty(conditional.getIfFalse()))
+                || (isEmpty(conditional.getIfTrue()) && conditional.getIfFalse() instanceof LoopExitNode)))
+            return conditional;
+        return null;
+    }
+
+    private static boolean isEmpty(StatementNode node) {
+        return node instanceof BlockNode block && block.getStatements().isEmpty();
+    }
+}
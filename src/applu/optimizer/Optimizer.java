@@ -0,0 +1,327 @@
+package applu.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+import applu.ir.ControlFlowGraph;
+
+/**
+ * Simplifies Applu ASTs by applying a set of {@link RewriteRule}s and {@link ProgramPass}es until
+ * none of them applies.
+ *
+ * Each pass walks the tree bottom-up. At every node, it first optimizes the children, then offers the
+ * node to each rule in turn, repeating until no rule changes it. Then it hands the whole program to
+ * each program pass in turn. Passes repeat until one makes no rewrites at all, or until the pass
+ * limit is reached. The input tree is never modified: unchanged
+ * subtrees are shared with the output, and changed ones are rebuilt.
+ *
+ * To optimize before interpreting, use {@link StatementNode#run(applu.interpreter.EvaluationContext, Optimizer)}
+ * or call {@link #optimize(StatementNode)} and run the result; to optimize before compiling, pass an
+ * optimizer to {@link applu.compiler.AppluCompiler#compile(StatementNode, String, Class, Optimizer)}.
+ *
+ * By default, every variable a program assigns counts as part of its result. An optimizer created by
+ * {@link #withOutputs} knows which variables callers will actually read, so that program passes such
+ * as {@link DeadStoreElimination} can remove assignments that cannot affect them. Both engines then skip
+ * that work: the interpreter never stores those values, and the compiler generates no fields for
+ * variables that are no longer mentioned.
+ *
+ * Programs already lowered to a {@link ControlFlowGraph} go through {@link SsaSimplification}
+ * instead, which works on the graph directly; see {@link #optimize(ControlFlowGraph)}.
+ *
+ * Thread-safe, provided its rules and program passes are. Every optimizer accumulates {@link OptimizerStatistics}.
+ */
+public final class Optimizer {
+    /**
+     * The default limit on passes per tree.
+     */
+    public static final int DEFAULT_MAX_PASSES = 16;
+
+    /**
+     * The rules {@link #standard()} uses, in the order it applies them.
+     */
+    public static List<RewriteRule> standardRules() {
+        return List.of(
+            new ConstantFolding(),
+            new AlgebraicSimplification(),
+            new ConditionalFolding(),
+            new SelfAssignmentElimination(),
+            new BlockFlattening());
+    }
+
+    /**
+     * The program passes {@link #standard()} uses, in the order it applies them.
+     */
+    public static List<ProgramPass> standardProgramPasses() {
+        return List.of(
+            new CountedLoopSimplification(),
+            new LoopInvariantCodeMotion(),
+            new CommonSubexpressionElimination(),
+            new DeadStoreElimination());
+    }
+
+    /**
+     * Creates an optimizer with the {@link #standardRules() standard rules} and
+     * {@link #standardProgramPasses() program passes}.
+     */
+    public static Optimizer standard() {
+        return new Optimizer(standardRules(), standardProgramPasses());
+    }
+
+    private final List<RewriteRule> rules;
+    private final List<ProgramPass> programPasses;
+    private final int maxPasses;
+    private final Set<String> outputs;  // null if every variable is an output
+    private final OptimizerStatistics statistics = new OptimizerStatistics();
+
+    public Optimizer(List<RewriteRule> rules) {
+        this(rules, List.of());
+    }
+
+    public Optimizer(List<RewriteRule> rules, int maxPasses) {
+        this(rules, List.of(), maxPasses);
+    }
+
+    public Optimizer(List<RewriteRule> rules, List<ProgramPass> programPasses) {
+        this(rules, programPasses, DEFAULT_MAX_PASSES);
+    }
+
+    public Optimizer(List<RewriteRule> rules, List<ProgramPass> programPasses, int maxPasses) {
+        this(rules, programPasses, maxPasses, null);
+    }
+
+    private Optimizer(List<RewriteRule> rules, List<ProgramPass> programPasses, int maxPasses, Set<String> outputs) {
+        if (maxPasses < 1)
+            throw new IllegalArgumentException("maxPasses must be positive, but was " + maxPasses);
+        this.rules = List.copyOf(rules);
+        this.programPasses = List.copyOf(programPasses);
+        this.maxPasses = maxPasses;
+        this.outputs = (outputs == null) ? null : Set.copyOf(outputs);
+    }
+
+    /**
+     * Returns an optimizer with the same rules and program passes that may assume callers read only the given variables
+     * after a program finishes. The new optimizer keeps its own statistics.
+     */
+    public Optimizer withOutputs(Set<String> outputs) {
+        return new Optimizer(rules, programPasses, maxPasses, outputs);
+    }
+
+    public List<RewriteRule> getRules() {
+        return rules;
+    }
+
+    public List<ProgramPass> getProgramPasses() {
+        return programPasses;
+    }
+
+    public int getMaxPasses() {
+        return maxPasses;
+    }
+
+    /**
+     * The variables declared by {@link #withOutputs}, or null if every variable is an output.
+     */
+    public Set<String> getOutputs() {
+        return outputs;
+    }
+
+    public OptimizerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns an equivalent, simplified version of the given program.
+     */
+    public StatementNode optimize(StatementNode program) {
+        var pass = new Pass();
+        StatementNode result = program;
+        do {
+            pass.begin();
+            result = pass.optimize(result);
+            result = pass.applyProgramPasses(result);
+        } while (pass.changed && pass.number < maxPasses);
+        pass.finish();
+        return result;
+    }
+
+    /**
+     * Simplifies the given graph in place with {@link SsaSimplification}, taking this optimizer’s
+     * declared outputs into account. The rules and program passes do not apply to graphs; optimize
+     * the program before lowering it to use them too. Rewrites are recorded under
+     * “SsaSimplification”.
+     *
+     * @return The same graph, for chaining.
+     */
+    public ControlFlowGraph optimize(ControlFlowGraph graph) {
+        int rewrites = SsaSimplification.simplify(graph, outputs);
+        statistics.recordTree(1);
+        if (rewrites > 0)
+            statistics.recordRewrites("SsaSimplification", rewrites);
+        return graph;
+    }
+
+    /**
+     * Returns an equivalent, simplified version of the given expression.
+     */
+    public ExpressionNode optimize(ExpressionNode expression) {
+        var pass = new Pass();
+        ExpressionNode result = expression;
+        do {
+            pass.begin();
+            result = pass.optimize(result);
+        } while (pass.changed && pass.number < maxPasses);
+        pass.finish();
+        return result;
+    }
+
+    /**
+     * The state of one call to optimize(), reused across that call’s passes.
+     */
+    private final class Pass {
+        private final long[] rewriteCounts = new long[rules.size()];
+        private final long[] programRewriteCounts = new long[programPasses.size()];
+        private int number;
+        private boolean changed;
+
+        void begin() {
+            number++;
+            changed = false;
+        }
+
+        void finish() {
+            statistics.recordTree(number);
+            for (int n = 0; n < rewriteCounts.length; n++) {
+                if (rewriteCounts[n] > 0)
+                    statistics.recordRewrites(rules.get(n).getName(), rewriteCounts[n]);
+            }
+            for (int n = 0; n < programRewriteCounts.length; n++) {
+                if (programRewriteCounts[n] > 0)
+                    statistics.recordRewrites(programPasses.get(n).getName(), programRewriteCounts[n]);
+            }
+        }
+
+        StatementNode applyProgramPasses(StatementNode program) {
+            for (int n = 0; n < programPasses.size(); n++) {
+                var result = programPasses.get(n).apply(program, outputs);
+                if (result.rewriteCount() > 0 && !result.program().equals(program)) {
+                    programRewriteCounts[n] += result.rewriteCount();
+                    changed = true;
+                    program = result.program();
+                }
+            }
+            return program;
+        }
+
+        StatementNode optimize(StatementNode node) {
+            node = optimizeChildren(node);
+            boolean rewritten;
+            do {
+                rewritten = false;
+                for (int n = 0; n < rules.size(); n++) {
+                    var replacement = rules.get(n).rewrite(node);
+                    if (isRewrite(node, replacement, n)) {
+                        node = replacement;
+                        rewritten = true;
+                    }
+                }
+            } while (rewritten);
+            return node;
+        }
+
+        ExpressionNode optimize(ExpressionNode node) {
+            node = optimizeChildren(node);
+            boolean rewritten;
+            do {
+                rewritten = false;
+                for (int n = 0; n < rules.size(); n++) {
+                    var replacement = rules.get(n).rewrite(node);
+                    if (isRewrite(node, replacement, n)) {
+                        node = replacement;
+                        rewritten = true;
+                    }
+                }
+            } while (rewritten);
+            return node;
+        }
+
+        // A rule that returns a new but structurally identical node has not made progress; counting
+        // that as a rewrite would loop forever.
+        private boolean isRewrite(Object node, Object replacement, int ruleIndex) {
+            if (replacement == node || replacement.equals(node))
+                return false;
+            rewriteCounts[ruleIndex]++;
+            changed = true;
+            return true;
+        }
+
+        private StatementNode optimizeChildren(StatementNode node) {
+            if (node instanceof BlockNode block) {
+                List<StatementNode> statements = new ArrayList<>(block.getStatements().size());
+                boolean childChanged = false;
+                for (var statement : block.getStatements()) {
+                    var optimized = optimize(statement);
+                    statements.add(optimized);
+                    childChanged |= (optimized != statement);
+                }
+                return childChanged ? new BlockNode(statements) : block;
+            } else if (node instanceof AssignmentNode assignment) {
+                var expression = optimize(assignment.getExpression());
+                return (expression == assignment.getExpression())
+                    ? assignment
+                    : new AssignmentNode(assignment.getVariable(), expression);
+            } else if (node instanceof ConditionalNode conditional) {
+                var lhs = optimize(conditional.getLhs());
+                var rhs = optimize(conditional.getRhs());
+                var ifTrue = optimize(conditional.getIfTrue());
+                var ifFalse = optimize(conditional.getIfFalse());
+                if (lhs == conditional.getLhs()
+                    && rhs == conditional.getRhs()
+                    && ifTrue == conditional.getIfTrue()
+                    && ifFalse == conditional.getIfFalse())
+                    return conditional;
+                return new ConditionalNode(conditional.getOperator(), lhs, rhs, ifTrue, ifFalse);
+            } else if (node instanceof LoopNode loop) {
+                var body = optimize(loop.getBody());
+                return (body == loop.getBody()) ? loop : new LoopNode(body);
+            } else if (node instanceof LoopExitNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+            }
+        }
+
+        private ExpressionNode optimizeChildren(ExpressionNode node) {
+            if (node instanceof BinaryExpressionNode binary) {
+                var lhs = optimize(binary.getLhs());
+                var rhs = optimize(binary.getRhs());
+                return (lhs == binary.getLhs() && rhs == binary.getRhs())
+                    ? binary
+                    : new BinaryExpressionNode(binary.getOperator(), lhs, rhs);
+            } else if (node instanceof ConstantNode || node instanceof VariableNode) {
+                return node;
+            } else {
+                throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Optimizer{rules=" + rules.stream().map(RewriteRule::getName).toList()
+            + ", programPasses=" + programPasses.stream().map(ProgramPass::getName).toList()
+            + ", maxPasses=" + maxPasses
+            + (outputs == null ? "" : ", outputs=" + outputs)
+            + '}';
+    }
+}
@@ -0,0 +1,80 @@
+package applu.optimizer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the work an {@link Optimizer} has done: how many trees it has optimized, how
+ * many passes over those trees it made, and how many rewrites each rule performed.
+ *
+ * Thread-safe, so that one optimizer can be shared by threads that compile concurrently.
+ */
+public final class OptimizerStatistics {
+    private final LongAdder trees = new LongAdder();
+    private final LongAdder passes = new LongAdder();
+    private final Map<String, LongAdder> rewritesByRule = new ConcurrentHashMap<>();
+
+    OptimizerStatistics() {
+    }
+
+    void recordTree(int passCount) {
+        trees.increment();
+        passes.add(passCount);
+    }
+
+    void recordRewrites(String ruleName, long count) {
+        rewritesByRule.computeIfAbsent(ruleName, name -> new LongAdder()).add(count);
+    }
+
+    /**
+     * The number of programs and expressions optimized so far.
+     */
+    public long getTreeCount() {
+        return trees.sum();
+    }
+
+    /**
+     * The total number of passes made over all trees, including each tree’s final pass that found
+     * nothing left to rewrite.
+     */
+    public long getPassCount() {
+        return passes.sum();
+    }
+
+    /**
+     * The number of times the named rule has rewritten a node.
+     */
+    public long getRewriteCount(String ruleName) {
+        var count = rewritesByRule.get(ruleName);
+        return (count == null) ? 0 : count.sum();
+    }
+
+    /**
+     * A snapshot of rewrite counts, keyed by rule name. Rules that have never fired are absent.
+     */
+    public Map<String, Long> getRewriteCounts() {
+        var result = new TreeMap<String, Long>();
+        rewritesByRule.forEach((name, count) -> result.put(name, count.sum()));
+        return result;
+    }
+
+    /**
+     * Clears all totals.
+     */
+    public void reset() {
+        trees.reset();
+        passes.reset();
+        rewritesByRule.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "OptimizerStatistics{"
+            + "trees=" + getTreeCount()
+            + ", passes=" + getPassCount()
+            + ", rewrites=" + getRewriteCounts()
+            + '}';
+    }
+}
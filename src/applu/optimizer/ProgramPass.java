@@ -0,0 +1,37 @@
+package applu.optimizer;
+
+import java.util.Set;
+
+import applu.ast.StatementNode;
+
+/**
+ * A transformation an {@link Optimizer} applies to a whole program at once, for optimizations that
+ * cannot decide anything from a single node the way a {@link RewriteRule} does: those that need to
+ * know what happens elsewhere in the program, or that introduce new variables which must not clash
+ * with any existing one.
+ *
+ * Each optimizer pass runs the rules over the tree, then each program pass in turn. The same
+ * requirements apply as for rules: a program pass must preserve the program’s behavior, and must
+ * eventually stop changing its own output.
+ */
+public interface ProgramPass {
+    /**
+     * The name under which {@link OptimizerStatistics} reports this pass’s rewrites.
+     */
+    String getName();
+
+    /**
+     * Transforms the given program.
+     *
+     * @param outputs The variables that callers read after the program finishes, or null if they may
+     *                read any variable.
+     * @return The result, and how many individual rewrites it took to get there.
+     */
+    Result apply(StatementNode program, Set<String> outputs);
+
+    record Result(StatementNode program, int rewriteCount) {
+        public static Result unchanged(StatementNode program) {
+            return new Result(program, 0);
+        }
+    }
+}
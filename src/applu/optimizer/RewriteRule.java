@@ -0,0 +1,36 @@
+package applu.optimizer;
+
+import applu.ast.ExpressionNode;
+import applu.ast.StatementNode;
+
+/**
+ * One local transformation an {@link Optimizer} can apply to an Applu AST.
+ *
+ * The optimizer offers every node to every rule, after it has already optimized that node’s
+ * children. A rule that does not apply to the node it is given must return that same node
+ * instance; anything else counts as a rewrite. Rewrites must preserve the program’s behavior, and
+ * a rule must not keep rewriting its own output forever, or the optimizer will only stop when it
+ * reaches its pass limit.
+ */
+public interface RewriteRule {
+    /**
+     * The name under which {@link OptimizerStatistics} reports this rule’s rewrites.
+     */
+    String getName();
+
+    /**
+     * Returns a replacement for the given expression, or the expression itself if this rule does not
+     * apply to it.
+     */
+    default ExpressionNode rewrite(ExpressionNode node) {
+        return node;
+    }
+
+    /**
+     * Returns a replacement for the given statement, or the statement itself if this rule does not
+     * apply to it.
+     */
+    default StatementNode rewrite(StatementNode node) {
+        return node;
+    }
+}
@@ -0,0 +1,25 @@
+package applu.optimizer;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Removes assignments of a variable to itself (“Set x to x”).
+ */
+public final class SelfAssignmentElimination implements RewriteRule {
+    @Override
+    public String getName() {
+        return "SelfAssignmentElimination";
+    }
+
+    @Override
+    public StatementNode rewrite(StatementNode node) {
+        if (node instanceof AssignmentNode assignment
+            && assignment.getExpression() instanceof VariableNode source
+            && source.getName().equals(assignment.getVariable().getName()))
+            return BlockNode.EMPTY;
+        return node;
+    }
+}
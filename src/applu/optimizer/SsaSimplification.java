@@ -0,0 +1,155 @@
+package applu.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import applu.ir.Constant;
+import applu.ir.ControlFlowGraph;
+import applu.ir.Operation;
+import applu.ir.Phi;
+import applu.ir.Terminator;
+import applu.ir.Value;
+
+/**
+ * Simplifies a program in {@linkplain ControlFlowGraph SSA form}, in place. Because every value has
+ * exactly one definition, the facts the tree passes have to track through assignments are local here:
+ * <ul>
+ * <li>An operation on two constants becomes a constant, computed exactly as the engines would.
+ * <li>A branch that compares two constants becomes a jump, and the blocks it can no longer reach go.
+ * <li>A phi whose operands are all the same value, once edges have gone, becomes that value.
+ * <li>Values that no return or branch needs, directly or indirectly, are removed. With declared
+ * outputs, returns only keep those variables, so whatever only feeds other variables goes too; this
+ * is {@link DeadStoreElimination} for graphs, loops included.
+ * </ul>
+ * These repeat until none applies.
+ */
+public final class SsaSimplification {
+    private SsaSimplification() {
+    }
+
+    /**
+     * Simplifies the graph.
+     *
+     * @param outputs The variables that callers read after the program finishes, or null if they may
+     *                read any variable.
+     * @return How many values, branches and return entries were replaced or removed.
+     */
+    public static int simplify(ControlFlowGraph graph, Set<String> outputs) {
+        int rewrites = 0;
+        if (outputs != null)
+            rewrites += keepOutputs(graph, outputs);
+        int round;
+        do {
+            round = foldOperations(graph) + foldBranches(graph) + removeTrivialPhis(graph);
+            rewrites += round;
+        } while (round > 0);
+        return rewrites + removeDeadValues(graph);
+    }
+
+    private static int keepOutputs(ControlFlowGraph graph, Set<String> outputs) {
+        int removed = 0;
+        for (var block : graph.getBlocks()) {
+            if (block.getTerminator() instanceof Terminator.Return ret) {
+                var variables = new LinkedHashMap<>(ret.variables());
+                if (variables.keySet().retainAll(outputs)) {
+                    removed += ret.variables().size() - variables.size();
+                    block.setTerminator(new Terminator.Return(variables, ret.loopExited()));
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static int foldOperations(ControlFlowGraph graph) {
+        int folded = 0;
+        for (var block : graph.getBlocks()) {
+            for (int n = 0; n < block.getInstructions().size(); n++) {
+                if (block.getInstructions().get(n) instanceof Operation operation
+                    && operation.getLhs() instanceof Constant lhs
+                    && operation.getRhs() instanceof Constant rhs) {
+                    var constant = block.insertConstant(n, operation.apply(lhs.getValue(), rhs.getValue()));
+                    graph.replaceAllUses(operation, constant);
+                    block.remove(operation);
+                    folded++;
+                }
+            }
+        }
+        return folded;
+    }
+
+    private static int foldBranches(ControlFlowGraph graph) {
+        int folded = 0;
+        for (var block : graph.getBlocks()) {
+            if (block.getTerminator() instanceof Terminator.Branch branch
+                && branch.lhs() instanceof Constant lhs
+                && branch.rhs() instanceof Constant rhs) {
+                block.jump(branch.test(lhs.getValue(), rhs.getValue()) ? branch.ifTrue() : branch.ifFalse());
+                folded++;
+            }
+        }
+        if (folded > 0)
+            graph.removeUnreachableBlocks();
+        return folded;
+    }
+
+    private static int removeTrivialPhis(ControlFlowGraph graph) {
+        int removed = 0;
+        for (var block : graph.getBlocks()) {
+            for (var phi : new ArrayList<>(block.getPhis())) {
+                Value same = null;
+                boolean trivial = true;
+                for (var operand : phi.getOperands()) {
+                    if (operand == phi || operand == same)
+                        continue;
+                    if (same != null) {
+                        trivial = false;
+                        break;
+                    }
+                    same = operand;
+                }
+                if (trivial && same != null) {
+                    graph.replaceAllUses(phi, same);
+                    block.remove(phi);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    // Marks what terminators need, then removes the rest, including cycles of phis that only feed
+    // each other
+    private static int removeDeadValues(ControlFlowGraph graph) {
+        Set<Value> live = new HashSet<>();
+        var pending = new ArrayDeque<Value>();
+        for (var block : graph.getBlocks()) {
+            pending.addAll(block.getTerminator().operands());
+        }
+        while (!pending.isEmpty()) {
+            var value = pending.pop();
+            if (live.add(value))
+                pending.addAll(value.getOperands());
+        }
+
+        int removed = 0;
+        for (var block : graph.getBlocks()) {
+            var dead = new ArrayList<Value>();
+            for (Phi phi : block.getPhis()) {
+                if (!live.contains(phi))
+                    dead.add(phi);
+            }
+            for (var instruction : block.getInstructions()) {
+                if (!live.contains(instruction))
+                    dead.add(instruction);
+            }
+            for (var value : dead) {
+                block.remove(value);
+            }
+            removed += dead.size();
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,36 @@
+package applu.optimizer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Hands out names for variables that a program pass introduces.
+ *
+ * Every name starts with `$` and ends with a number. The parser accepts neither character in a
+ * variable name, so a temporary can never clash with a variable the programmer wrote. It can clash
+ * with a temporary from an earlier pass, so names already used anywhere in the program are skipped.
+ * `$` is legal in Java identifiers, so both compilers accept temporaries as they are.
+ */
+final class TemporaryNames {
+    private final String prefix;
+    private final Set<String> taken = new HashSet<>();
+    private int counter;
+
+    TemporaryNames(StatementNode program, String purpose) {
+        this.prefix = "$" + purpose;
+        for (var variable : program.findAllVariables()) {
+            taken.add(variable.getName());
+        }
+    }
+
+    VariableNode next() {
+        String name;
+        do {
+            name = prefix + (++counter);
+        } while (!taken.add(name));
+        return new VariableNode(name);
+    }
+}
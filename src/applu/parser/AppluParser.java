@@ -1,14 +1,8 @@
 package applu.parser;
 
-import org.parboiled.BaseParser;
-import org.parboiled.Parboiled;
-import org.parboiled.Rule;
-import org.parboiled.annotations.BuildParseTree;
-import org.parboiled.parserunners.ReportingParseRunner;
-import org.parboiled.support.ParsingResult;
-import org.parboiled.support.Var;
-
-import applu.ast.ASTNode;
+import java.util.ArrayList;
+import java.util.List;
+
 import applu.ast.AssignmentNode;
 import applu.ast.BinaryExpressionNode;
 import applu.ast.BlockNode;
@@ -17,246 +11,480 @@ import applu.ast.ConstantNode;
 import applu.ast.ExpressionNode;
 import applu.ast.LoopExitNode;
 import applu.ast.LoopNode;
+import applu.ast.NodeInterner;
 import applu.ast.StatementNode;
 import applu.ast.VariableNode;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Parses programs or program fragments in the Applu language.
  * <p>
- * This parser uses the Parboiled parser eDSL. The source code here functions as a definition of the
- * Applu language grammar.
+ * This is a hand-written, single-pass recursive-descent parser with no dependencies. It reads the
+ * input in place, folding case and treating every whitespace character as a space as it goes, and
+ * builds AST nodes directly without any intermediate parse tree.
  * <p>
- * Large portions adapted from:
- * https://github.com/sirthias/parboiled/tree/master/examples-java/src/main/java/org/parboiled/examples/calculators/
- * 
- * @author Paul Cantrell
+ * The grammar is defined by {@link ParboiledAppluParser}, and this parser mirrors it rule for rule,
+ * including its backtracking behavior: each method below corresponds to the Parboiled rule of the
+ * same name, returns null (after restoring the input position) where that rule would fail, and
+ * produces exactly the same AST where it would succeed.
  */
-@BuildParseTree
-@SuppressWarnings("WeakerAccess")  // parboiled code generation requires greater visibility
-public class AppluParser extends BaseParser<ASTNode> {
+public final class AppluParser {
     public static StatementNode parseProgram(String input) {
-        return parse(input, INSTANCE.Sequence(INSTANCE.Program(), EOI), StatementNode.class);
+        return parseProgram(input, null);
     }
 
     public static StatementNode parseStatement(String input) {
-        return parse(input, INSTANCE.Sequence(INSTANCE.Statement(), EOI), StatementNode.class);
+        return parseStatement(input, null);
     }
 
     public static ExpressionNode parseExpression(String input) {
-        return parse(input, INSTANCE.Sequence(INSTANCE.Expression(), EOI), ExpressionNode.class);
-    }
-
-    private static final AppluParser INSTANCE = Parboiled.createParser(AppluParser.class);
-
-    private static <T extends ASTNode> T parse(String input, Rule rule, Class<T> expectedOutput) {
-        input = input
-            .toLowerCase()
-            .replaceAll("\\s", " ");
-        ParsingResult<T> result = new ReportingParseRunner<T>(rule).run(input);
-        if (result.hasErrors())
-            throw new ParseException(result);
-
-        var ast = result.parseTreeRoot.getValue();
-        if (ast == null)
-            throw new ParseException("Could not parse");
-        if (!expectedOutput.isAssignableFrom(ast.getClass()))
-            throw new ParseException("Expected parser to produce " + expectedOutput + ", but got " + ast.getClass());
-        return ast;
-    }
-
-    // –––––––––––– Grammar rules ––––––––––––
-
-    Rule Program() {
-        return Sequence(OptionalSpace(), Block(), EOI);
-    }
-
-    Rule Block() {
-        Var<List<StatementNode>> list = new Var<>(new ArrayList<>());
-        return Sequence(
-            OneOrMore(
-                Statement(),
-                OptionalSurroundingSpace("."),
-                list.get().add((StatementNode) pop())),
-            push(new BlockNode(list.get())));
-    }
-
-    Rule Statement() {
-        return FirstOf(
-            Assignment(),
-            Conditional(),
-            Loop(),
-            LoopExit());
-    }
-
-    Rule Conditional() {
-        Var<ConditionalNode.Operator> comparisonOperator = new Var<>();
-        return Sequence(
-            KeyPhrase("if"),
-            Expression(),
-            FirstOf(
-                Sequence(KeyPhrase("equals"), comparisonOperator.set(ConditionalNode.Operator.EQUALS)),
-                Sequence(KeyPhrase("is equal to"), comparisonOperator.set(ConditionalNode.Operator.EQUALS)),
-                Sequence(KeyPhrase("is less than"), comparisonOperator.set(ConditionalNode.Operator.LESS_THAN)),
-                Sequence(KeyPhrase("is greater than"), comparisonOperator.set(ConditionalNode.Operator.GREATER_THAN))),
-            Expression(),
-            FirstOf(
-                Sequence(
-                    KeyPhrase("then"),
-                    OptionalSurroundingSpace(":"),
-                    Block(),
-                    FirstOf(
-                        Sequence(
-                            KeyPhrase("else"),
-                            OptionalSurroundingSpace(":"),
-                            Block()),
-                        push(BlockNode.EMPTY)),
-                    KeyPhrase("end of conditional")),
-                Sequence(
-                    KeyPhrase("then"),
-                    Statement(),
-                    FirstOf(
-                        Sequence(KeyPhrase("else"), Statement()),
-                        push(BlockNode.EMPTY)))),
-            push(new ConditionalNode(
-                comparisonOperator.get(),
-                (ExpressionNode) pop(3),
-                (ExpressionNode) pop(2),
-                (StatementNode) pop(1),
-                (StatementNode) pop())));
-    }
-
-    Rule Loop() {
-        return Sequence(
-            KeyPhrase("loop"),
-            OptionalSurroundingSpace(":"),
-            Block(),
-            KeyPhrase("end of loop"),
-            push(new LoopNode((StatementNode) pop())));
-    }
-
-    Rule LoopExit() {
-        return Sequence(KeyPhrase("exit loop"), push(new LoopExitNode()));
-    }
-
-    Rule Assignment() {
-        return Sequence(
-            KeyPhrase("set"),
-            Variable(),
-            KeyPhrase("to"),
-            Expression(),
-            push(new AssignmentNode((VariableNode) pop(1), (ExpressionNode) pop())));
-    }
-
-    Rule Expression() {
-        return AdditiveExpression();
-    }
-
-    Rule AdditiveExpression() {
-        var op = new Var<BinaryExpressionNode.Operator>();
-        return Sequence(
-            MultiplicativeExpression(),
-            ZeroOrMore(
-                FirstOf(
-                    Sequence(KeyPhrase("plus"), op.set(BinaryExpressionNode.Operator.ADDITION)),
-                    Sequence(KeyPhrase("minus"), op.set(BinaryExpressionNode.Operator.SUBTRACTION))),
-                MultiplicativeExpression(),
-
-                push(new BinaryExpressionNode(op.get(), (ExpressionNode) pop(1), (ExpressionNode) pop()))));
-    }
-
-    Rule MultiplicativeExpression() {
-        var op = new Var<BinaryExpressionNode.Operator>();
-        return Sequence(
-            ExponentialExpression(),
-            ZeroOrMore(
-                FirstOf(
-                    Sequence(KeyPhrase("times"), op.set(BinaryExpressionNode.Operator.MULTIPLICATION)),
-                    Sequence(KeyPhrase("divided by"), op.set(BinaryExpressionNode.Operator.DIVISION))),
-                ExponentialExpression(),
-
-                push(new BinaryExpressionNode(op.get(), (ExpressionNode) pop(1), (ExpressionNode) pop()))));
-    }
-
-    @SuppressWarnings("InfiniteRecursion")  // parboiled instruments this so it doesn't actually infinitely recurse
-    Rule ExponentialExpression() {
-        return Sequence(
-            Atom(),
-            ZeroOrMore(
-                FirstOf(
-                    Sequence(
-                        KeyPhrase("to the power of"),
-                        ExponentialExpression(),  // note the exponentiation is right-associative
-                        push(new BinaryExpressionNode(BinaryExpressionNode.Operator.EXPONENTIATION,
-                            (ExpressionNode) pop(1),
-                            (ExpressionNode) pop()))),
-                    Sequence(
-                        KeyPhrase("squared"),
-                        push(new BinaryExpressionNode(BinaryExpressionNode.Operator.EXPONENTIATION,
-                            (ExpressionNode) pop(),
-                            new ConstantNode(2)))))));
-    }
-
-    Rule Atom() {
-        return FirstOf(Number(), Variable(), Parens());
-    }
-
-    Rule Parens() {
-        return Sequence(
-            OptionalSurroundingSpace("("),
-            Expression(),
-            OptionalSurroundingSpace(")"));
-    }
-
-    Rule Number() {
-        return Sequence(
-            // we use another Sequence in the "Number" Sequence so we can easily access the input text matched
-            // by the three enclosed rules with "match()" or "matchOrDefault()"
-            Sequence(
-                Optional('-'),
-                OneOrMore(Digit()),
-                Optional('.', OneOrMore(Digit()))),
-
-            // the matchOrDefault() call returns the matched input text of the immediately preceding rule
-            // or a default string (in this case if it is run during error recovery (resynchronization))
-            push(new ConstantNode(Double.parseDouble(matchOrDefault("0")))),
-            OptionalSpace());
-    }
-
-    Rule Variable() {
-        return Sequence(
-            OneOrMore(FirstOf(
-                CharRange('a', 'z'),
-                CharRange('A', 'Z'),
-                "_")),
-            push(new VariableNode(matchOrDefault("0"))),
-            OptionalSpace());
-    }
-
-    Rule KeyPhrase(String phrase) {
-        List<Object> rules = new ArrayList<>();
-        for (var word : phrase.split(" ")) {
-            rules.add(word);
-            rules.add(OptionalSpace());
+        return parseExpression(input, null);
+    }
+
+    /**
+     * Parses a program, building its AST through the given interner so that it shares subtrees with
+     * every other tree built by that interner.
+     *
+     * @param interner The interner to use, or null to build a tree of fresh nodes.
+     */
+    public static StatementNode parseProgram(String input, NodeInterner interner) {
+        var parser = new AppluParser(input, interner);
+        parser.optionalSpace();
+        return parser.finish(parser.block());
+    }
+
+    /**
+     * Parses a single statement, as {@link #parseProgram(String, NodeInterner)} does.
+     */
+    public static StatementNode parseStatement(String input, NodeInterner interner) {
+        var parser = new AppluParser(input, interner);
+        return parser.finish(parser.statement());
+    }
+
+    /**
+     * Parses a single expression, as {@link #parseProgram(String, NodeInterner)} does.
+     */
+    public static ExpressionNode parseExpression(String input, NodeInterner interner) {
+        var parser = new AppluParser(input, interner);
+        return parser.finish(parser.expression());
+    }
+
+    private final String input;
+    private final int length;
+    private final NodeInterner interner;
+    private int pos;
+
+    /**
+     * The furthest position at which any rule failed to match. When parsing fails, this is where the
+     * error is: everything before it was consumed by some rule that might have succeeded.
+     */
+    private int errorIndex;
+
+    private AppluParser(String input, NodeInterner interner) {
+        this.input = input;
+        this.length = input.length();
+        this.interner = interner;
+    }
+
+    private <T> T finish(T result) {
+        if (result == null || pos != length) {
+            if (result != null)
+                fail();  // matched a prefix but could not continue
+            throw error();
+        }
+        return result;
+    }
+
+    private ParseException error() {
+        int line = 1, column = 1;
+        for (int n = 0; n < errorIndex; n++) {
+            if (input.charAt(n) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        String found = (errorIndex < length)
+            ? "Invalid input '" + input.charAt(errorIndex) + "'"
+            : "Unexpected end of input";
+        return new ParseException(
+            found + " (line " + line + ", pos " + column + ")",
+            errorIndex,
+            Math.min(errorIndex + 1, length));
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    private BlockNode block() {
+        List<StatementNode> statements = new ArrayList<>();
+        while (true) {
+            int start = pos;
+            var statement = statement();
+            if (statement == null || !optionalSurroundingSpace('.')) {
+                pos = start;
+                break;
+            }
+            statements.add(statement);
+        }
+        return statements.isEmpty() ? null : blockNode(statements);
+    }
+
+    private StatementNode statement() {
+        StatementNode result = assignment();
+        if (result == null)
+            result = conditional();
+        if (result == null)
+            result = loop();
+        if (result == null)
+            result = loopExit();
+        return result;
+    }
+
+    private StatementNode conditional() {
+        int start = pos;
+        if (!keyPhrase("if"))
+            return null;
+
+        var lhs = expression();
+        ConditionalNode.Operator operator = null;
+        if (lhs != null) {
+            if (keyPhrase("equals") || keyPhrase("is equal to"))
+                operator = ConditionalNode.Operator.EQUALS;
+            else if (keyPhrase("is less than"))
+                operator = ConditionalNode.Operator.LESS_THAN;
+            else if (keyPhrase("is greater than"))
+                operator = ConditionalNode.Operator.GREATER_THAN;
+        }
+        var rhs = (operator == null) ? null : expression();
+        if (rhs == null) {
+            pos = start;
+            return null;
+        }
+
+        // Block form: “then: … else: … end of conditional”
+        int branchStart = pos;
+        if (keyPhrase("then") && optionalSurroundingSpace(':')) {
+            StatementNode ifTrue = block();
+            if (ifTrue != null) {
+                int elseStart = pos;
+                StatementNode ifFalse = null;
+                if (keyPhrase("else") && optionalSurroundingSpace(':'))
+                    ifFalse = block();
+                if (ifFalse == null) {
+                    pos = elseStart;
+                    ifFalse = blockNode(List.of());
+                }
+                if (keyPhrase("end of conditional"))
+                    return conditionalNode(operator, lhs, rhs, ifTrue, ifFalse);
+            }
+        }
+
+        // Single-statement form: “then … else …”
+        pos = branchStart;
+        if (keyPhrase("then")) {
+            var ifTrue = statement();
+            if (ifTrue != null) {
+                int elseStart = pos;
+                StatementNode ifFalse = null;
+                if (keyPhrase("else"))
+                    ifFalse = statement();
+                if (ifFalse == null) {
+                    pos = elseStart;
+                    ifFalse = blockNode(List.of());
+                }
+                return conditionalNode(operator, lhs, rhs, ifTrue, ifFalse);
+            }
+        }
+
+        pos = start;
+        return null;
+    }
+
+    private StatementNode loop() {
+        int start = pos;
+        if (keyPhrase("loop") && optionalSurroundingSpace(':')) {
+            var body = block();
+            if (body != null && keyPhrase("end of loop"))
+                return loopNode(body);
         }
-        return Sequence(rules.toArray());
+        pos = start;
+        return null;
+    }
+
+    private StatementNode loopExit() {
+        return keyPhrase("exit loop") ? loopExitNode() : null;
+    }
+
+    private StatementNode assignment() {
+        int start = pos;
+        if (keyPhrase("set")) {
+            var variable = variable();
+            if (variable != null && keyPhrase("to")) {
+                var expression = expression();
+                if (expression != null)
+                    return assignmentNode(variable, expression);
+            }
+        }
+        pos = start;
+        return null;
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    private ExpressionNode expression() {
+        return additiveExpression();
+    }
+
+    private ExpressionNode additiveExpression() {
+        var result = multiplicativeExpression();
+        if (result == null)
+            return null;
+        while (true) {
+            int start = pos;
+            BinaryExpressionNode.Operator operator;
+            if (keyPhrase("plus"))
+                operator = BinaryExpressionNode.Operator.ADDITION;
+            else if (keyPhrase("minus"))
+                operator = BinaryExpressionNode.Operator.SUBTRACTION;
+            else
+                return result;
+
+            var rhs = multiplicativeExpression();
+            if (rhs == null) {
+                pos = start;
+                return result;
+            }
+            result = binaryNode(operator, result, rhs);
+        }
+    }
+
+    private ExpressionNode multiplicativeExpression() {
+        var result = exponentialExpression();
+        if (result == null)
+            return null;
+        while (true) {
+            int start = pos;
+            BinaryExpressionNode.Operator operator;
+            if (keyPhrase("times"))
+                operator = BinaryExpressionNode.Operator.MULTIPLICATION;
+            else if (keyPhrase("divided by"))
+                operator = BinaryExpressionNode.Operator.DIVISION;
+            else
+                return result;
+
+            var rhs = exponentialExpression();
+            if (rhs == null) {
+                pos = start;
+                return result;
+            }
+            result = binaryNode(operator, result, rhs);
+        }
+    }
+
+    private ExpressionNode exponentialExpression() {
+        var result = atom();
+        if (result == null)
+            return null;
+        while (true) {
+            int start = pos;
+            if (keyPhrase("to the power of")) {
+                var exponent = exponentialExpression();  // note the exponentiation is right-associative
+                if (exponent == null) {
+                    pos = start;
+                    return result;
+                }
+                result = binaryNode(BinaryExpressionNode.Operator.EXPONENTIATION, result, exponent);
+            } else if (keyPhrase("squared")) {
+                result = binaryNode(BinaryExpressionNode.Operator.EXPONENTIATION, result, constantNode(2));
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private ExpressionNode atom() {
+        ExpressionNode result = number();
+        if (result == null)
+            result = variable();
+        if (result == null)
+            result = parens();
+        return result;
+    }
+
+    private ExpressionNode parens() {
+        int start = pos;
+        if (optionalSurroundingSpace('(')) {
+            var expression = expression();
+            if (expression != null && optionalSurroundingSpace(')'))
+                return expression;
+        }
+        pos = start;
+        return null;
+    }
+
+    private ExpressionNode number() {
+        int start = pos, end = pos;
+        if (end < length && input.charAt(end) == '-')
+            end++;
+        int digitsStart = end;
+        end = skipDigits(end);
+        if (end == digitsStart) {
+            fail(end);
+            return null;
+        }
+        if (end < length && input.charAt(end) == '.') {
+            int fractionEnd = skipDigits(end + 1);
+            if (fractionEnd > end + 1)
+                end = fractionEnd;
+            else
+                fail(end + 1);
+        }
+        pos = end;
+        var result = constantNode(Double.parseDouble(input.substring(start, end)));
+        optionalSpace();
+        return result;
+    }
+
+    private int skipDigits(int index) {
+        while (index < length && isDigit(input.charAt(index)))
+            index++;
+        return index;
+    }
+
+    private VariableNode variable() {
+        int start = pos, end = pos;
+        boolean needsLowercasing = false;
+        while (end < length) {
+            char c = input.charAt(end);
+            if ((c >= 'a' && c <= 'z') || c == '_') {
+                end++;
+            } else if (c >= 'A' && c <= 'Z') {
+                needsLowercasing = true;
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (end == start) {
+            fail(end);
+            return null;
+        }
+        pos = end;
+        var name = input.substring(start, end);
+        var result = variableNode(needsLowercasing ? name.toLowerCase() : name);
+        optionalSpace();
+        return result;
+    }
+
+    // –––––––––––– Node construction ––––––––––––
+
+    private ConstantNode constantNode(double value) {
+        return (interner == null) ? new ConstantNode(value) : interner.constant(value);
+    }
+
+    private VariableNode variableNode(String name) {
+        return (interner == null) ? new VariableNode(name) : interner.variable(name);
+    }
+
+    private ExpressionNode binaryNode(BinaryExpressionNode.Operator operator, ExpressionNode lhs, ExpressionNode rhs) {
+        return (interner == null)
+            ? new BinaryExpressionNode(operator, lhs, rhs)
+            : interner.binary(operator, lhs, rhs);
+    }
+
+    private StatementNode assignmentNode(VariableNode variable, ExpressionNode expression) {
+        return (interner == null)
+            ? new AssignmentNode(variable, expression)
+            : interner.assignment(variable, expression);
+    }
+
+    private StatementNode conditionalNode(
+        ConditionalNode.Operator operator,
+        ExpressionNode lhs,
+        ExpressionNode rhs,
+        StatementNode ifTrue,
+        StatementNode ifFalse) {
+        return (interner == null)
+            ? new ConditionalNode(operator, lhs, rhs, ifTrue, ifFalse)
+            : interner.conditional(operator, lhs, rhs, ifTrue, ifFalse);
+    }
+
+    private StatementNode loopNode(StatementNode body) {
+        return (interner == null) ? new LoopNode(body) : interner.loop(body);
+    }
+
+    private StatementNode loopExitNode() {
+        return (interner == null) ? new LoopExitNode() : interner.loopExit();
+    }
+
+    private BlockNode blockNode(List<StatementNode> statements) {
+        if (interner != null)
+            return interner.block(statements);
+        return statements.isEmpty() ? BlockNode.EMPTY : new BlockNode(statements);
+    }
+
+    // –––––––––––– Lexical rules ––––––––––––
+
+    /**
+     * Matches a keyword phrase case-insensitively, followed by optional whitespace. Whitespace between
+     * the phrase’s words is optional too (as in the reference grammar, “end of loop” also matches
+     * “endofloop”). Leaves the position unchanged if the phrase does not match.
+     */
+    private boolean keyPhrase(String phrase) {
+        int index = pos;
+        for (int n = 0; n < phrase.length(); n++) {
+            char expected = phrase.charAt(n);
+            if (expected == ' ') {
+                index = skipSpace(index);
+            } else if (index < length && Character.toLowerCase(input.charAt(index)) == expected) {
+                index++;
+            } else {
+                fail(index);
+                return false;
+            }
+        }
+        pos = skipSpace(index);
+        return true;
+    }
+
+    private boolean optionalSurroundingSpace(char content) {
+        int index = skipSpace(pos);
+        if (index < length && input.charAt(index) == content) {
+            pos = skipSpace(index + 1);
+            return true;
+        }
+        fail(index);
+        return false;
+    }
+
+    private void optionalSpace() {
+        pos = skipSpace(pos);
+    }
+
+    private int skipSpace(int index) {
+        while (index < length && isSpace(input.charAt(index)))
+            index++;
+        return index;
     }
 
-    Rule Space() {
-        return OneOrMore(" ");  // parse() normalizes all whitespace chars to spaces
+    private void fail() {
+        fail(pos);
     }
 
-    Rule OptionalSpace() {
-        return ZeroOrMore(" ");
+    private void fail(int index) {
+        if (index > errorIndex)
+            errorIndex = index;
     }
 
-    Rule OptionalSurroundingSpace(Object content) {
-        return Sequence(OptionalSpace(), content, OptionalSpace());
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 
-    Rule Digit() {
-        return CharRange('0', '9');
+    /**
+     * Matches the same characters as the `\s` regex class, which the reference grammar normalizes to
+     * spaces before parsing.
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
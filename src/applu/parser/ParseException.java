@@ -1,34 +1,38 @@
 package applu.parser;
 
-import org.parboiled.errors.ErrorUtils;
-import org.parboiled.errors.ParseError;
-import org.parboiled.support.ParsingResult;
-
 /**
  * A syntax error in an Applu program.
  * 
  * @author Paul Cantrell
  */
 public class ParseException extends RuntimeException {
-    private final ParsingResult<?> parseResult;
+    private final int startIndex, endIndex;
 
     public ParseException(String message) {
-        super(message);
-        parseResult = null;
+        this(message, -1, -1);
     }
 
-    public ParseException(ParsingResult<?> parseResult) {
-        super(ErrorUtils.printParseErrors(parseResult));
-        this.parseResult = parseResult;
+    /**
+     * @param startIndex The index in the input of the first character of the error, or -1 if unknown.
+     * @param endIndex   The index in the input just past the error, or -1 if unknown.
+     */
+    public ParseException(String message, int startIndex, int endIndex) {
+        super(message);
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
     }
 
-    public ParsingResult<?> getParseResult() {
-        return parseResult;
+    /**
+     * The index in the input of the first character of the error, or -1 if unknown.
+     */
+    public int getStartIndex() {
+        return startIndex;
     }
 
-    public ParseError getFirstError() {
-        if (parseResult == null || parseResult.parseErrors.isEmpty())
-            return null;
-        return parseResult.parseErrors.get(0);
+    /**
+     * The index in the input just past the error, or -1 if unknown.
+     */
+    public int getEndIndex() {
+        return endIndex;
     }
 }
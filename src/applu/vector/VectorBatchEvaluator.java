@@ -0,0 +1,153 @@
+package applu.vector;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import applu.ast.StatementNode;
+import applu.interpreter.BatchEvaluator;
+
+/**
+ * Runs one Applu program over many rows of columnar input, like {@link BatchEvaluator}, but evaluates
+ * loop-free programs with SIMD kernels from the incubating Vector API: each operation processes a
+ * whole block of rows, several lanes per instruction, and conditionals become masked blends.
+ *
+ * Programs that contain loops cannot be evaluated lane-parallel, because different rows would need
+ * different numbers of iterations. For those, this class falls back to the scalar
+ * {@link BatchEvaluator}. Either way, results are identical to running each row in the interpreter.
+ *
+ * The JVM must be started with `--add-modules jdk.incubator.vector`.
+ *
+ * Thread-safe: one evaluator can serve concurrent batches.
+ */
+public final class VectorBatchEvaluator {
+    /**
+     * How many leaf tasks to aim for per worker thread, so that workers that finish early can steal
+     * remaining blocks.
+     */
+    private static final int TASKS_PER_THREAD = 8;
+
+    private final VectorKernel kernel;
+    private final BatchEvaluator fallback;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an evaluator that runs on the common fork-join pool.
+     */
+    public VectorBatchEvaluator(StatementNode program) {
+        this(program, ForkJoinPool.commonPool());
+    }
+
+    public VectorBatchEvaluator(StatementNode program, ForkJoinPool pool) {
+        if (VectorCompiler.canCompile(program)) {
+            this.kernel = VectorCompiler.compile(program);
+            this.fallback = null;
+        } else {
+            this.kernel = null;
+            this.fallback = new BatchEvaluator(program, pool);
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * True if this evaluator runs SIMD kernels; false if the program has loops, and so runs on the
+     * scalar {@link BatchEvaluator}.
+     */
+    public boolean isVectorized() {
+        return kernel != null;
+    }
+
+    /**
+     * Runs the program once per row. Inputs, outputs, and errors are as described for
+     * {@link BatchEvaluator#evaluate}.
+     */
+    public Map<String, double[]> evaluate(Map<String, double[]> inputs, List<String> outputs) {
+        if (fallback != null)
+            return fallback.evaluate(inputs, outputs);
+
+        int rowCount = BatchEvaluator.rowCount(inputs);
+        var variableNames = kernel.getVariableNames();
+        double[][] inputColumns = new double[variableNames.length][];
+        double[][] outputColumns = new double[variableNames.length][];
+        for (int n = 0; n < variableNames.length; n++) {
+            inputColumns[n] = inputs.get(variableNames[n]);
+        }
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (var name : outputs) {
+            var column = new double[rowCount];
+            results.put(name, column);
+            int variable = Arrays.asList(variableNames).indexOf(name);
+            if (variable >= 0)
+                outputColumns[variable] = column;
+            else if (inputs.containsKey(name))
+                System.arraycopy(inputs.get(name), 0, column, 0, rowCount);
+        }
+
+        int blockCount = (rowCount + VectorKernel.BLOCK_SIZE - 1) / VectorKernel.BLOCK_SIZE;
+        int blocksPerTask = Math.max(1, blockCount / (pool.getParallelism() * TASKS_PER_THREAD));
+        pool.invoke(new BlockRange(inputColumns, outputColumns, rowCount, blocksPerTask, 0, blockCount));
+        return results;
+    }
+
+    /**
+     * A range of blocks. Column arrays are indexed by variable; null means the variable is not an
+     * input (so starts at zero) or not an output.
+     */
+    private final class BlockRange extends RecursiveAction {
+        private final double[][] inputColumns, outputColumns;
+        private final int rowCount, blocksPerTask, startBlock, endBlock;
+
+        BlockRange(
+            double[][] inputColumns,
+            double[][] outputColumns,
+            int rowCount,
+            int blocksPerTask,
+            int startBlock,
+            int endBlock) {
+            this.inputColumns = inputColumns;
+            this.outputColumns = outputColumns;
+            this.rowCount = rowCount;
+            this.blocksPerTask = blocksPerTask;
+            this.startBlock = startBlock;
+            this.endBlock = endBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBlock - startBlock > blocksPerTask) {
+                int middle = (startBlock + endBlock) >>> 1;
+                invokeAll(
+                    new BlockRange(inputColumns, outputColumns, rowCount, blocksPerTask, startBlock, middle),
+                    new BlockRange(inputColumns, outputColumns, rowCount, blocksPerTask, middle, endBlock));
+            } else {
+                runBlocks();
+            }
+        }
+
+        private void runBlocks() {
+            var registers = kernel.createRegisters();
+            for (int block = startBlock; block < endBlock; block++) {
+                int firstRow = block * VectorKernel.BLOCK_SIZE;
+                int rows = Math.min(VectorKernel.BLOCK_SIZE, rowCount - firstRow);
+
+                for (int n = 0; n < inputColumns.length; n++) {
+                    if (inputColumns[n] != null)
+                        System.arraycopy(inputColumns[n], firstRow, registers.variable(n), 0, rows);
+                    else
+                        Arrays.fill(registers.variable(n), 0, rows, 0);
+                }
+
+                kernel.run(registers, rows);
+
+                for (int n = 0; n < outputColumns.length; n++) {
+                    if (outputColumns[n] != null)
+                        System.arraycopy(registers.variable(n), 0, outputColumns[n], firstRow, rows);
+                }
+            }
+        }
+    }
+}
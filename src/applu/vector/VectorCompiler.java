@@ -0,0 +1,254 @@
+package applu.vector;
+
+import static applu.vector.VectorOpcodes.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+/**
+ * Lowers a loop-free Applu program to a {@link VectorKernel}.
+ *
+ * Registers are laid out as in {@link applu.vm.VmCompiler}: variables, then constants, then
+ * temporaries in stack order. Conditionals are if-converted: both branches run for every row, and
+ * each assignment inside a branch blends its new value into the variable only in rows where the
+ * branch’s mask is set. That is equivalent to branching row by row, because a branch only ever
+ * writes rows the other branch does not read.
+ */
+final class VectorCompiler {
+    /**
+     * True if the program contains no loops (and no stray `exit loop`), and so can run as a kernel.
+     */
+    static boolean canCompile(ASTNode node) {
+        if (node instanceof LoopNode || node instanceof LoopExitNode)
+            return false;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            if (!canCompile(node.child(n)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the program contains a loop
+     */
+    static VectorKernel compile(StatementNode program) {
+        if (!canCompile(program))
+            throw new IllegalArgumentException("Only loop-free programs can be vectorized");
+        var compiler = new VectorCompiler(program);
+        compiler.compile(program, -1);
+        return compiler.build();
+    }
+
+    private final Map<String, Integer> variableRegisters = new LinkedHashMap<>();
+    private final Map<Long, Integer> constantRegisters = new LinkedHashMap<>();
+    private final List<Double> constants = new ArrayList<>();
+    private int nextTemporary, registerCount;
+    private int nextMask, maskCount;
+
+    private int[] code = new int[64];
+    private int codeSize;
+
+    private VectorCompiler(StatementNode program) {
+        allocateRegisters(program);
+        constantRegisters.replaceAll((bits, index) -> index + variableRegisters.size());
+        nextTemporary = registerCount = variableRegisters.size() + constants.size();
+    }
+
+    private void allocateRegisters(ASTNode node) {
+        if (node instanceof VariableNode variable) {
+            variableRegisters.putIfAbsent(variable.getName(), variableRegisters.size());
+        } else if (node instanceof ConstantNode constant) {
+            long bits = Double.doubleToRawLongBits(constant.getValue());
+            if (!constantRegisters.containsKey(bits)) {
+                constantRegisters.put(bits, constants.size());
+                constants.add(constant.getValue());
+            }
+        }
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            allocateRegisters(node.child(n));
+        }
+    }
+
+    private VectorKernel build() {
+        double[] constantPool = new double[constants.size()];
+        for (int n = 0; n < constantPool.length; n++) {
+            constantPool[n] = constants.get(n);
+        }
+        return new VectorKernel(
+            Arrays.copyOf(code, codeSize),
+            variableRegisters.keySet().toArray(new String[0]),
+            constantPool,
+            registerCount,
+            maskCount);
+    }
+
+    private void emit(int opcode, int a, int b, int c) {
+        if (codeSize + WIDTH > code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        code[codeSize++] = opcode;
+        code[codeSize++] = a;
+        code[codeSize++] = b;
+        code[codeSize++] = c;
+    }
+
+    private int allocateTemporary() {
+        int register = nextTemporary++;
+        registerCount = Math.max(registerCount, nextTemporary);
+        return register;
+    }
+
+    private int allocateMask() {
+        int mask = nextMask++;
+        maskCount = Math.max(maskCount, nextMask);
+        return mask;
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    /**
+     * @param mask The mask register selecting the rows this statement applies to, or -1 for all rows.
+     */
+    private void compile(StatementNode node, int mask) {
+        if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                compile(statement, mask);
+            }
+        } else if (node instanceof AssignmentNode assignment) {
+            int variable = variableRegisters.get(assignment.getVariable().getName());
+            if (mask < 0) {
+                compile(assignment.getExpression(), variable);
+            } else {
+                int temporaryMark = nextTemporary;
+                int value = compile(assignment.getExpression(), -1);
+                emit(BLEND, variable, value, mask);
+                nextTemporary = temporaryMark;
+            }
+        } else if (node instanceof ConditionalNode conditional) {
+            compileConditional(conditional, mask);
+        } else {
+            throw new IllegalArgumentException("Cannot vectorize statement type: " + node.getClass());
+        }
+    }
+
+    private void compileConditional(ConditionalNode conditional, int mask) {
+        int maskMark = nextMask;
+
+        int temporaryMark = nextTemporary;
+        int lhs = compile(conditional.getLhs(), -1);
+        int rhs = compile(conditional.getRhs(), -1);
+        nextTemporary = temporaryMark;
+
+        int condition = allocateMask();
+        emit(comparisonOpcode(conditional.getOperator()), condition, lhs, rhs);
+
+        int ifTrue = condition;
+        if (mask >= 0) {
+            ifTrue = allocateMask();
+            emit(AND, ifTrue, mask, condition);
+        }
+        compile(conditional.getIfTrue(), ifTrue);
+
+        if (!isEmpty(conditional.getIfFalse())) {
+            int ifFalse = allocateMask();
+            if (mask >= 0)
+                emit(AND_NOT, ifFalse, mask, condition);
+            else
+                emit(NOT, ifFalse, condition, 0);
+            compile(conditional.getIfFalse(), ifFalse);
+        }
+
+        nextMask = maskMark;
+    }
+
+    private static int comparisonOpcode(ConditionalNode.Operator operator) {
+        switch (operator) {
+            case LESS_THAN: {
+                return LT;
+            }
+            case EQUALS: {
+                return EQ;
+            }
+            case GREATER_THAN: {
+                return GT;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + operator);
+            }
+        }
+    }
+
+    private static boolean isEmpty(StatementNode node) {
+        return node instanceof BlockNode block && block.getStatements().isEmpty();
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    /**
+     * Emits code for an expression.
+     *
+     * @param target The register that must receive the result, or -1 to let the compiler choose.
+     * @return The register that holds the result.
+     */
+    private int compile(ExpressionNode node, int target) {
+        int result;
+        if (node instanceof ConstantNode constant) {
+            result = constantRegisters.get(Double.doubleToRawLongBits(constant.getValue()));
+        } else if (node instanceof VariableNode variable) {
+            result = variableRegisters.get(variable.getName());
+        } else if (node instanceof BinaryExpressionNode binary) {
+            int mark = nextTemporary;
+            int lhs = compile(binary.getLhs(), -1);
+            int rhs = compile(binary.getRhs(), -1);
+            nextTemporary = mark;
+            int destination = (target >= 0) ? target : allocateTemporary();
+            emit(arithmeticOpcode(binary.getOperator()), destination, lhs, rhs);
+            return destination;
+        } else {
+            throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+        }
+
+        if (target >= 0 && target != result) {
+            emit(MOV, target, result, 0);
+            return target;
+        }
+        return result;
+    }
+
+    private static int arithmeticOpcode(BinaryExpressionNode.Operator operator) {
+        switch (operator) {
+            case ADDITION: {
+                return ADD;
+            }
+            case SUBTRACTION: {
+                return SUB;
+            }
+            case MULTIPLICATION: {
+                return MUL;
+            }
+            case DIVISION: {
+                return DIV;
+            }
+            case EXPONENTIATION: {
+                return POW;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+    }
+}
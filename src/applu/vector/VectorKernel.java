@@ -0,0 +1,279 @@
+package applu.vector;
+
+import static applu.vector.VectorOpcodes.*;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A loop-free Applu program compiled by {@link VectorCompiler} to run over a block of rows at a time.
+ * Each instruction is one tight loop over the block that processes {@link #SPECIES} lanes per
+ * iteration, so the cost of dispatching on the opcode is paid once per block, not once per row.
+ *
+ * Exponentiation is the exception: it runs lane by lane through `Math.pow`, because the Vector API’s
+ * `POW` may differ from `Math.pow` in the last bit, and the kernel must agree with the scalar engines
+ * exactly.
+ *
+ * Immutable. Each thread running a kernel needs its own {@link Registers}.
+ */
+final class VectorKernel {
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * Rows per block: large enough to amortize dispatch, small enough that a block’s registers stay
+     * in cache.
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    private final int[] code;
+    private final String[] variableNames;
+    private final double[] constants;
+    private final int registerCount, maskCount;
+
+    VectorKernel(int[] code, String[] variableNames, double[] constants, int registerCount, int maskCount) {
+        this.code = code;
+        this.variableNames = variableNames;
+        this.constants = constants;
+        this.registerCount = registerCount;
+        this.maskCount = maskCount;
+    }
+
+    /**
+     * The names of the program’s variables. Variable `n` lives in value register `n`.
+     */
+    String[] getVariableNames() {
+        return variableNames.clone();
+    }
+
+    /**
+     * Registers for one thread: one block-sized buffer per value register and per mask register.
+     */
+    final class Registers {
+        final double[][] values = new double[registerCount][BLOCK_SIZE];
+        final boolean[][] masks = new boolean[maskCount][BLOCK_SIZE];
+
+        private Registers() {
+            for (int n = 0; n < constants.length; n++) {
+                Arrays.fill(values[variableNames.length + n], constants[n]);
+            }
+        }
+
+        /**
+         * The buffer for the given variable. Fill it before {@link #run}, and read it after.
+         */
+        double[] variable(int index) {
+            return values[index];
+        }
+    }
+
+    Registers createRegisters() {
+        return new Registers();
+    }
+
+    /**
+     * Runs the kernel over the first `rows` rows of the given registers.
+     */
+    void run(Registers registers, int rows) {
+        double[][] v = registers.values;
+        boolean[][] m = registers.masks;
+        int upper = SPECIES.loopBound(rows);
+        for (int pc = 0; pc < code.length; pc += WIDTH) {
+            int a = code[pc + 1], b = code[pc + 2], c = code[pc + 3];
+            switch (code[pc]) {
+                case ADD: {
+                    add(v[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case SUB: {
+                    subtract(v[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case MUL: {
+                    multiply(v[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case DIV: {
+                    divide(v[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case POW: {
+                    double[] out = v[a], lhs = v[b], rhs = v[c];
+                    for (int i = 0; i < rows; i++) {
+                        out[i] = Math.pow(lhs[i], rhs[i]);
+                    }
+                    break;
+                }
+                case MOV: {
+                    System.arraycopy(v[b], 0, v[a], 0, rows);
+                    break;
+                }
+                case BLEND: {
+                    blend(v[a], v[b], m[c], rows, upper);
+                    break;
+                }
+                case LT: {
+                    lessThan(m[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case EQ: {
+                    equal(m[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case GT: {
+                    greaterThan(m[a], v[b], v[c], rows, upper);
+                    break;
+                }
+                case AND: {
+                    and(m[a], m[b], m[c], rows, upper);
+                    break;
+                }
+                case AND_NOT: {
+                    andNot(m[a], m[b], m[c], rows, upper);
+                    break;
+                }
+                case NOT: {
+                    not(m[a], m[b], rows, upper);
+                    break;
+                }
+                default: {
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+                }
+            }
+        }
+    }
+
+    // Each operation gets its own loop with a constant operator: the JIT only turns Vector API calls
+    // into SIMD instructions when it can see which operation they perform.
+
+    private static void add(double[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i).add(DoubleVector.fromArray(SPECIES, rhs, i)).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] + rhs[i];
+        }
+    }
+
+    private static void subtract(double[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i).sub(DoubleVector.fromArray(SPECIES, rhs, i)).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] - rhs[i];
+        }
+    }
+
+    private static void multiply(double[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i).mul(DoubleVector.fromArray(SPECIES, rhs, i)).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] * rhs[i];
+        }
+    }
+
+    private static void divide(double[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i).div(DoubleVector.fromArray(SPECIES, rhs, i)).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] / rhs[i];
+        }
+    }
+
+    private static void blend(double[] target, double[] value, boolean[] mask, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, target, i)
+                .blend(DoubleVector.fromArray(SPECIES, value, i), VectorMask.fromArray(SPECIES, mask, i))
+                .intoArray(target, i);
+        }
+        for (; i < rows; i++) {
+            if (mask[i])
+                target[i] = value[i];
+        }
+    }
+
+    private static void lessThan(boolean[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i)
+                .compare(VectorOperators.LT, DoubleVector.fromArray(SPECIES, rhs, i))
+                .intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] < rhs[i];
+        }
+    }
+
+    private static void equal(boolean[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i)
+                .compare(VectorOperators.EQ, DoubleVector.fromArray(SPECIES, rhs, i))
+                .intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] == rhs[i];
+        }
+    }
+
+    private static void greaterThan(boolean[] out, double[] lhs, double[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, lhs, i)
+                .compare(VectorOperators.GT, DoubleVector.fromArray(SPECIES, rhs, i))
+                .intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] > rhs[i];
+        }
+    }
+
+    private static void and(boolean[] out, boolean[] lhs, boolean[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask.fromArray(SPECIES, lhs, i).and(VectorMask.fromArray(SPECIES, rhs, i)).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] && rhs[i];
+        }
+    }
+
+    private static void andNot(boolean[] out, boolean[] lhs, boolean[] rhs, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask.fromArray(SPECIES, lhs, i).and(VectorMask.fromArray(SPECIES, rhs, i).not()).intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = lhs[i] && !rhs[i];
+        }
+    }
+
+    private static void not(boolean[] out, boolean[] operand, int rows, int upper) {
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask.fromArray(SPECIES, operand, i).not().intoArray(out, i);
+        }
+        for (; i < rows; i++) {
+            out[i] = !operand[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VectorKernel{instructions=" + code.length / WIDTH
+            + ", registers=" + registerCount
+            + ", masks=" + maskCount
+            + ", species=" + SPECIES
+            + '}';
+    }
+}
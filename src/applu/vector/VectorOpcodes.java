@@ -0,0 +1,43 @@
+package applu.vector;
+
+/**
+ * The instruction set of {@link VectorKernel}s.
+ *
+ * Every instruction is {@link #WIDTH} ints wide: an opcode followed by three operands `a`, `b`, and
+ * `c`. Each operand names either a value register (a block of doubles, one per row) or a mask
+ * register (a block of booleans, one per row), depending on the opcode. Every instruction applies to
+ * all rows of the current block at once.
+ */
+final class VectorOpcodes {
+    static final int WIDTH = 4;
+
+    /** v[a] = v[b] + v[c] */
+    static final int ADD = 0;
+    /** v[a] = v[b] - v[c] */
+    static final int SUB = 1;
+    /** v[a] = v[b] * v[c] */
+    static final int MUL = 2;
+    /** v[a] = v[b] / v[c] */
+    static final int DIV = 3;
+    /** v[a] = Math.pow(v[b], v[c]) */
+    static final int POW = 4;
+    /** v[a] = v[b] */
+    static final int MOV = 5;
+    /** v[a] = m[c] ? v[b] : v[a] */
+    static final int BLEND = 6;
+    /** m[a] = v[b] &lt; v[c] */
+    static final int LT = 7;
+    /** m[a] = v[b] == v[c] */
+    static final int EQ = 8;
+    /** m[a] = v[b] &gt; v[c] */
+    static final int GT = 9;
+    /** m[a] = m[b] &amp;&amp; m[c] */
+    static final int AND = 10;
+    /** m[a] = m[b] &amp;&amp; !m[c] */
+    static final int AND_NOT = 11;
+    /** m[a] = !m[b] */
+    static final int NOT = 12;
+
+    private VectorOpcodes() {
+    }
+}
@@ -0,0 +1,50 @@
+package applu.vm;
+
+/**
+ * The instruction set of the Applu VM.
+ *
+ * Every instruction is {@link #WIDTH} ints wide: an opcode followed by three operands `a`, `b`, and
+ * `c`. Arithmetic operands are register numbers; jump operands are instruction-stream offsets.
+ * Unused operands are zero.
+ */
+final class Opcodes {
+    static final int WIDTH = 4;
+
+    /** r[a] = r[b] + r[c] */
+    static final int ADD = 0;
+    /** r[a] = r[b] - r[c] */
+    static final int SUB = 1;
+    /** r[a] = r[b] * r[c] */
+    static final int MUL = 2;
+    /** r[a] = r[b] / r[c] */
+    static final int DIV = 3;
+    /** r[a] = Math.pow(r[b], r[c]) */
+    static final int POW = 4;
+    /** r[a] = r[b] */
+    static final int MOV = 5;
+    /** pc = a */
+    static final int JMP = 6;
+    /** if !(r[a] &lt; r[b]) then pc = c */
+    static final int JNLT = 7;
+    /** if !(r[a] == r[b]) then pc = c */
+    static final int JNEQ = 8;
+    /** if !(r[a] &gt; r[b]) then pc = c */
+    static final int JNGT = 9;
+    /** Stop, producing r[a] as the result. */
+    static final int RET = 10;
+    /** Stop, producing no result. */
+    static final int HALT = 11;
+    /** Stop because an `exit loop` ran outside of any loop. */
+    static final int STRAY_EXIT = 12;
+
+    private static final String[] NAMES = {
+        "ADD", "SUB", "MUL", "DIV", "POW", "MOV", "JMP", "JNLT", "JNEQ", "JNGT", "RET", "HALT", "STRAY_EXIT"
+    };
+
+    static String nameOf(int opcode) {
+        return NAMES[opcode];
+    }
+
+    private Opcodes() {
+    }
+}
@@ -0,0 +1,288 @@
+package applu.vm;
+
+import static applu.vm.Opcodes.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import applu.ast.ASTNode;
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.ConstantNode;
+import applu.ast.ExpressionNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+import applu.interpreter.VariableSlots;
+
+/**
+ * Lowers an Applu AST to a {@link VmProgram}.
+ *
+ * The register file is laid out as: one register per variable the program mentions, then one per
+ * distinct constant, then temporaries for intermediate results. Variables and constants therefore
+ * never need load instructions; arithmetic reads them in place, and an assignment computes its
+ * result directly into the variable’s register. Temporaries are allocated in stack order, so a
+ * program needs only as many as its deepest expression.
+ *
+ * Loops become backward jumps, and each `exit loop` becomes a forward jump to the end of its
+ * innermost loop.
+ */
+public final class VmCompiler {
+    /**
+     * Lowers a program whose variables use slots from the given table.
+     */
+    public static VmProgram compile(StatementNode program, VariableSlots slots) {
+        var compiler = new VmCompiler(program, slots);
+        compiler.compile(program);
+        compiler.emit(HALT, 0, 0, 0);
+        return compiler.build();
+    }
+
+    /**
+     * Lowers a single expression; {@link VmProgram#evaluate} returns its value.
+     */
+    public static VmProgram compile(ExpressionNode expression, VariableSlots slots) {
+        var compiler = new VmCompiler(expression, slots);
+        int result = compiler.compile(expression, -1);
+        compiler.emit(RET, result, 0, 0);
+        return compiler.build();
+    }
+
+    private final VariableSlots slots;
+    private final Map<String, Integer> variableRegisters = new LinkedHashMap<>();
+    private final List<Integer> variableSlots = new ArrayList<>();
+    private final Map<Long, Integer> constantRegisters = new LinkedHashMap<>();
+    private final List<Double> constants = new ArrayList<>();
+    private final boolean[] assigned;
+    private int nextTemporary, registerCount;
+
+    private int[] code = new int[64];
+    private int codeSize;
+    private final Deque<List<Integer>> pendingLoopExits = new ArrayDeque<>();
+
+    private VmCompiler(ASTNode root, VariableSlots slots) {
+        this.slots = slots;
+        allocateRegisters(root);
+        nextTemporary = registerCount = variableRegisters.size() + constants.size();
+
+        // Constant registers come after variables, so shift them once we know how many variables exist
+        constantRegisters.replaceAll((bits, index) -> index + variableRegisters.size());
+
+        assigned = new boolean[variableRegisters.size()];
+        markAssigned(root);
+    }
+
+    private void allocateRegisters(ASTNode node) {
+        if (node instanceof VariableNode variable) {
+            if (!variableRegisters.containsKey(variable.getName())) {
+                variableRegisters.put(variable.getName(), variableRegisters.size());
+                variableSlots.add(variable.slotIn(slots));
+            }
+        } else if (node instanceof ConstantNode constant) {
+            // Keyed by raw bits so that 0.0 and -0.0 stay distinct
+            long bits = Double.doubleToRawLongBits(constant.getValue());
+            if (!constantRegisters.containsKey(bits)) {
+                constantRegisters.put(bits, constants.size());
+                constants.add(constant.getValue());
+            }
+        }
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            allocateRegisters(node.child(n));
+        }
+    }
+
+    private void markAssigned(ASTNode node) {
+        if (node instanceof AssignmentNode assignment)
+            assigned[variableRegisters.get(assignment.getVariable().getName())] = true;
+        for (int n = 0, count = node.childCount(); n < count; n++) {
+            markAssigned(node.child(n));
+        }
+    }
+
+    private VmProgram build() {
+        int variableCount = variableRegisters.size();
+        int[] slotsByRegister = new int[variableCount];
+        String[] names = variableRegisters.keySet().toArray(new String[0]);
+        int assignedCount = 0;
+        for (int register = 0; register < variableCount; register++) {
+            slotsByRegister[register] = variableSlots.get(register);
+            if (assigned[register])
+                assignedCount++;
+        }
+        int[] assignedRegisters = new int[assignedCount];
+        for (int register = 0, n = 0; register < variableCount; register++) {
+            if (assigned[register])
+                assignedRegisters[n++] = register;
+        }
+        double[] constantPool = new double[constants.size()];
+        for (int n = 0; n < constantPool.length; n++) {
+            constantPool[n] = constants.get(n);
+        }
+        return new VmProgram(
+            Arrays.copyOf(code, codeSize),
+            constantPool,
+            slots,
+            slotsByRegister,
+            names,
+            assignedRegisters,
+            registerCount);
+    }
+
+    // –––––––––––– Code emission ––––––––––––
+
+    private int emit(int opcode, int a, int b, int c) {
+        if (codeSize + WIDTH > code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        int position = codeSize;
+        code[codeSize++] = opcode;
+        code[codeSize++] = a;
+        code[codeSize++] = b;
+        code[codeSize++] = c;
+        return position;
+    }
+
+    private void patchJumpTarget(int instruction, int target) {
+        // JMP keeps its target in operand a; the conditional jumps keep theirs in c
+        code[instruction + (code[instruction] == JMP ? 1 : 3)] = target;
+    }
+
+    private int allocateTemporary() {
+        int register = nextTemporary++;
+        registerCount = Math.max(registerCount, nextTemporary);
+        return register;
+    }
+
+    // –––––––––––– Statements ––––––––––––
+
+    private void compile(StatementNode node) {
+        if (node instanceof BlockNode block) {
+            for (var statement : block.getStatements()) {
+                compile(statement);
+            }
+        } else if (node instanceof AssignmentNode assignment) {
+            compile(assignment.getExpression(), variableRegisters.get(assignment.getVariable().getName()));
+        } else if (node instanceof ConditionalNode conditional) {
+            compileConditional(conditional);
+        } else if (node instanceof LoopNode loop) {
+            int top = codeSize;
+            pendingLoopExits.push(new ArrayList<>());
+            compile(loop.getBody());
+            emit(JMP, top, 0, 0);
+            for (int exit : pendingLoopExits.pop()) {
+                patchJumpTarget(exit, codeSize);
+            }
+        } else if (node instanceof LoopExitNode) {
+            if (pendingLoopExits.isEmpty())
+                emit(STRAY_EXIT, 0, 0, 0);
+            else
+                pendingLoopExits.peek().add(emit(JMP, -1, 0, 0));
+        } else {
+            throw new IllegalArgumentException("Unknown statement type: " + node.getClass());
+        }
+    }
+
+    private void compileConditional(ConditionalNode conditional) {
+        int mark = nextTemporary;
+        int lhs = compile(conditional.getLhs(), -1);
+        int rhs = compile(conditional.getRhs(), -1);
+        nextTemporary = mark;
+
+        int opcode;
+        switch (conditional.getOperator()) {
+            case LESS_THAN: {
+                opcode = JNLT;
+                break;
+            }
+            case EQUALS: {
+                opcode = JNEQ;
+                break;
+            }
+            case GREATER_THAN: {
+                opcode = JNGT;
+                break;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown comparison: " + conditional.getOperator());
+            }
+        }
+        int branch = emit(opcode, lhs, rhs, -1);
+
+        compile(conditional.getIfTrue());
+        if (isEmpty(conditional.getIfFalse())) {
+            patchJumpTarget(branch, codeSize);
+        } else {
+            int skipElse = emit(JMP, -1, 0, 0);
+            patchJumpTarget(branch, codeSize);
+            compile(conditional.getIfFalse());
+            patchJumpTarget(skipElse, codeSize);
+        }
+    }
+
+    private static boolean isEmpty(StatementNode node) {
+        return node instanceof BlockNode block && block.getStatements().isEmpty();
+    }
+
+    // –––––––––––– Expressions ––––––––––––
+
+    /**
+     * Emits code for an expression.
+     *
+     * @param target The register that must receive the result, or -1 to let the compiler choose.
+     * @return The register that holds the result.
+     */
+    private int compile(ExpressionNode node, int target) {
+        int result;
+        if (node instanceof ConstantNode constant) {
+            result = constantRegisters.get(Double.doubleToRawLongBits(constant.getValue()));
+        } else if (node instanceof VariableNode variable) {
+            result = variableRegisters.get(variable.getName());
+        } else if (node instanceof BinaryExpressionNode binary) {
+            int mark = nextTemporary;
+            int lhs = compile(binary.getLhs(), -1);
+            int rhs = compile(binary.getRhs(), -1);
+            nextTemporary = mark;  // operands are dead once the operation reads them
+            int destination = (target >= 0) ? target : allocateTemporary();
+            emit(opcodeFor(binary.getOperator()), destination, lhs, rhs);
+            return destination;
+        } else {
+            throw new IllegalArgumentException("Unknown expression type: " + node.getClass());
+        }
+
+        if (target >= 0 && target != result) {
+            emit(MOV, target, result, 0);
+            return target;
+        }
+        return result;
+    }
+
+    private static int opcodeFor(BinaryExpressionNode.Operator operator) {
+        switch (operator) {
+            case ADDITION: {
+                return ADD;
+            }
+            case SUBTRACTION: {
+                return SUB;
+            }
+            case MULTIPLICATION: {
+                return MUL;
+            }
+            case DIVISION: {
+                return DIV;
+            }
+            case EXPONENTIATION: {
+                return POW;
+            }
+            default: {
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+            }
+        }
+    }
+}
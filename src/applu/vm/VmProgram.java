@@ -0,0 +1,230 @@
+package applu.vm;
+
+import static applu.vm.Opcodes.*;
+
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.LoopExited;
+import applu.interpreter.VariableSlots;
+
+/**
+ * An Applu program lowered by {@link VmCompiler} to a compact `int[]` instruction stream and a
+ * `double[]` constant pool, ready to run in the VM’s dispatch loop.
+ *
+ * Running a program copies the variables it mentions from an {@link EvaluationContext} into a fresh
+ * register file, runs the instruction stream over that register file, then copies every variable
+ * the program assigns back into the context. (Because of that, after a run
+ * {@link EvaluationContext#allVariables()} lists every variable the program <em>can</em> assign,
+ * even one whose assignment did not execute.)
+ *
+ * Immutable and thread-safe: each run gets its own register file.
+ */
+public final class VmProgram {
+    private final int[] code;
+    private final double[] constants;
+    private final VariableSlots slots;
+    private final int[] slotsByRegister;
+    private final String[] variableNames;
+    private final int[] assignedRegisters;
+    private final int registerCount;
+
+    VmProgram(
+        int[] code,
+        double[] constants,
+        VariableSlots slots,
+        int[] slotsByRegister,
+        String[] variableNames,
+        int[] assignedRegisters,
+        int registerCount) {
+        this.code = code;
+        this.constants = constants;
+        this.slots = slots;
+        this.slotsByRegister = slotsByRegister;
+        this.variableNames = variableNames;
+        this.assignedRegisters = assignedRegisters;
+        this.registerCount = registerCount;
+    }
+
+    /**
+     * The slot table this program’s variables were resolved against.
+     */
+    public VariableSlots getSlots() {
+        return slots;
+    }
+
+    /**
+     * Creates an untraced context whose frame matches this program’s slots.
+     */
+    public EvaluationContext createContext() {
+        return new EvaluationContext(slots, null);
+    }
+
+    /**
+     * Runs the program against the given context.
+     *
+     * @throws IllegalArgumentException if the context uses a different slot table
+     * @throws LoopExited               if the program executes an `exit loop` outside of any loop
+     */
+    public void run(EvaluationContext context) {
+        execute(context);
+    }
+
+    /**
+     * Runs a program compiled from an expression, and returns the expression’s value.
+     */
+    public double evaluate(EvaluationContext context) {
+        return execute(context);
+    }
+
+    private double execute(EvaluationContext context) {
+        if (context.getSlots() != slots)
+            throw new IllegalArgumentException("Context does not use the slots this program was compiled against");
+
+        double[] registers = new double[registerCount];
+        int variableCount = slotsByRegister.length;
+        for (int register = 0; register < variableCount; register++) {
+            registers[register] = context.get(slotsByRegister[register]);
+        }
+        System.arraycopy(constants, 0, registers, variableCount, constants.length);
+
+        int stop = dispatch(code, registers);
+
+        for (int register : assignedRegisters) {
+            context.set(slotsByRegister[register], registers[register]);
+        }
+
+        switch (code[stop]) {
+            case RET: {
+                return registers[code[stop + 1]];
+            }
+            case STRAY_EXIT: {
+                throw new LoopExited();
+            }
+            default: {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The VM’s inner loop. Returns the position of the instruction that stopped execution.
+     */
+    private static int dispatch(int[] code, double[] r) {
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case ADD: {
+                    r[code[pc + 1]] = r[code[pc + 2]] + r[code[pc + 3]];
+                    pc += WIDTH;
+                    break;
+                }
+                case SUB: {
+                    r[code[pc + 1]] = r[code[pc + 2]] - r[code[pc + 3]];
+                    pc += WIDTH;
+                    break;
+                }
+                case MUL: {
+                    r[code[pc + 1]] = r[code[pc + 2]] * r[code[pc + 3]];
+                    pc += WIDTH;
+                    break;
+                }
+                case DIV: {
+                    r[code[pc + 1]] = r[code[pc + 2]] / r[code[pc + 3]];
+                    pc += WIDTH;
+                    break;
+                }
+                case POW: {
+                    r[code[pc + 1]] = Math.pow(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += WIDTH;
+                    break;
+                }
+                case MOV: {
+                    r[code[pc + 1]] = r[code[pc + 2]];
+                    pc += WIDTH;
+                    break;
+                }
+                case JMP: {
+                    pc = code[pc + 1];
+                    break;
+                }
+                case JNLT: {
+                    pc = (r[code[pc + 1]] < r[code[pc + 2]]) ? pc + WIDTH : code[pc + 3];
+                    break;
+                }
+                case JNEQ: {
+                    pc = (r[code[pc + 1]] == r[code[pc + 2]]) ? pc + WIDTH : code[pc + 3];
+                    break;
+                }
+                case JNGT: {
+                    pc = (r[code[pc + 1]] > r[code[pc + 2]]) ? pc + WIDTH : code[pc + 3];
+                    break;
+                }
+                default: {  // RET, HALT, STRAY_EXIT
+                    return pc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a human-readable listing of the instruction stream, for debugging.
+     */
+    public String disassemble() {
+        var out = new StringBuilder();
+        int variableCount = slotsByRegister.length;
+        for (int pc = 0; pc < code.length; pc += WIDTH) {
+            int opcode = code[pc];
+            out.append("%4d  %-10s".formatted(pc, Opcodes.nameOf(opcode)));
+            switch (opcode) {
+                case ADD:
+                case SUB:
+                case MUL:
+                case DIV:
+                case POW: {
+                    out.append(describeRegister(code[pc + 1], variableCount)).append(" ← ")
+                        .append(describeRegister(code[pc + 2], variableCount)).append(", ")
+                        .append(describeRegister(code[pc + 3], variableCount));
+                    break;
+                }
+                case MOV: {
+                    out.append(describeRegister(code[pc + 1], variableCount)).append(" ← ")
+                        .append(describeRegister(code[pc + 2], variableCount));
+                    break;
+                }
+                case JMP: {
+                    out.append("→ ").append(code[pc + 1]);
+                    break;
+                }
+                case JNLT:
+                case JNEQ:
+                case JNGT: {
+                    out.append(describeRegister(code[pc + 1], variableCount)).append(", ")
+                        .append(describeRegister(code[pc + 2], variableCount)).append(" else → ")
+                        .append(code[pc + 3]);
+                    break;
+                }
+                case RET: {
+                    out.append(describeRegister(code[pc + 1], variableCount));
+                    break;
+                }
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private String describeRegister(int register, int variableCount) {
+        if (register < variableCount)
+            return variableNames[register];
+        if (register < variableCount + constants.length)
+            return String.valueOf(constants[register - variableCount]);
+        return "t" + (register - variableCount - constants.length);
+    }
+
+    @Override
+    public String toString() {
+        return "VmProgram{instructions=" + code.length / WIDTH
+            + ", constants=" + constants.length
+            + ", registers=" + registerCount
+            + '}';
+    }
+}
@@ -0,0 +1,123 @@
+package applu.ast;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static applu.parser.AppluParser.parseProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ASTNodeTest {
+    private final StatementNode program = parseProgram(
+        "set x to y plus 1. loop: if x is greater than 2 then exit loop else set z to x. end of loop.");
+
+    @Test
+    void indexedChildrenMatchChildMap() {
+        assertChildrenConsistent(program);
+    }
+
+    @Test
+    void childLabels() {
+        var assignment = new AssignmentNode(new VariableNode("x"), new ConstantNode(1));
+        assertEquals(List.of("lhs", "rhs"), List.copyOf(assignment.getChildren().keySet()));
+
+        var block = (BlockNode) program;
+        assertEquals(List.of("0", "1"), List.copyOf(block.getChildren().keySet()));
+
+        var loop = (LoopNode) block.child(1);
+        assertEquals("body", loop.childLabel(0));
+
+        var conditional = (ConditionalNode) loop.child(0).child(0);
+        assertEquals(
+            List.of("lhs", "rhs", "ifTrue", "ifFalse"),
+            List.copyOf(conditional.getChildren().keySet()));
+    }
+
+    @Test
+    void childIndexOutOfBounds() {
+        assertThrows(IndexOutOfBoundsException.class, () -> new ConstantNode(1).child(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> program.child(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> program.childLabel(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> program.child(1).child(1));
+    }
+
+    @Test
+    void findAllVariables() {
+        assertEquals(
+            Set.of(new VariableNode("x"), new VariableNode("y"), new VariableNode("z")),
+            program.findAllVariables());
+    }
+
+    @Test
+    void dump() {
+        assertEquals(
+            """
+            BlockNode (2 children)
+            ├─0: AssignmentNode\s
+            │    ├─lhs: VariableNode (name="x")
+            │    └─rhs: BinaryExpressionNode (operator=ADDITION)
+            │           ├─lhs: VariableNode (name="y")
+            │           └─rhs: ConstantNode (value=1.0)
+            └─1: LoopNode\s
+                 └─body: BlockNode (1 child)
+                         └─0: ConditionalNode (operator=GREATER_THAN)
+                              ├─lhs: VariableNode (name="x")
+                              ├─rhs: ConstantNode (value=2.0)
+                              ├─ifTrue: LoopExitNode\s
+                              └─ifFalse: AssignmentNode\s
+                                         ├─lhs: VariableNode (name="z")
+                                         └─rhs: VariableNode (name="x")
+            """,
+            program.dump());
+    }
+
+    @Test
+    void equalTreesHaveEqualHashes() {
+        var other = parseProgram(
+            "set x to y plus 1. loop: if x is greater than 2 then exit loop else set z to x. end of loop.");
+        assertNotSame(program, other);
+        assertEquals(program, other);
+        assertEquals(program.hashCode(), other.hashCode());
+        assertNotEquals(program, parseProgram(
+            "set x to y plus 1. loop: if x is greater than 2 then exit loop else set z to y. end of loop."));
+    }
+
+    @Test
+    void internerSharesIdenticalSubtrees() {
+        var interner = new NodeInterner();
+        var sum = interner.binary(
+            BinaryExpressionNode.Operator.ADDITION,
+            interner.variable("x"),
+            interner.constant(1));
+        assertSame(interner.variable("x"), sum.getLhs());
+        assertSame(
+            sum,
+            interner.binary(BinaryExpressionNode.Operator.ADDITION, interner.variable("x"), interner.constant(1)));
+        assertNotSame(interner.constant(0.0), interner.constant(-0.0));
+        assertSame(BlockNode.EMPTY, interner.block(List.of()));
+
+        var first = interner.intern(program);
+        var second = interner.intern(parseProgram(
+            "set x to y plus 1. loop: if x is greater than 2 then exit loop else set z to x. end of loop."));
+        assertSame(first, second);
+        assertEquals(program, first);
+
+        var assignment = (AssignmentNode) ((BlockNode) first).child(0);
+        assertSame(sum.getLhs(), assignment.getVariable());
+    }
+
+    private static void assertChildrenConsistent(ASTNode node) {
+        var children = List.copyOf(node.getChildren().entrySet());
+        assertEquals(children.size(), node.childCount());
+        for (int n = 0; n < node.childCount(); n++) {
+            assertEquals(children.get(n).getKey(), node.childLabel(n));
+            assertEquals(children.get(n).getValue(), node.child(n));
+            assertChildrenConsistent(node.child(n));
+        }
+    }
+}
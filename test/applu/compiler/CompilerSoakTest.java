@@ -0,0 +1,52 @@
+package applu.compiler;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BinaryExpressionNode;
+import applu.ast.BlockNode;
+import applu.ast.ConstantNode;
+import applu.ast.VariableNode;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles far more programs than fit in the metaspace cap that the `soakTest` Gradle task sets. This
+ * only passes if the JVM unloads each program’s classes once the program is unreachable.
+ */
+@Tag("soak")
+public class CompilerSoakTest {
+    private static final int PROGRAM_COUNT = 100_000;
+
+    @Test
+    void compiledProgramsAreUnloaded() {
+        var classLoading = ManagementFactory.getClassLoadingMXBean();
+        long unloadedBefore = classLoading.getUnloadedClassCount();
+
+        for (int n = 0; n < PROGRAM_COUNT; n++) {
+            var program = new BlockNode(
+                new AssignmentNode(
+                    new VariableNode("x"),
+                    new BinaryExpressionNode(
+                        BinaryExpressionNode.Operator.MULTIPLICATION,
+                        new VariableNode("y"),
+                        new ConstantNode(n))));
+
+            // Reusing one class name also checks that each program gets its own namespace
+            AppluExecutable<CompilerTest.TestContext> executable =
+                AppluCompiler.compile(program, "SoakProgram", CompilerTest.TestContext.class);
+            CompilerTest.TestContext context = executable.createContext();
+            context.set_y(2);
+            executable.run(context);
+            assertEquals(2.0 * n, context.get_x());
+        }
+
+        assertTrue(
+            classLoading.getUnloadedClassCount() > unloadedBefore,
+            "expected the JVM to unload compiled programs");
+    }
+}
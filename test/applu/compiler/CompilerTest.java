@@ -5,16 +5,25 @@ import org.junit.jupiter.api.Test;
 import applu.ast.ASTNode;
 import applu.ast.ConstantNode;
 import applu.ast.VariableNode;
+import applu.ir.ControlFlowGraph;
+import applu.optimizer.Optimizer;
 // import applu.compiler.AppluCompiler;
 // import applu.compiler.AppluExecutable;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Duration;
 
 import static applu.parser.AppluParser.parseExpression;
 import static applu.parser.AppluParser.parseProgram;
 import static applu.parser.AppluParser.parseStatement;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CompilerTest {
     @Test
@@ -116,6 +125,186 @@ public class CompilerTest {
         double get_x();
     }
 
+    @Test
+    void executeCompiledLoop() {
+        AppluExecutable<FibonacciContext> executable = AppluCompiler.compile(
+            parseProgram(
+                "Set a to 1. Set b to 1."
+                    + " Loop: If count is less than 1 then exit loop."
+                    + " Set next to a plus b. Set a to b. Set b to next."
+                    + " Set count to count minus 1. End of loop."),
+            "FibonacciProgram",
+            FibonacciContext.class);
+
+        FibonacciContext context = executable.createContext();
+        context.set_count(10);
+        executable.run(context);
+        assertEquals(89, context.get_a());
+        assertEquals(144, context.get_b());
+        assertEquals(0, context.get_count());
+    }
+
+    @Test
+    void compiledLoopExitRequiresLoop() {
+        assertThrows(CompilationException.class, () ->
+            AppluCompiler.compile(parseProgram("Set a to 1. Exit loop."), "BadProgram", FibonacciContext.class));
+    }
+
+    @Test
+    void compiledLoopsHonorIterationBudget() {
+        var fibonacci = AppluCompiler.compile(
+            parseProgram(
+                "Set a to 1. Set b to 1."
+                    + " Loop: If count is less than 1 then exit loop."
+                    + " Set next to a plus b. Set a to b. Set b to next."
+                    + " Set count to count minus 1. End of loop."),
+            "BudgetedFibonacci",
+            FibonacciContext.class);
+        FibonacciContext context = fibonacci.createContext();
+        assertSame(ExecutionLimits.NONE, context.getExecutionLimits());
+
+        // Ten iterations take ten back-edges; the eleventh pass exits without one
+        context.setExecutionLimits(ExecutionLimits.NONE.withIterationBudget(10));
+        context.set_count(10);
+        fibonacci.run(context);
+        assertEquals(144, context.get_b());
+
+        context.set_count(10);
+        context.setExecutionLimits(ExecutionLimits.NONE.withIterationBudget(9));
+        var aborted = assertThrows(ExecutionAbortedException.class, () -> fibonacci.run(context));
+        assertEquals(ExecutionAbortedException.Reason.ITERATION_BUDGET_EXHAUSTED, aborted.getReason());
+
+        var spin = AppluCompiler.compile(parseProgram("Loop: set x to x plus 1. End of loop."), "Spin", TestContext.class);
+        for (long budget : new long[] { 0, 1, AbstractExecutionContext.POLL_INTERVAL, 5000 }) {
+            TestContext spinContext = spin.createContext();
+            spinContext.setExecutionLimits(ExecutionLimits.NONE.withIterationBudget(budget));
+            assertThrows(ExecutionAbortedException.class, () -> spin.run(spinContext));
+            assertEquals(budget + 1, spinContext.get_x());
+        }
+    }
+
+    @Test
+    void compiledLoopsHonorDeadline() {
+        var spin = AppluCompiler.compile(parseProgram("Loop: set x to x plus 1. End of loop."), "SpinUntilDeadline", TestContext.class);
+        TestContext context = spin.createContext();
+        context.setExecutionLimits(ExecutionLimits.NONE.withTimeout(Duration.ofMillis(20)));
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            var aborted = assertThrows(ExecutionAbortedException.class, () -> spin.run(context));
+            assertEquals(ExecutionAbortedException.Reason.DEADLINE_EXCEEDED, aborted.getReason());
+        });
+        assertTrue(context.get_x() > 0);
+    }
+
+    @Test
+    void compiledLoopsHonorInterruption() {
+        var spin = AppluCompiler.compile(parseProgram("Loop: set x to x plus 1. End of loop."), "SpinUntilInterrupted", TestContext.class);
+        TestContext context = spin.createContext();
+        Thread.currentThread().interrupt();
+        try {
+            var aborted = assertThrows(ExecutionAbortedException.class, () -> spin.run(context));
+            assertEquals(ExecutionAbortedException.Reason.INTERRUPTED, aborted.getReason());
+        } finally {
+            assertTrue(Thread.interrupted(), "interrupted status should survive");
+        }
+    }
+
+    @Test
+    void executeOptimizedCode() {
+        var optimizer = Optimizer.standard();
+        AppluExecutable<TestContext> executable = AppluCompiler.compile(
+            parseProgram("Set z to 1 plus 2. Set y to y. If z equals 3 then set x to y times z times 1."),
+            "OptimizedProgram",
+            TestContext.class,
+            optimizer);
+        assertEquals(1, optimizer.getStatistics().getRewriteCount("ConstantFolding"));
+        assertEquals(1, optimizer.getStatistics().getRewriteCount("SelfAssignmentElimination"));
+
+        TestContext context = executable.createContext();
+        context.set_y(127);
+        executable.run(context);
+        assertEquals(381, context.get_x());
+    }
+
+    @Test
+    void executeCodeWithHoistedInvariants() {
+        var optimizer = Optimizer.standard();
+        AppluExecutable<TestContext> executable = AppluCompiler.compile(
+            parseProgram("Loop: set x to x plus y times 3. If x is greater than 100 then exit loop. End of loop."),
+            "HoistedProgram",
+            TestContext.class,
+            optimizer);
+        assertEquals(1, optimizer.getStatistics().getRewriteCount("LoopInvariantCodeMotion"));
+
+        TestContext context = executable.createContext();
+        context.set_y(7);
+        executable.run(context);
+        assertEquals(105, context.get_x());
+    }
+
+    @Test
+    void cacheReusesStructurallyIdenticalPrograms() {
+        var cache = new CompiledProgramCache(2);
+        var first = cache.compile(parseProgram("Set x to y times 3."), TestContext.class);
+        var second = cache.compile(parseProgram("set x  to y\ntimes 3."), TestContext.class);
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        var other = cache.compile(parseProgram("Set x to y times 4."), TestContext.class);
+        assertNotSame(first, other);
+        assertNotEquals(first.getClass().getName(), other.getClass().getName());
+
+        cache.compile(parseProgram("Set x to y times 3."), TestContext.class);  // first is now most recent
+        cache.compile(parseProgram("Set x to y times 5."), TestContext.class);  // evicts other
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.compile(parseProgram("Set x to y times 3."), TestContext.class));
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+
+        TestContext context = first.createContext();
+        context.set_y(2);
+        first.run(context);
+        assertEquals(6, context.get_x());
+    }
+
+    @Test
+    void executeCompiledGraph() {
+        var graph = ControlFlowGraph.lower(parseProgram(
+            "Set a to 1. Set b to 1."
+                + " Loop: If count is less than 1 then exit loop."
+                + " Set next to a plus b. Set a to b. Set b to next."
+                + " Set count to count minus 1. End of loop."));
+        AppluExecutable<FibonacciContext> executable = AppluCompiler.compile(graph, "FibonacciGraph", FibonacciContext.class);
+
+        FibonacciContext context = executable.createContext();
+        context.set_count(10);
+        executable.run(context);
+        assertEquals(89, context.get_a());
+        assertEquals(144, context.get_b());
+        assertEquals(0, context.get_count());
+
+        // Back-edges poll just as in code compiled from the tree
+        context.set_count(10);
+        context.setExecutionLimits(ExecutionLimits.NONE.withIterationBudget(9));
+        var aborted = assertThrows(ExecutionAbortedException.class, () -> executable.run(context));
+        assertEquals(ExecutionAbortedException.Reason.ITERATION_BUDGET_EXHAUSTED, aborted.getReason());
+
+        assertThrows(CompilationException.class, () -> AppluCompiler.compile(
+            ControlFlowGraph.lower(parseProgram("Set a to 1. Exit loop.")),
+            "BadGraph",
+            FibonacciContext.class));
+    }
+
+    public static interface FibonacciContext extends AppluExecutable.ExecutionContext {
+        void set_count(double count);
+
+        double get_count();
+
+        double get_a();
+
+        double get_b();
+    }
+
     // ––––––– Helpers –––––––
 
     private void assertExpressionCompilesTo(String expectedJavaCode, String appluExpression) {
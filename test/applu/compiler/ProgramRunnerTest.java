@@ -0,0 +1,169 @@
+package applu.compiler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import applu.interpreter.BudgetExceededException;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.LoopExited;
+
+import static applu.parser.AppluParser.parseProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProgramRunnerTest {
+    private static final String FIBONACCI =
+        "Set a to 1. Set b to 1."
+            + " Loop: If count is less than 1 then exit loop."
+            + " Set next to a plus b. Set a to b. Set b to next."
+            + " Set count to count minus 1. End of loop.";
+
+    @Test
+    void interpretsUntilThreshold() {
+        var runner = new ProgramRunner(parseProgram(FIBONACCI), 3, Runnable::run);
+        for (int n = 0; n < 3; n++) {
+            assertEquals(ProgramRunner.Tier.INTERPRETED, runner.getTier());
+            assertFibonacci(runner, runner.createContext());
+        }
+        assertFibonacci(runner, runner.createContext());
+        assertEquals(ProgramRunner.Tier.COMPILED, runner.getTier());
+        assertEquals(4, runner.getInvocationCount());
+    }
+
+    @Test
+    void keepsInterpretingWhileCompiling() {
+        List<Runnable> pending = new ArrayList<>();
+        Executor deferred = pending::add;
+        var runner = new ProgramRunner(parseProgram(FIBONACCI), 0, deferred);
+
+        assertFibonacci(runner, runner.createContext());
+        assertFibonacci(runner, runner.createContext());
+        assertEquals(ProgramRunner.Tier.COMPILING, runner.getTier());
+        assertEquals(1, pending.size(), "compilation should start only once");
+
+        pending.get(0).run();
+        assertEquals(ProgramRunner.Tier.COMPILED, runner.getTier());
+        assertFibonacci(runner, runner.createContext());
+    }
+
+    @Test
+    void carriesVariablesAcrossTiers() {
+        var program = parseProgram("Set y to x times 2. If x is greater than 10 then set big to 1.");
+        var interpreted = new ProgramRunner(program, Long.MAX_VALUE, Runnable::run);
+        var compiled = new ProgramRunner(program, 0, Runnable::run);
+
+        for (var x : new double[] { 3, 11 }) {
+            // Both a runner-made context and a context with its own slot table
+            for (var context : List.of(compiled.createContext(), new EvaluationContext())) {
+                context.set("x", x);
+                context.set("unrelated", 7);
+                compiled.run(context);
+
+                var expected = new EvaluationContext();
+                expected.set("x", x);
+                expected.set("unrelated", 7);
+                interpreted.run(expected);
+
+                assertEquals(expected.get("y"), context.get("y"));
+                assertEquals(expected.get("big"), context.get("big"));
+                assertEquals(7, context.get("unrelated"));
+            }
+        }
+        assertEquals(ProgramRunner.Tier.COMPILED, compiled.getTier());
+        assertEquals(ProgramRunner.Tier.INTERPRETED, interpreted.getTier());
+    }
+
+    @Test
+    void contextsOnManyThreadsCanSetUnrelatedVariables() throws InterruptedException {
+        var runner = new ProgramRunner(parseProgram("Set y to x times 2."), 0, Runnable::run);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int n = 0; n < 500; n++) {
+                        var context = runner.createContext();
+                        var name = "unrelated_" + thread + "_" + n;
+                        context.set(name, n);
+                        context.set("x", thread);
+                        runner.run(context);
+                        assertEquals(n, context.get(name));
+                        assertEquals(2 * thread, context.get("y"));
+                        assertEquals(Map.of("x", (double) thread, "y", 2.0 * thread, name, (double) n),
+                            context.allVariables());
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+    }
+
+    @Test
+    void tracedContextsAreInterpreted() {
+        var runner = new ProgramRunner(parseProgram("Set y to x plus 1."), 0, Runnable::run);
+        runner.run(runner.createContext());
+        assertEquals(ProgramRunner.Tier.COMPILED, runner.getTier());
+
+        List<String> traced = new ArrayList<>();
+        var context = new EvaluationContext((node, ctx, phase, result) -> traced.add(phase.name()));
+        context.set("x", 1);
+        runner.run(context);
+        assertEquals(2, context.get("y"));
+        assertFalse(traced.isEmpty());
+    }
+
+    @Test
+    void budgetedContextsAreInterpreted() {
+        var runner = new ProgramRunner(
+            parseProgram("Loop: Set x to x plus 1. If x equals 1000000 then exit loop. End of loop."),
+            0,
+            Runnable::run);
+        runner.run(runner.createContext());
+        assertEquals(ProgramRunner.Tier.COMPILED, runner.getTier());
+
+        var context = runner.createContext();
+        context.setBudget(Long.MAX_VALUE, 10);
+        var exceeded = assertThrows(BudgetExceededException.class, () -> runner.run(context));
+        assertEquals(BudgetExceededException.Kind.ITERATIONS, exceeded.getKind());
+        assertEquals(11, context.get("x"));
+    }
+
+    @Test
+    void staysInterpretedIfCompilationFails() {
+        var runner = new ProgramRunner(parseProgram("Exit loop."), 0, Runnable::run);
+        assertThrows(LoopExited.class, () -> runner.run(runner.createContext()));
+        assertTrue(runner.getCompilationFailure() instanceof CompilationException);
+        assertEquals(ProgramRunner.Tier.INTERPRETED, runner.getTier());
+        assertThrows(LoopExited.class, () -> runner.run(runner.createContext()));
+    }
+
+    @Test
+    void rejectsNegativeThreshold() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new ProgramRunner(parseProgram("Set x to 1."), -1, Runnable::run));
+    }
+
+    private static void assertFibonacci(ProgramRunner runner, EvaluationContext context) {
+        context.set("count", 10);
+        runner.run(context);
+        assertEquals(
+            Map.of("a", 89.0, "b", 144.0, "count", 0.0, "next", 144.0),
+            context.allVariables());
+    }
+}
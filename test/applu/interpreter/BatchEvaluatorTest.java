@@ -0,0 +1,94 @@
+package applu.interpreter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static applu.parser.AppluParser.parseProgram;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchEvaluatorTest {
+    private static final String FIBONACCI =
+        "Set a to 1. Set b to 1."
+            + " Loop: If count is less than 1 then exit loop."
+            + " Set next to a plus b. Set a to b. Set b to next."
+            + " Set count to count minus 1. End of loop.";
+
+    @Test
+    void matchesInterpreterRowByRow() {
+        var program = parseProgram(FIBONACCI);
+        int rows = 100_000;
+        var counts = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            counts[row] = row % 40;
+        }
+
+        var pool = new ForkJoinPool(4);
+        try {
+            var results = new BatchEvaluator(program, pool).evaluate(
+                Map.of("count", counts),
+                List.of("b", "count"));
+            assertEquals(List.of("b", "count"), List.copyOf(results.keySet()));
+
+            for (int row = 0; row < rows; row++) {
+                var context = new EvaluationContext();
+                context.set("count", counts[row]);
+                program.run(context);
+                assertEquals(context.get("b"), results.get("b")[row]);
+                assertEquals(0, results.get("count")[row]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rowsStartFromFreshVariables() {
+        // If total leaked from one row to the next, it would accumulate.
+        var results = new BatchEvaluator(parseProgram("Set total to total plus x."))
+            .evaluate(Map.of("x", new double[] { 1, 2, 3 }), List.of("total"));
+        assertArrayEquals(new double[] { 1, 2, 3 }, results.get("total"));
+    }
+
+    @Test
+    void unmentionedVariables() {
+        var results = new BatchEvaluator(parseProgram("Set y to x times 2."))
+            .evaluate(
+                Map.of("x", new double[] { 1, 2 }, "unused", new double[] { 7, 8 }),
+                List.of("y", "unused", "missing"));
+        assertArrayEquals(new double[] { 2, 4 }, results.get("y"));
+        assertArrayEquals(new double[] { 7, 8 }, results.get("unused"));
+        assertArrayEquals(new double[] { 0, 0 }, results.get("missing"));
+    }
+
+    @Test
+    void emptyBatch() {
+        var results = new BatchEvaluator(parseProgram("Set y to x."))
+            .evaluate(Map.of("x", new double[0]), List.of("y"));
+        assertEquals(0, results.get("y").length);
+    }
+
+    @Test
+    void noInputColumns() {
+        var evaluator = new BatchEvaluator(parseProgram("Set y to 2."));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(Map.of(), List.of("y")));
+    }
+
+    @Test
+    void mismatchedColumns() {
+        var evaluator = new BatchEvaluator(parseProgram("Set z to x plus y."));
+        assertThrows(IllegalArgumentException.class, () ->
+            evaluator.evaluate(Map.of("x", new double[3], "y", new double[2]), List.of("z")));
+    }
+
+    @Test
+    void strayLoopExit() {
+        var evaluator = new BatchEvaluator(parseProgram("If x is greater than 1 then exit loop."));
+        assertThrows(LoopExited.class, () ->
+            evaluator.evaluate(Map.of("x", new double[] { 0, 1, 2 }), List.of("x")));
+    }
+}
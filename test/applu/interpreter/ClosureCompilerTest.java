@@ -0,0 +1,26 @@
+package applu.interpreter;
+
+import static applu.parser.AppluParser.parseExpression;
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the whole InterpreterTest suite with {@link ClosureCompiler} in place of the AST interpreter.
+ */
+public class ClosureCompilerTest extends InterpreterTest {
+    @Override
+    protected void assertEvaluationEquals(double expected, String expression) {
+        assertEquals(expected, ClosureCompiler.compile(parseExpression(expression), context.getSlots()).evaluate(context));
+    }
+
+    @Override
+    protected void runStatement(String statement) {
+        ClosureCompiler.compile(parseStatement(statement), context.getSlots()).run(context);
+    }
+
+    @Override
+    protected void runProgram(String program) {
+        ClosureCompiler.compile(parseProgram(program), context.getSlots()).run(context);
+    }
+}
@@ -2,6 +2,9 @@ package applu.interpreter;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
+import applu.ast.LoopNode;
 // import applu.interpreter.EvaluationContext;
 // import applu.interpreter.LoopExited;
 
@@ -12,7 +15,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class InterpreterTest {
-    private final EvaluationContext context = new EvaluationContext();
+    protected final EvaluationContext context = new EvaluationContext();
 
     @Test
     void evaluateConstant() {
@@ -92,21 +95,56 @@ public class InterpreterTest {
         assertVariableEquals("y", 285);
     }
 
+    @Test
+    void executeNestedLoops() {
+        runProgram(
+            "loop: set i to i plus 1. if i is greater than 3 then exit loop."
+                + " set j to 0."
+                + " loop: set j to j plus 1. set total to total plus 1. if j equals i then exit loop. end of loop."
+                + " end of loop.");
+        assertVariableEquals("i", 4);
+        assertVariableEquals("j", 3);
+        assertVariableEquals("total", 6);
+    }
+
+    @Test
+    void executeLongLoop() {
+        runProgram(
+            "loop: set i to i plus 1. if i is greater than " + 3 * LoopNode.OSR_THRESHOLD + " then exit loop."
+                + " if i equals 20000 then set marker to i. set total to total plus i. end of loop.");
+        assertVariableEquals("i", 3 * LoopNode.OSR_THRESHOLD + 1);
+        assertVariableEquals("total", 3.0 * LoopNode.OSR_THRESHOLD * (3 * LoopNode.OSR_THRESHOLD + 1) / 2);
+        assertVariableEquals("marker", 20000);
+    }
+
+    @Test
+    void variableViewsReflectFrame() {
+        runProgram("set x to 2. set y to x squared. if z equals 0 then set x to x plus 1.");
+        assertEquals(Map.of("x", 3.0, "y", 4.0), context.allVariables());
+        assertEquals(0, context.get("z"));
+
+        context.set("y", 10);
+        assertEquals(10.0, context.allVariables().get("y"));
+        assertEquals(10, context.get(context.getSlots().find("y")));
+    }
+
     // ––––––– Helpers –––––––
 
-    private void assertEvaluationEquals(double expected, String expression) {
+    // Subclasses override these three to run the same tests against other execution engines
+
+    protected void assertEvaluationEquals(double expected, String expression) {
         assertEquals(expected, parseExpression(expression).evaluate(context));
     }
 
-    private void runStatement(String statement) {
+    protected void runStatement(String statement) {
         parseStatement(statement).run(context);
     }
 
-    private void runProgram(String program) {
+    protected void runProgram(String program) {
         parseProgram(program).run(context);
     }
 
-    private void assertVariableEquals(String name, double expectedValue) {
+    protected void assertVariableEquals(String name, double expectedValue) {
         assertEquals(expectedValue, context.get(name));
     }
 }
@@ -0,0 +1,56 @@
+package applu.interpreter;
+
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import applu.ir.ControlFlowGraph;
+
+/**
+ * Runs the whole InterpreterTest suite by lowering each program to a {@link ControlFlowGraph} and
+ * running that with {@link IrInterpreter}, in place of the AST interpreter.
+ */
+public class IrInterpreterTest extends InterpreterTest {
+    @Test
+    void setsVariablesBeforeReportingExitOutsideLoop() {
+        assertThrows(LoopExited.class, () -> runProgram("set x to 3. set y to x times 2. exit loop. set x to 0."));
+        assertEquals(3, context.get("x"));
+        assertEquals(6, context.get("y"));
+    }
+
+    @Test
+    void chargesIterationsOnBackEdges() {
+        var graph = ControlFlowGraph.lower(
+            parseProgram("loop: set x to x plus 1. if x equals 10 then exit loop. end of loop."));
+        var enough = new EvaluationContext();
+        enough.setBudget(Long.MAX_VALUE, 9);
+        IrInterpreter.run(graph, enough);
+        assertEquals(10, enough.get("x"));
+        assertEquals(0, enough.getIterationsRemaining());
+
+        var tooFew = new EvaluationContext();
+        tooFew.setBudget(Long.MAX_VALUE, 8);
+        var exceeded = assertThrows(BudgetExceededException.class, () -> IrInterpreter.run(graph, tooFew));
+        assertEquals(BudgetExceededException.Kind.ITERATIONS, exceeded.getKind());
+    }
+
+    @Override
+    protected void assertEvaluationEquals(double expected, String expression) {
+        // The IR has no standalone expressions, so lower a program that assigns this one
+        runStatement("set evaluated_expression to " + expression);
+        assertEquals(expected, context.get("evaluated_expression"));
+    }
+
+    @Override
+    protected void runStatement(String statement) {
+        IrInterpreter.run(ControlFlowGraph.lower(parseStatement(statement)), context);
+    }
+
+    @Override
+    protected void runProgram(String program) {
+        IrInterpreter.run(ControlFlowGraph.lower(parseProgram(program)), context);
+    }
+}
@@ -0,0 +1,151 @@
+package applu.interpreter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import applu.ast.StatementNode;
+import applu.ast.VariableNode;
+
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the whole InterpreterTest suite with {@link ResumableExecution}, suspending after every few
+ * steps, in place of the AST interpreter.
+ */
+public class ResumableExecutionTest extends InterpreterTest {
+    @Test
+    void suspendsAndResumes() {
+        // The block takes a step to start each statement and one to finish; each assignment takes one
+        var execution = new ResumableExecution(parseProgram("set x to 1. set y to 2. set z to 3."), context);
+        assertFalse(execution.resume(2));
+        assertEquals(1, context.get("x"));
+        assertEquals(0, context.get("y"));
+        assertFalse(execution.resume(2));
+        assertEquals(2, context.get("y"));
+        assertFalse(execution.resume(2));
+        assertEquals(3, context.get("z"));
+        assertFalse(execution.isFinished());
+        assertTrue(execution.resume(100));
+        assertEquals(7, execution.getStepCount());
+        assertTrue(execution.resume(100));
+        assertEquals(7, execution.getStepCount());
+    }
+
+    @Test
+    void infiniteLoopsSuspend() {
+        var execution = new ResumableExecution(parseProgram("loop: set x to x plus 1. end of loop."), context);
+        for (int n = 0; n < 100; n++) {
+            assertFalse(execution.resume(1000));
+        }
+        assertTrue(context.get("x") > 10_000);
+    }
+
+    @Test
+    void schedulerInterleavesPrograms() throws Exception {
+        var counter = parseProgram("loop: set i to i plus 1. if i equals n then exit loop. end of loop.");
+        var spinner = parseProgram("loop: set x to x plus 1. end of loop.");
+        try (var scheduler = new RoundRobinScheduler(2, 50)) {
+            // Infinite programs occupy the queue, but cannot starve the finite ones
+            var spinning = new ArrayList<CompletableFuture<EvaluationContext>>();
+            for (int n = 0; n < 10; n++) {
+                spinning.add(scheduler.submit(spinner, new EvaluationContext()));
+            }
+
+            var counting = new ArrayList<CompletableFuture<EvaluationContext>>();
+            for (int n = 1; n <= 1000; n++) {
+                var programContext = new EvaluationContext();
+                programContext.set("n", n);
+                counting.add(scheduler.submit(counter, programContext));
+            }
+            for (int n = 1; n <= 1000; n++) {
+                assertEquals(n, counting.get(n - 1).get(10, TimeUnit.SECONDS).get("i"));
+            }
+
+            spinning.forEach(future -> future.cancel(false));
+            var failing = scheduler.submit(parseStatement("exit loop"), new EvaluationContext());
+            var failure = assertThrows(ExecutionException.class, () -> failing.get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof LoopExited);
+        }
+    }
+
+    @Test
+    void closingFailsUnfinishedPrograms() {
+        var scheduler = new RoundRobinScheduler(1);
+        var spinning = scheduler.submit(parseProgram("loop: set x to x plus 1. end of loop."), new EvaluationContext());
+        scheduler.close();
+        assertTrue(spinning.isCompletedExceptionally());
+        assertTrue(scheduler.submit(parseProgram("set x to 1."), new EvaluationContext()).isCompletedExceptionally());
+    }
+
+    @Test
+    void programsSubmittedWhileClosingStillComplete() throws Exception {
+        var program = parseProgram("set x to 1.");
+        for (int n = 0; n < 200; n++) {
+            var scheduler = new RoundRobinScheduler(1);
+            var submitted = new ArrayList<CompletableFuture<EvaluationContext>>();
+            var submitter = new Thread(() -> {
+                for (int m = 0; m < 20; m++) {
+                    submitted.add(scheduler.submit(program, new EvaluationContext()));
+                }
+            });
+            submitter.start();
+            scheduler.close();
+            submitter.join();
+            for (var future : submitted) {
+                assertTrue(future.isDone());
+            }
+        }
+    }
+
+    @Test
+    void errorsFailTheirProgramOnly() throws Exception {
+        var crashing = new EvaluationContext() {
+            @Override
+            public void set(VariableNode variable, double value) {
+                throw new AssertionError("context crashed");
+            }
+        };
+        try (var scheduler = new RoundRobinScheduler(1)) {
+            var crashed = scheduler.submit(parseProgram("loop: set x to x plus 1. end of loop."), crashing);
+            var failure = assertThrows(ExecutionException.class, () -> crashed.get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof AssertionError);
+
+            // The carrier survived
+            var later = scheduler.submit(parseProgram("set x to 1."), new EvaluationContext());
+            assertEquals(1, later.get(10, TimeUnit.SECONDS).get("x"));
+        }
+    }
+
+    @Override
+    protected void assertEvaluationEquals(double expected, String expression) {
+        // Expressions only run as part of a statement, so evaluate this one as an assignment
+        runToCompletion(parseStatement("set evaluated_expression to " + expression));
+        assertEquals(expected, context.get("evaluated_expression"));
+    }
+
+    @Override
+    protected void runStatement(String statement) {
+        runToCompletion(parseStatement(statement));
+    }
+
+    @Override
+    protected void runProgram(String program) {
+        runToCompletion(parseProgram(program));
+    }
+
+    private void runToCompletion(StatementNode program) {
+        var execution = new ResumableExecution(program, context);
+        while (!execution.resume(3)) {
+            // another program could take a turn here
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package applu.interpreter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import applu.ast.LoopNode;
+
+import static applu.parser.AppluParser.parseExpression;
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of features only the AST interpreter has. They live outside InterpreterTest so that the suites extending it
+ * for other execution engines do not just rerun them on the AST interpreter.
+ */
+public class TreeInterpreterTest {
+    @Test
+    void tracerReceivesEvents() {
+        List<String> events = new ArrayList<>();
+        var tracedContext = new EvaluationContext(
+            (node, ctx, phase, result) -> events.add(phase + " " + node.getClass().getSimpleName() + " " + result));
+        assertTrue(tracedContext.isTracing());
+        assertFalse(new EvaluationContext().isTracing());
+
+        assertEquals(7, parseExpression("3 plus 4").evaluate(tracedContext));
+        parseStatement("set x to 1").run(tracedContext);
+        assertEquals(
+            List.of(
+                "STARTED BinaryExpressionNode null",
+                "COMPLETED BinaryExpressionNode 7.0",
+                "STARTED AssignmentNode null",
+                "COMPLETED AssignmentNode null"),
+            events);
+    }
+
+    @Test
+    void hotLoopsSwitchToCompiledCode() {
+        var loop = (LoopNode) parseStatement(
+            "loop: set i to i plus 1. if i equals n then exit loop. set total to total plus i. end of loop");
+
+        var loopContext = new EvaluationContext();
+        loopContext.set("n", 10);
+        loop.run(loopContext);
+        assertFalse(loop.isCompiled());
+
+        // Crosses the threshold mid-run, then finishes in compiled code
+        loopContext = new EvaluationContext();
+        loopContext.set("n", LoopNode.OSR_THRESHOLD * 2);
+        loop.run(loopContext);
+        assertTrue(loop.isCompiled());
+        assertEquals(LoopNode.OSR_THRESHOLD * 2, loopContext.get("i"));
+        assertEquals((LoopNode.OSR_THRESHOLD * 2.0 - 1) * LoopNode.OSR_THRESHOLD, loopContext.get("total"));
+
+        // Later runs enter compiled code directly, with their own values
+        loopContext = new EvaluationContext();
+        loopContext.set("n", 5);
+        loopContext.set("total", 100);
+        loop.run(loopContext);
+        assertEquals(110, loopContext.get("total"));
+        assertEquals(Map.of("i", 5.0, "n", 5.0, "total", 110.0), loopContext.allVariables());
+    }
+
+    @Test
+    void stepBudget() {
+        // Charged when the program starts: 1 for the block, 5 for the assignment, 3 for the comparison.
+        // Then 3 more when the conditional takes its branch.
+        var program = parseProgram("set x to 1 plus 2. if x equals 3 then set y to x.");
+
+        var enough = new EvaluationContext();
+        enough.setBudget(12, Long.MAX_VALUE);
+        program.run(enough);
+        assertEquals(0, enough.getStepsRemaining());
+
+        var tooFew = new EvaluationContext();
+        tooFew.setBudget(11, Long.MAX_VALUE);
+        var exceeded = assertThrows(BudgetExceededException.class, () -> program.run(tooFew));
+        assertEquals(BudgetExceededException.Kind.STEPS, exceeded.getKind());
+        assertEquals(Map.of("x", 3.0), tooFew.allVariables());
+
+        var none = new EvaluationContext();
+        none.setBudget(8, Long.MAX_VALUE);
+        assertThrows(BudgetExceededException.class, () -> program.run(none));
+        assertEquals(Map.of(), none.allVariables());
+    }
+
+    @Test
+    void iterationBudget() {
+        var program = parseProgram("loop: set x to x plus 1. if x equals 10 then exit loop. end of loop.");
+        var enough = new EvaluationContext();
+        enough.setBudget(Long.MAX_VALUE, 9);
+        program.run(enough);
+        assertEquals(10, enough.get("x"));
+        assertEquals(0, enough.getIterationsRemaining());
+
+        // Long enough that an unbudgeted context would switch to compiled code
+        var infinite = parseProgram("loop: set x to x plus 1. end of loop.");
+        var budgeted = new EvaluationContext();
+        budgeted.setBudget(Long.MAX_VALUE, 3 * LoopNode.OSR_THRESHOLD);
+        var exceeded = assertThrows(BudgetExceededException.class, () -> infinite.run(budgeted));
+        assertEquals(BudgetExceededException.Kind.ITERATIONS, exceeded.getKind());
+        assertEquals(3 * LoopNode.OSR_THRESHOLD + 1, budgeted.get("x"));
+    }
+
+    @Test
+    void budgetHandlerCanGrantMoreTime() {
+        var program = parseProgram("loop: set x to x plus 1. if x equals 1000 then exit loop. end of loop.");
+        List<BudgetExceededException.Kind> slices = new ArrayList<>();
+        var sliced = new EvaluationContext();
+        sliced.setBudget(Long.MAX_VALUE, 100);
+        sliced.setBudgetHandler((ctx, kind) -> {
+            slices.add(kind);
+            ctx.setBudget(Long.MAX_VALUE, 100);
+        });
+        program.run(sliced);
+        assertEquals(1000, sliced.get("x"));
+        assertEquals(9, slices.size());  // 999 iterations, in slices of 101 (the budget plus the one that exceeds it)
+
+        // A handler that returns without granting more still stops the program
+        var stingy = new EvaluationContext();
+        stingy.setBudget(Long.MAX_VALUE, 100);
+        stingy.setBudgetHandler((ctx, kind) -> { });
+        assertThrows(BudgetExceededException.class, () -> program.run(stingy));
+    }
+}
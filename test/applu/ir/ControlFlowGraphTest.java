@@ -0,0 +1,298 @@
+package applu.ir;
+
+import static applu.ast.BinaryExpressionNode.Operator.ADDITION;
+import static applu.ast.BinaryExpressionNode.Operator.MULTIPLICATION;
+import static applu.ast.ConditionalNode.Operator.LESS_THAN;
+import static applu.parser.AppluParser.parseProgram;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import applu.ast.StatementNode;
+import applu.compiler.AppluCompiler;
+import applu.compiler.AppluExecutable;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.IrInterpreter;
+
+public class ControlFlowGraphTest {
+    @Test
+    void lowersStraightLineCode() {
+        var graph = ControlFlowGraph.lower(parseProgram("set x to 1. set y to x plus z. set x to y times 2."));
+        graph.verify();
+        assertEquals(
+            """
+            block0:
+                v1 = input z
+                v0 = constant 1.0
+                v2 = addition v0, v1
+                v3 = constant 2.0
+                v4 = multiplication v2, v3
+                return x = v4, y = v2
+            """,
+            graph.toString());
+        assertEquals(Set.of("z"), graph.getInputs().keySet());
+        assertEquals(Set.of("x", "y", "z"), graph.getVariables());
+    }
+
+    @Test
+    void mergesConditionalAssignmentsWithPhis() {
+        var graph = ControlFlowGraph.lower(parseProgram("if a equals 0 then set x to 1 else set y to 2."));
+        graph.verify();
+        assertEquals(
+            """
+            block0:
+                v0 = input a
+                v5 = input x
+                v7 = input y
+                v1 = constant 0.0
+                branch v0 == v1 ? block1 : block2
+            block1: ← block0
+                v2 = constant 1.0
+                jump block3
+            block2: ← block0
+                v3 = constant 2.0
+                jump block3
+            block3: ← block1, block2
+                v4 = phi block1: v2, block2: v5
+                v6 = phi block1: v7, block2: v3
+                return x = v4, y = v6
+            """,
+            graph.toString());
+    }
+
+    @Test
+    void lowersLoopsWithExplicitEdges() {
+        var graph = ControlFlowGraph.lower(parseProgram(
+            "set i to 0. loop: set i to i plus 1. if i equals n then exit loop. set t to t plus i times n. end of loop."));
+        graph.verify();
+
+        var entry = graph.getEntry();
+        var header = entry.getSuccessors().get(0);
+        assertEquals(2, header.getPredecessors().size());
+        var latch = header.getPredecessors().get(1);
+        assertTrue(graph.isBackEdge(latch, header));
+        assertFalse(graph.isBackEdge(entry, header));
+        assertTrue(graph.containsBackEdge());
+
+        // One phi each for the counter and the total; “n” never changes, so it needs none
+        assertEquals(2, header.getPhis().size());
+        assertEquals(Set.of("n", "t"), graph.getInputs().keySet());
+
+        // The exit test’s true side leads out of the loop, to the return
+        var exitTest = (Terminator.Branch) header.getTerminator();
+        var after = exitTest.ifTrue().getSuccessors().get(0);
+        var ret = (Terminator.Return) after.getTerminator();
+        assertEquals(Set.of("i", "t"), ret.variables().keySet());
+        assertSame(exitTest.lhs(), ret.variables().get("i"));
+        assertFalse(ret.loopExited());
+    }
+
+    @Test
+    void endsProgramsThatExitOutsideLoops() {
+        var graph = ControlFlowGraph.lower(parseProgram("set x to 3. exit loop. set x to 0. set y to 1."));
+        graph.verify();
+        assertEquals(1, graph.getBlocks().size());
+        var ret = (Terminator.Return) graph.getEntry().getTerminator();
+        assertTrue(ret.loopExited());
+        assertEquals(3, ((Constant) ret.variables().get("x")).getValue());
+        assertFalse(ret.variables().containsKey("y"));  // only ever assigned by unreachable code
+    }
+
+    @Test
+    void runsLikeTheProgram() {
+        var program = parseProgram(
+            "set a to 1. set b to 1."
+                + " loop: if count is less than 1 then exit loop."
+                + " set next to a plus b. set a to b. set b to next. set count to count minus 1. end of loop.");
+        var expected = new EvaluationContext();
+        var actual = new EvaluationContext();
+        expected.set("count", 10);
+        actual.set("count", 10);
+        program.run(expected);
+        IrInterpreter.run(ControlFlowGraph.lower(program), actual);
+        assertEquals(expected.allVariables(), actual.allVariables());
+    }
+
+    @Test
+    void keepsValuesOfPhisRemovedDuringLowering() {
+        // Sealing the outer loop removes phis that reads further up the stack still held
+        var program = parseProgram(
+            "loop: loop: set n to n minus 1. if n is less than 1 then exit loop. end of loop."
+                + " set i to i minus 1. if i is less than 1 then exit loop. end of loop. set a to c.");
+        assertRunsLikeTree(program, 0);
+    }
+
+    @Test
+    void runsRandomNestedLoopsLikeTheTree() {
+        var random = new Random(25);
+        for (int n = 0; n < 200; n++) {
+            var source = new StringBuilder();
+            randomStatements(random, source, 0, 0);
+            assertRunsLikeTree(parseProgram(source.toString()), n);
+        }
+    }
+
+    @Test
+    void buildsGraphsByHand() {
+        // if x < 10 then set x to x times 2 else [nothing]. set x to x plus 1.
+        var graph = new ControlFlowGraph();
+        var entry = graph.getEntry();
+        var x = graph.input("x");
+        var doubling = graph.newBlock();
+        var join = graph.newBlock();
+        entry.branch(LESS_THAN, x, entry.constant(10), doubling, join);
+        var doubled = doubling.operation(MULTIPLICATION, x, doubling.constant(2));
+        doubling.jump(join);
+        var merged = join.phi();
+        merged.setIncoming(entry, x);
+        merged.setIncoming(doubling, doubled);
+        join.setTerminator(new Terminator.Return(Map.of("x", join.operation(ADDITION, merged, join.constant(1))), false));
+        graph.verify();
+
+        assertSame(x, graph.input("x"));
+        assertEquals(List.of(entry, doubling), join.getPredecessors());
+        var dominators = graph.getDominators();
+        assertSame(entry, dominators.getImmediateDominator(join));
+        assertSame(entry, dominators.getImmediateDominator(doubling));
+        assertNull(dominators.getImmediateDominator(entry));
+        assertFalse(dominators.dominates(doubling, join));
+        assertEquals(List.of(entry, doubling, join), dominators.getReversePostorder());
+
+        for (double input : new double[] { 3, 30 }) {
+            var context = new EvaluationContext();
+            context.set("x", input);
+            IrInterpreter.run(graph, context);
+            assertEquals((input < 10 ? input * 2 : input) + 1, context.get("x"));
+        }
+    }
+
+    @Test
+    void verifierReportsMalformedGraphs() {
+        var graph = new ControlFlowGraph();
+        var entry = graph.getEntry();
+        var x = graph.input("x");
+        var left = graph.newBlock();
+        var right = graph.newBlock();
+        var join = graph.newBlock();
+        entry.branch(LESS_THAN, x, entry.constant(0), left, right);
+        var leftOnly = left.operation(ADDITION, x, x);
+        left.jump(join);
+        right.jump(join);
+        var phi = join.phi();
+        phi.setIncoming(left, x);  // none for right
+        join.setTerminator(new Terminator.Return(Map.of("x", leftOnly), false));
+        graph.newBlock();  // never reached, and never finished
+
+        var problems = assertThrows(VerificationException.class, graph::verify).getProblems();
+        assertEquals(4, problems.size(), problems.toString());
+        assertTrue(problems.stream().anyMatch(problem -> problem.contains("has no terminator")));
+        assertTrue(problems.stream().anyMatch(problem -> problem.contains("is unreachable")));
+        assertTrue(problems.stream().anyMatch(problem -> problem.startsWith(phi + " has operands for")));
+        assertTrue(problems.stream().anyMatch(problem -> problem.contains("uses " + leftOnly + ", whose block1 does not dominate it")));
+
+        assertThrows(IllegalArgumentException.class, () -> entry.branch(LESS_THAN, x, x, join, join));
+    }
+
+    // ––––––– Helpers –––––––
+
+    private static final String[] VARIABLES = { "a", "b", "c", "x" };
+    private static final String[] OPERANDS = { "a", "b", "c", "x", "n" };  // nothing assigns n
+    private static final String[] COUNTERS = { "i", "j", "k" };
+
+    // Loops count down a counter of their own, which nothing else assigns, so every program stops.
+    // Half of them reset the counter first, and half start from whatever it holds; half test it at
+    // the top of the body, and half at the bottom.
+    private static void randomStatements(Random random, StringBuilder out, int depth, int loops) {
+        randomStatements(random, out, depth, loops, 1 + random.nextInt(3));
+    }
+
+    private static void randomStatements(Random random, StringBuilder out, int depth, int loops, int count) {
+        for (; count > 0; count--) {
+            int kind = (depth >= 4) ? 0 : random.nextInt(loops < COUNTERS.length ? 3 : 2);
+            if (kind == 0) {
+                out.append("set ").append(pick(random, VARIABLES)).append(" to ");
+                randomExpression(random, out);
+                out.append(". ");
+            } else if (kind == 1) {
+                out.append("if ");
+                randomExpression(random, out);
+                out.append(random.nextBoolean() ? " is less than " : " equals ");
+                randomExpression(random, out);
+                out.append(" then: ");
+                randomStatements(random, out, depth + 1, loops);
+                out.append("else: ");
+                randomStatements(random, out, depth + 1, loops);
+                out.append("end of conditional. ");
+            } else {
+                var counter = COUNTERS[loops];
+                if (random.nextBoolean())
+                    out.append("set ").append(counter).append(" to ").append(1 + random.nextInt(3)).append(". ");
+                var countdown = "set " + counter + " to " + counter + " minus 1. if " + counter + " is less than 1 then exit loop. ";
+                boolean testFirst = random.nextBoolean();
+                out.append("loop: ").append(testFirst ? countdown : "");
+                randomStatements(random, out, depth + 1, loops + 1, random.nextInt(3));  // may be just the countdown
+                out.append(testFirst ? "" : countdown).append("end of loop. ");
+            }
+        }
+    }
+
+    private static void randomExpression(Random random, StringBuilder out) {
+        out.append(random.nextInt(3) == 0 ? String.valueOf(random.nextInt(4)) : pick(random, OPERANDS));
+        if (random.nextBoolean()) {
+            out.append(random.nextBoolean() ? " plus " : " times ");
+            out.append(random.nextInt(3) == 0 ? String.valueOf(random.nextInt(4)) : pick(random, OPERANDS));
+        }
+    }
+
+    private static String pick(Random random, String[] choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+
+    private static void assertRunsLikeTree(StatementNode program, int number) {
+        var inputs = Map.of("a", 0.5, "b", -1.0, "c", 5.0, "x", 3.0, "i", 2.0, "j", 2.0, "k", 1.0, "n", 2.0);
+        var expected = new EvaluationContext();
+        inputs.forEach(expected::set);
+        program.run(expected);
+
+        var graph = ControlFlowGraph.lower(program);
+        graph.verify();
+        var interpreted = new EvaluationContext();
+        inputs.forEach(interpreted::set);
+        IrInterpreter.run(graph, interpreted);
+
+        var executable = AppluCompiler.compile(graph, "RandomGraph" + number, AppluExecutable.ExecutionContext.class);
+        var compiled = executable.createContext();
+        for (var variable : graph.getVariables()) {
+            if (inputs.containsKey(variable))
+                invoke(compiled, "set_" + variable, inputs.get(variable));
+        }
+        executable.run(compiled);
+
+        for (var variable : inputs.keySet()) {
+            assertEquals(expected.get(variable), interpreted.get(variable), variable + " in " + program.dump());
+            if (graph.getVariables().contains(variable))
+                assertEquals(expected.get(variable), (double) invoke(compiled, "get_" + variable), variable + " in " + program.dump());
+        }
+    }
+
+    private static Object invoke(Object context, String accessor, Double... arguments) {
+        try {
+            var types = new Class<?>[arguments.length];
+            Arrays.fill(types, double.class);
+            return context.getClass().getMethod(accessor, types).invoke(context, (Object[]) arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package applu.optimizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import applu.ast.AssignmentNode;
+import applu.ast.BlockNode;
+import applu.ast.ConditionalNode;
+import applu.ast.LoopExitNode;
+import applu.ast.LoopNode;
+import applu.ast.StatementNode;
+import applu.interpreter.BudgetExceededException;
+import applu.interpreter.EvaluationContext;
+import applu.interpreter.InterpreterTest;
+import applu.interpreter.IrInterpreter;
+import applu.ir.ControlFlowGraph;
+import applu.ir.Terminator;
+
+import static applu.parser.AppluParser.parseExpression;
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the whole InterpreterTest suite on optimized trees, plus checks of the individual rewrites.
+ */
+public class OptimizerTest extends InterpreterTest {
+    private final Optimizer optimizer = Optimizer.standard();
+
+    @Override
+    protected void assertEvaluationEquals(double expected, String expression) {
+        assertEquals(expected, optimizer.optimize(parseExpression(expression)).evaluate(context));
+    }
+
+    @Override
+    protected void runStatement(String statement) {
+        parseStatement(statement).run(context, optimizer);
+    }
+
+    @Override
+    protected void runProgram(String program) {
+        parseProgram(program).run(context, optimizer);
+    }
+
+    @Test
+    void foldsConstants() {
+        assertOptimizesTo("14", "2 plus 3 times 4");
+        assertOptimizesTo("x plus 8", "x plus 2 to the power of 3");
+        assertOptimizesTo("x times 6", "x times (1 plus (10 divided by 2))");
+    }
+
+    @Test
+    void removesIdentityOperations() {
+        assertOptimizesTo("x", "x plus -0");
+        assertOptimizesTo("x", "-0 plus x");
+        assertOptimizesTo("x", "x minus 0");
+        assertOptimizesTo("x", "1 times x divided by 1");
+        assertOptimizesTo("x", "x to the power of (3 minus 2)");
+        assertOptimizesTo("1", "x to the power of 0");
+        assertOptimizesTo("y plus x", "(y times 1) plus (x minus (0 times 5))");
+
+        // Not valid for infinities and NaN
+        assertOptimizesTo("x times 0", "x times 0");
+        assertOptimizesTo("0 minus x", "0 minus x");
+
+        // Not valid for −0, which plus +0 gives +0
+        assertOptimizesTo("x plus 0", "x plus 0");
+        assertOptimizesTo("0 plus x", "0 plus x");
+        assertOptimizesTo("x minus -0", "x minus -0");
+    }
+
+    @Test
+    void keepsTheSignOfZero() {
+        var program = parseProgram("set x to 0 times -1. set y to 1 divided by (x plus 0).");
+        var optimized = optimizer.optimize(program);
+        var expected = new EvaluationContext();
+        var actual = new EvaluationContext();
+        program.run(expected);
+        optimized.run(actual);
+        assertEquals(Double.POSITIVE_INFINITY, expected.get("y"));
+        assertEquals(expected.get("y"), actual.get("y"));
+    }
+
+    @Test
+    void removesSelfAssignments() {
+        assertEquals(BlockNode.EMPTY, optimizer.optimize(parseStatement("set x to x")));
+        assertEquals(
+            parseStatement("set y to x"),
+            optimizer.optimize(parseProgram("set x to x. set y to x. set x to x times 1.")));
+    }
+
+    @Test
+    void foldsConditionals() {
+        assertEquals(
+            parseStatement("set x to 1"),
+            optimizer.optimize(parseStatement("if 2 is greater than 1 then set x to 1 else set x to 2")));
+        assertEquals(
+            parseStatement("set x to 2"),
+            optimizer.optimize(parseStatement("if 2 equals 1 plus 0.5 then set x to 1 else set x to 2")));
+        assertEquals(
+            BlockNode.EMPTY,
+            optimizer.optimize(parseStatement("if 2 is less than 1 then set x to 1")));
+        assertEquals(
+            BlockNode.EMPTY,
+            optimizer.optimize(parseStatement("if x is less than y then set x to x else set y to y minus 0")));
+    }
+
+    @Test
+    void flattensBlocks() {
+        assertEquals(
+            parseProgram("set a to 1. set b to 2. set c to 3."),
+            optimizer.optimize(parseProgram(
+                "set a to 1. if 0 equals 0 then: set b to 2. set c to 3. end of conditional.")));
+        assertEquals(
+            parseStatement("loop: set a to a plus 1. exit loop. end of loop"),
+            optimizer.optimize(parseStatement(
+                "loop: set a to a plus 1. exit loop. set b to 2. end of loop")));
+        assertEquals(
+            parseStatement("loop: set a to a plus 1. exit loop. end of loop"),
+            optimizer.optimize(parseStatement(
+                "loop: if 1 is less than 2 then: set a to a plus 1. exit loop. set c to 1. end of conditional."
+                    + " set b to 2. end of loop")));
+    }
+
+    @Test
+    void recordsStatistics() {
+        optimizer.optimize(parseProgram("set x to x. set y to (x minus 0) times (1 plus 2). set z to 3 plus 4."));
+        var statistics = optimizer.getStatistics();
+        assertEquals(1, statistics.getTreeCount());
+        assertEquals(2, statistics.getPassCount());
+        assertEquals(2, statistics.getRewriteCount("ConstantFolding"));
+        assertEquals(1, statistics.getRewriteCount("AlgebraicSimplification"));
+        assertEquals(1, statistics.getRewriteCount("SelfAssignmentElimination"));
+        assertEquals(1, statistics.getRewriteCount("BlockFlattening"));
+        assertEquals(0, statistics.getRewriteCount("ConditionalFolding"));
+
+        statistics.reset();
+        assertEquals(0, statistics.getTreeCount());
+        assertEquals(0, statistics.getRewriteCounts().size());
+    }
+
+    @Test
+    void unwrapsSingleStatementBlocks() {
+        assertEquals(
+            new LoopNode(new LoopExitNode()),
+            optimizer.optimize(parseProgram("loop: exit loop. end of loop.")));
+    }
+
+    @Test
+    void leavesOptimalTreesUnchanged() {
+        var program = parseProgram("set x to y plus 1. loop: if x is greater than 2 then exit loop. set x to 0. end of loop.");
+        assertEquals(program, optimizer.optimize(program));
+        assertEquals(1, optimizer.getStatistics().getPassCount());
+        assertEquals(0, optimizer.getStatistics().getRewriteCounts().size());
+    }
+
+    @Test
+    void analyzesLiveness() {
+        var program = (BlockNode) parseProgram("set t to a plus b. set t to t times 2. set x to t. set u to x. set x to x plus c.");
+        var liveness = Liveness.analyze(program, Set.of("x"));
+        assertEquals(Set.of("a", "b", "c"), liveness.getInputs());
+        assertEquals(Set.of("x"), liveness.getOutputs());
+        var statements = program.getStatements();
+        assertTrue(liveness.isLive((AssignmentNode) statements.get(0)));
+        assertTrue(liveness.isLive((AssignmentNode) statements.get(2)));
+        assertFalse(liveness.isLive((AssignmentNode) statements.get(3)));
+        assertTrue(liveness.isLive((AssignmentNode) statements.get(4)));
+        assertThrows(IllegalArgumentException.class, () -> liveness.isLive((AssignmentNode) parseStatement("set x to 1")));
+
+        // An output the program never assigns passes through from its entry
+        assertEquals(Set.of("y"), Liveness.analyze(parseProgram("set x to 1."), Set.of("y")).getInputs());
+    }
+
+    @Test
+    void livenessFollowsLoopsAndExits() {
+        // total is read on the next iteration; last is only read after the loop exits
+        var program = parseProgram(
+            "set total to 0. set scratch to 5."
+                + " loop: set scratch to i. set i to i plus 1. if i is greater than n then exit loop."
+                + " set total to total plus i. set last to total. end of loop.");
+        assertEquals(Set.of("i", "n"), Liveness.analyze(program, Set.of("total")).getInputs());
+        assertEquals(
+            parseProgram(
+                "set total to 0."
+                    + " loop: set i to i plus 1. if i is greater than n then exit loop."
+                    + " set total to total plus i. end of loop."),
+            DeadStoreElimination.eliminate(program, Set.of("total")));
+        assertEquals(
+            parseProgram(
+                "set total to 0."
+                    + " loop: set i to i plus 1. if i is greater than n then exit loop."
+                    + " set total to total plus i. set last to total. end of loop."),
+            DeadStoreElimination.eliminate(program, Set.of("last")));
+
+        // Exiting from a nested loop continues the outer one
+        var nested = parseProgram(
+            "loop: set j to 0. loop: set found to j. set j to j plus 1. if j equals 3 then exit loop. end of loop."
+                + " set count to count plus found. if count is greater than 10 then exit loop. end of loop.");
+        assertEquals(nested, DeadStoreElimination.eliminate(nested, Set.of("count")));
+        assertEquals(Set.of("count"), Liveness.analyze(nested, Set.of("count")).getInputs());
+    }
+
+    @Test
+    void eliminatesDeadStoresForDeclaredOutputs() {
+        var pruning = Optimizer.standard().withOutputs(Set.of("y"));
+        assertEquals(Set.of("y"), pruning.getOutputs());
+        assertEquals(
+            parseProgram("set t to x times 2. set y to t plus 1."),
+            pruning.optimize(parseProgram(
+                "set t to x times 2. set dead to t times t. set y to t plus 1."
+                    + " if y is greater than 3 then set dead to 1 else set t to 0.")));
+        assertEquals(3, pruning.getStatistics().getRewriteCount("DeadStoreElimination"));
+        assertEquals(1, pruning.getStatistics().getRewriteCount("ConditionalFolding"));
+        assertEquals(0, optimizer.getStatistics().getTreeCount());
+
+        context.set("x", 3);
+        parseProgram("set t to x times 2. set scratch to t squared. set y to t plus 1.").run(context, pruning);
+        assertVariableEquals("y", 7);
+        assertVariableEquals("scratch", 0);
+    }
+
+    @Test
+    void hoistsLoopInvariants() {
+        var program = parseProgram(
+            "loop: set i to i plus 1. if i is greater than n then exit loop."
+                + " set x to x plus rate times scale squared. set y to y times (rate times scale squared). end of loop.");
+        var optimized = optimizer.optimize(program);
+        assertEquals(
+            withTemporary(parseProgram(
+                "set temporary to rate times scale squared."
+                    + " loop: set i to i plus 1. if i is greater than n then exit loop."
+                    + " set x to x plus temporary. set y to y times temporary. end of loop."), "$invariant1"),
+            optimized.toString());
+        assertEquals(1, optimizer.getStatistics().getRewriteCount("LoopInvariantCodeMotion"));
+        assertSameResults(program, optimized, "x", "y", "i");
+
+        // Operations run in the order written, so nothing here is invariant
+        var associative = parseStatement("loop: set x to x times rate times scale. if x is greater than n then exit loop. end of loop");
+        assertEquals(associative, optimizer.optimize(associative));
+    }
+
+    @Test
+    void hoistsPastLeadingExitTest() {
+        var program = parseProgram(
+            "loop: if i equals n then exit loop. set i to i plus 1. set x to x plus rate divided by scale. end of loop.");
+        var optimized = optimizer.optimize(program);
+        var guard = (ConditionalNode) optimized;
+        assertEquals(parseExpression("i"), guard.getLhs());
+        assertEquals(parseExpression("n"), guard.getRhs());
+        assertEquals(BlockNode.EMPTY, guard.getIfTrue());
+        assertEquals(
+            withTemporary(parseProgram(
+                "set temporary to rate divided by scale."
+                    + " loop: if i equals n then exit loop. set i to i plus 1. set x to x plus temporary. end of loop."), "$invariant1"),
+            guard.getIfFalse().toString());
+
+        // A loop that exits at once never computes the invariant
+        var zeroTrip = new EvaluationContext();
+        zeroTrip.set("rate", 1);
+        optimized.run(zeroTrip);
+        assertEquals(Set.of("rate"), zeroTrip.allVariables().keySet());
+
+        assertSameResults(program, optimized, "x", "i");
+    }
+
+    @Test
+    void hoistsFromNestedLoops() {
+        var program = parseProgram(
+            "loop: set j to 0."
+                + " loop: set j to j plus 1. set y to y plus a times b. set w to w plus i times c. set z to z plus j times c."
+                + " if j equals m then exit loop. end of loop."
+                + " set i to i plus 1. if i equals 4 then exit loop. end of loop.");
+        var optimized = optimizer.optimize(program);
+        assertEquals(2, optimizer.getStatistics().getRewriteCount("LoopInvariantCodeMotion"));
+        var outer = (BlockNode) optimized;
+        assertEquals(
+            withTemporary(parseStatement("set temporary to a times b"), "$invariant1"),
+            outer.getStatements().get(0).toString());
+        assertTrue(outer.getStatements().get(1) instanceof LoopNode);
+        assertSameResults(program, optimized, "i", "j", "w", "y", "z");
+
+        // Running the pass again finds nothing new
+        assertEquals(optimized, optimizer.optimize(optimized));
+    }
+
+    @Test
+    void eliminatesCommonSubexpressions() {
+        var program = parseProgram("set a to (x plus y) times 2. set b to (x plus y) divided by 3.");
+        assertEquals(
+            withTemporary(
+                parseProgram("set temporary to x plus y. set a to temporary times 2. set b to temporary divided by 3."),
+                "$common1"),
+            optimizer.optimize(program).toString());
+        assertSameResults(program, optimizer.optimize(program), "a", "b");
+
+        // Assigning an operand in between keeps the copies apart, but assigning after reading does not
+        var reassigned = parseProgram("set a to x plus y. set x to 1. set b to x plus y.");
+        assertEquals(reassigned, optimizer.optimize(reassigned));
+        var readFirst = parseProgram("set x to x plus y. set b to b times (x plus y). set b to b times (x plus y).");
+        assertEquals(
+            withTemporary(
+                parseProgram("set x to x plus y. set temporary to x plus y. set b to b times temporary. set b to b times temporary."),
+                "$common1"),
+            optimizer.optimize(readFirst).toString());
+        assertSameResults(readFirst, optimizer.optimize(readFirst), "x", "b");
+    }
+
+    @Test
+    void eliminatesLargestCommonSubexpressionsFirst() {
+        var program = parseProgram(
+            "set a to (x plus y) times z. set b to (x plus y) times z minus 1."
+                + " if x plus y is greater than a then set c to (x plus y) times z.");
+        var optimized = optimizer.optimize(program);
+        assertEquals(
+            withTemporary(
+                parseProgram(
+                    "set temporarytwo to x plus y. set temporary to temporarytwo times z."
+                        + " set a to temporary. set b to temporary minus 1."
+                        + " if temporarytwo is greater than a then set c to (x plus y) times z."),
+                "$common1", "$common2"),
+            optimized.toString());
+        assertEquals(2, optimizer.getStatistics().getRewriteCount("CommonSubexpressionElimination"));
+        assertSameResults(program, optimized, "a", "b", "c");
+    }
+
+    @Test
+    void analyzesInductionVariables() {
+        var loop = (LoopNode) parseStatement(
+            "loop: if count is less than 1 then exit loop."
+                + " set next to a plus b. set a to b. set b to next. set count to count minus 1. end of loop");
+        var analysis = InductionVariables.analyze(loop);
+        assertTrue(analysis.isCounted());
+        assertFalse(analysis.isPurelyInductive());
+        assertEquals("count", analysis.getCounter().name());
+        assertEquals(InductionVariables.Kind.AFFINE, analysis.getCounter().kind());
+        assertEquals(1, analysis.getInductionVariables().size());
+        assertNull(analysis.get("a"));
+
+        assertEquals(OptionalLong.of(11), analysis.tripCount(Map.of("count", 10.0)));
+        assertEquals(OptionalLong.of(1), analysis.tripCount(Map.of("count", 0.0)));
+        assertEquals(OptionalLong.of(3), analysis.tripCount(Map.of("count", 2.5)));
+        assertEquals(OptionalLong.empty(), analysis.tripCount(Map.of()));
+        assertEquals(OptionalLong.empty(), analysis.tripCount(Map.of("count", Double.NaN)));
+
+        var geometric = InductionVariables.analyze((LoopNode) parseStatement(
+            "loop: set x to x times 2. set y to y plus x. if limit is less than x then exit loop. end of loop"));
+        assertEquals("x", geometric.getCounter().name());
+        assertEquals(InductionVariables.Kind.GEOMETRIC, geometric.getCounter().kind());
+        assertNull(geometric.get("y"));  // its step changes
+        assertEquals(OptionalLong.of(4), geometric.tripCount(Map.of("x", 1.0, "limit", 10.0)));
+
+        // A second way out means the test alone does not decide
+        var twoExits = InductionVariables.analyze((LoopNode) parseStatement(
+            "loop: set i to i plus 1. if i equals 5 then exit loop. if x equals i then exit loop. end of loop"));
+        assertFalse(twoExits.isCounted());
+    }
+
+    @Test
+    void closedFormTripCountsMatchTheInterpreter() {
+        String[] comparisons = { "i is less than b", "i equals b", "i is greater than b", "b is less than i", "b equals i" };
+        for (var comparison : comparisons) {
+            for (var update : new String[] { "set i to i plus s", "set i to s plus i", "set i to i minus s" }) {
+                for (boolean updateFirst : new boolean[] { true, false }) {
+                    var exit = "if " + comparison + " then exit loop";
+                    var loop = (LoopNode) parseStatement("loop: set trips to trips plus 1. "
+                        + (updateFirst ? update + ". " + exit : exit + ". " + update) + ". end of loop");
+                    var analysis = InductionVariables.analyze(loop);
+                    assertEquals("i", analysis.getCounter().name(), loop.toString());
+
+                    for (int i = -4; i <= 4; i++) {
+                        for (int s = -3; s <= 3; s++) {
+                            for (int b = -4; b <= 4; b++) {
+                                var context = new EvaluationContext();
+                                context.set("i", i);
+                                context.set("s", s);
+                                context.set("b", b);
+                                context.setBudget(Long.MAX_VALUE, 100);
+                                OptionalLong expected;
+                                try {
+                                    loop.run(context);
+                                    expected = OptionalLong.of((long) context.get("trips"));
+                                } catch (BudgetExceededException e) {
+                                    expected = OptionalLong.empty();
+                                }
+                                assertEquals(
+                                    expected,
+                                    analysis.tripCount(Map.of("i", (double) i, "s", (double) s, "b", (double) b)),
+                                    loop + " with i = " + i + ", s = " + s + ", b = " + b);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // Far more iterations than anyone would simulate
+        var countdown = InductionVariables.analyze((LoopNode) parseStatement(
+            "loop: if count is less than 1 then exit loop. set count to count minus 1. end of loop"));
+        assertEquals(OptionalLong.of(1_000_000_000_001L), countdown.tripCount(Map.of("count", 1e12)));
+        // Past 2^53 the updates round, so there is no closed form
+        assertEquals(OptionalLong.empty(), countdown.tripCount(Map.of("count", 0x1p60)));
+    }
+
+    @Test
+    void replacesInductiveLoopsWithFinalValues() {
+        var program = parseProgram(
+            "set count to 5. set total to 1. set scale to 1."
+                + " loop: if count is less than 1 then exit loop."
+                + " set total to total plus 0.1. set scale to scale times 1.5. set count to count minus 1. end of loop.");
+        var optimized = optimizer.optimize(program);
+        assertEquals(1, optimizer.getStatistics().getRewriteCount("CountedLoopSimplification"));
+        assertFalse(optimized.toString().contains("LoopNode"));
+        assertSameResults(program, optimized, "count", "total", "scale");
+
+        // The total comes from five additions, not from 1 plus 5 times 0.1
+        var context = new EvaluationContext();
+        optimized.run(context);
+        assertEquals(1 + 0.1 + 0.1 + 0.1 + 0.1 + 0.1, context.get("total"));
+        assertEquals(0, context.get("count"));
+
+        // Long loops with integer updates are replaced too; a fractional one keeps its loop
+        var longLoop = parseProgram(
+            "set count to 1000000000000. set total to 0."
+                + " loop: if count is less than 1 then exit loop."
+                + " set total to total plus 3. set count to count minus 1. end of loop.");
+        context = new EvaluationContext();
+        optimizer.optimize(longLoop).run(context);
+        assertEquals(3e12, context.get("total"));
+        assertEquals(0, context.get("count"));
+        var fractional = parseProgram(
+            "set count to 1000000000000. set total to 0."
+                + " loop: if count is less than 1 then exit loop."
+                + " set total to total plus 0.1. set count to count minus 1. end of loop.");
+        assertTrue(optimizer.optimize(fractional).toString().contains("LoopNode"));
+
+        // Without a known starting count, the loop stays
+        var unknown = parseStatement(
+            "loop: if count is less than 1 then exit loop. set total to total plus 1. set count to count minus 1. end of loop");
+        assertEquals(unknown, optimizer.optimize(unknown));
+    }
+
+    @Test
+    void unrollsShortCountedLoops() {
+        var program = parseProgram(
+            "Set a to 1. Set b to 1. Set count to 10."
+                + " Loop: If count is less than 1 then exit loop."
+                + " Set next to a plus b. Set a to b. Set b to next. Set count to count minus 1. End of loop.");
+        var optimized = optimizer.optimize(program);
+        assertFalse(optimized.toString().contains("LoopNode"));
+        assertFalse(optimized.toString().contains("LoopExitNode"));
+        assertSameResults(program, optimized, "a", "b", "count", "next");
+
+        // Too long to unroll
+        var longer = parseProgram(
+            "Set count to 1000."
+                + " Loop: If count is less than 1 then exit loop. Set a to a plus b. Set count to count minus 1. End of loop.");
+        assertTrue(optimizer.optimize(longer).toString().contains("LoopNode"));
+    }
+
+    @Test
+    void simplifiesSsaGraphs() {
+        var program = parseProgram(
+            "set k to 2 times 3. if k is greater than 5 then set x to x plus k else set x to 0."
+                + " set t to x times 2. set i to 0."
+                + " loop: set i to i plus 1. set junk to junk plus i. if i equals n then exit loop. end of loop.");
+        var graph = ControlFlowGraph.lower(program);
+        var pruning = Optimizer.standard().withOutputs(Set.of("x", "i"));
+        assertSame(graph, pruning.optimize(graph));
+        graph.verify();
+        assertTrue(pruning.getStatistics().getRewriteCount("SsaSimplification") > 0);
+
+        // The branch is decided, and “junk” and “t” feed nothing that is returned
+        long branches = graph.getBlocks().stream().filter(block -> block.getTerminator() instanceof Terminator.Branch).count();
+        long phis = graph.getBlocks().stream().mapToLong(block -> block.getPhis().size()).sum();
+        assertEquals(1, branches);
+        assertEquals(1, phis);
+        assertEquals(Set.of("i", "n", "x"), graph.getVariables());
+
+        var expected = new EvaluationContext();
+        var actual = new EvaluationContext();
+        for (var inputs : new EvaluationContext[] { expected, actual }) {
+            inputs.set("n", 7);
+            inputs.set("x", 0.3);
+        }
+        program.run(expected);
+        IrInterpreter.run(graph, actual);
+        assertEquals(expected.get("x"), actual.get("x"));
+        assertEquals(expected.get("i"), actual.get("i"));
+    }
+
+    // Temporaries have names no parsed program can contain, so expected results name them “temporary”,
+    // “temporaryTwo”, and so on
+    private static String withTemporary(StatementNode expected, String... names) {
+        var result = expected.toString();
+        String[] placeholders = { "temporary", "temporarytwo" };
+        for (int n = 0; n < names.length; n++) {
+            result = result.replace("\"" + placeholders[n] + "\"", "\"" + names[n] + "\"");
+        }
+        return result;
+    }
+
+    private void assertSameResults(StatementNode original, StatementNode optimized, String... variables) {
+        var expected = new EvaluationContext();
+        var actual = new EvaluationContext();
+        for (var inputs : new EvaluationContext[] { expected, actual }) {
+            inputs.set("n", 7);
+            inputs.set("m", 3);
+            inputs.set("rate", 0.1);
+            inputs.set("scale", 3);
+            inputs.set("a", 0.7);
+            inputs.set("b", 1.3);
+            inputs.set("c", 2.9);
+            inputs.set("x", 0.3);
+            inputs.set("y", 1.1);
+            inputs.set("z", 7);
+        }
+        original.run(expected);
+        optimized.run(actual);
+        for (var variable : variables) {
+            assertEquals(expected.get(variable), actual.get(variable), variable);
+        }
+    }
+
+    private void assertOptimizesTo(String expected, String expression) {
+        assertEquals(parseExpression(expected), optimizer.optimize(parseExpression(expression)));
+    }
+}
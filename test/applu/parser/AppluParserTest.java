@@ -10,6 +10,7 @@ import applu.ast.ConditionalNode;
 import applu.ast.ConstantNode;
 import applu.ast.LoopExitNode;
 import applu.ast.LoopNode;
+import applu.ast.NodeInterner;
 import applu.ast.VariableNode;
 // import applu.parser.ParseException;
 
@@ -18,6 +19,7 @@ import static applu.parser.AppluParser.parseExpression;
 import static applu.parser.AppluParser.parseProgram;
 import static applu.parser.AppluParser.parseStatement;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 public class AppluParserTest {
 
@@ -278,6 +280,30 @@ public class AppluParserTest {
             "set x to(x squared)plus(y to the power of(3 plus(z squared))).");
     }
 
+    @Test
+    void testErrorPosition() {
+        var error = assertThrows(ParseException.class, () -> parseProgram("set x to 1.\nset y to ?."));
+        assertEquals(21, error.getStartIndex());
+        assertEquals(22, error.getEndIndex());
+        assertEquals("Invalid input '?' (line 2, pos 10)", error.getMessage());
+
+        error = assertThrows(ParseException.class, () -> parseProgram("set x to 1"));
+        assertEquals(10, error.getStartIndex());
+    }
+
+    @Test
+    void testInterning() {
+        var interner = new NodeInterner();
+        var first = parseProgram("set x to (y plus 1) times (y plus 1). if x equals 0 then set y to y plus 1.", interner);
+        var second = parseProgram("set z to y plus 1.", interner);
+        assertEquals(parseProgram("set x to (y plus 1) times (y plus 1). if x equals 0 then set y to y plus 1."), first);
+
+        var product = (BinaryExpressionNode) ((AssignmentNode) first.child(0)).getExpression();
+        var sum = ((AssignmentNode) second.child(0)).getExpression();
+        assertSame(product.getLhs(), product.getRhs());
+        assertSame(sum, product.getLhs());
+    }
+
     private void assertEquivalentParsing(String... variants) {
         ASTNode expected = parseProgram(variants[0]);
         for (var variant : variants) {
@@ -0,0 +1,137 @@
+package applu.parser;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import applu.ast.ASTNode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that the hand-written {@link AppluParser} produces exactly the trees of the Parboiled grammar it replaced,
+ * using {@link ParboiledAppluParser} as the reference.
+ */
+public class ParserEquivalenceTest {
+
+    private static final List<String> PROGRAMS = List.of(
+        "Set x to 1.",
+        "set x to 1. set y to 2. set z to 3.",
+        "set x  to y\ntimes 3.",
+        "set x to 0 times -1. set y to 1 divided by (x plus 0).",
+        "set x to (y plus 1) times (y plus 1). if x equals 0 then set y to y plus 1.",
+        "set x to x. set y to (x minus 0) times (1 plus 2). set z to 3 plus 4.",
+        "set x to (x squared) plus (y to the power of (3 plus (z squared))).",
+        "set x to  (  x  squared  )  plus  (  y  to  the  power  of  (  3  plus  (  z squared  )  )  )  .",
+        "set x to(x squared)plus(y to the power of(3 plus(z squared))).",
+        "Set y to x times 2. If x is greater than 10 then set big to 1.",
+        "if a equals 0 then set x to 1 else set y to 2.",
+        "set x to 3. exit loop. set x to 0. set y to 1.",
+        "Loop: set x to x plus y times 3. If x is greater than 100 then exit loop. End of loop.",
+        "loop: set i to i plus 1. if i equals n then exit loop. end of loop.",
+        "set x to y plus 1. loop: if x is greater than 2 then exit loop. set x to 0. end of loop.",
+        "loop: if x is greater than 2 then: exit loop. else: set x to x squared. end of conditional. end of loop.",
+        "loop:if x is greater than 2 then:exit loop.else:set x to x squared.end of conditional.end of loop.",
+        "  loop  :  if  x  is  greater  than  2  then  :  exit  loop  .  else  :  set  x  to  x  squared  .  "
+            + "   end  of  conditional  .  end  of  loop  .  ",
+        "\n\n    set \tx  to \n 1      \n. set \n y \n to  \n 2 \n  .  \t ",
+        "set sprongle to zoink plus 7. set snake_and_camelCase_OK to -37.2.",
+        "set loops to 1. set ifs to loops plus 1. set exits to ifs. set ends to exits squared.");
+
+    private static final List<String> STATEMENTS = List.of(
+        "exit loop",
+        "set sprongle to -3",
+        "if 2 equals 1 plus 0.5 then set x to 1 else set x to 2",
+        "if 2 is less than 1 then set x to 1",
+        "if x is equal to 2 then set y to 1 else set z to 3",
+        "if x equals 2 then:set y to 1.set z to 3.else:set a to 1.set b to 3.end of conditional",
+        "if x is equal to 2 then  :  \nset y to 1.\nset z to 3.\n\nend  of conditional",
+        "loop: set x to x times rate times scale. if x is greater than n then exit loop. end of loop");
+
+    private static final List<String> EXPRESSIONS = List.of(
+        "37",
+        "37.2",
+        "-37.2",
+        "snake_and_camelCase_OK",
+        "1 minus 2 plus 3",
+        "1 minus 2 divided by 3",
+        "(1 minus 2) divided by 3",
+        "1\ndivided    by\n 2",
+        "x squared squared",
+        "x to the power of y to the power of z",
+        "y to the power of z squared",
+        "x squared plus 2 times y to the power of z squared minus 1");
+
+    private static final List<String> INVALID_PROGRAMS = List.of(
+        "",
+        "   ",
+        "set x to 1",
+        "set x to 1.\nset y to ?.",
+        "set x to.",
+        "set 1 to x.",
+        "set x to (1 plus 2.",
+        "set x to 1 plus.",
+        "set x to y squaredd.",
+        "set x to 1..",
+        "exit loop",
+        "loop: set x to 1. end of loop",
+        "loop: set x to 1.",
+        "if x then set y to 1.",
+        "if x equals 1 then: set y to 1.",
+        "if x equals 1 then: set y to 1 end of conditional.",
+        "if x equals 1 then set y to 1 else.",
+        "end of loop.");
+
+    private static final List<String> INVALID_EXPRESSIONS = List.of(
+        "-37..2",
+        "1 plus",
+        "plus 1",
+        "(x",
+        "x)",
+        "x to the power 2",
+        "1 2");
+
+    @Test
+    void programsMatchParboiled() {
+        assertSameTrees(PROGRAMS, AppluParser::parseProgram, ParboiledAppluParser::parseProgram);
+    }
+
+    @Test
+    void statementsMatchParboiled() {
+        assertSameTrees(STATEMENTS, AppluParser::parseStatement, ParboiledAppluParser::parseStatement);
+    }
+
+    @Test
+    void expressionsMatchParboiled() {
+        assertSameTrees(EXPRESSIONS, AppluParser::parseExpression, ParboiledAppluParser::parseExpression);
+    }
+
+    @Test
+    void errorsMatchParboiled() {
+        assertSameErrors(INVALID_PROGRAMS, AppluParser::parseProgram, ParboiledAppluParser::parseProgram);
+        assertSameErrors(INVALID_EXPRESSIONS, AppluParser::parseExpression, ParboiledAppluParser::parseExpression);
+    }
+
+    private void assertSameTrees(
+        List<String> inputs,
+        Function<String, ? extends ASTNode> parser,
+        Function<String, ? extends ASTNode> reference
+    ) {
+        for (var input : inputs)
+            assertEquals(reference.apply(input), parser.apply(input), input);
+    }
+
+    private void assertSameErrors(
+        List<String> inputs,
+        Function<String, ? extends ASTNode> parser,
+        Function<String, ? extends ASTNode> reference
+    ) {
+        for (var input : inputs) {
+            var expected = assertThrows(ParseException.class, () -> reference.apply(input), input);
+            var actual = assertThrows(ParseException.class, () -> parser.apply(input), input);
+            assertEquals(expected.getStartIndex(), actual.getStartIndex(), input);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package applu.vector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import applu.interpreter.BatchEvaluator;
+
+import static applu.parser.AppluParser.parseProgram;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VectorBatchEvaluatorTest {
+    @Test
+    void arithmetic() {
+        assertMatchesScalar(
+            "Set y to (a plus b) times (a minus 3) divided by b. Set z to a to the power of b. Set w to y squared.",
+            List.of("y", "z", "w"));
+    }
+
+    @Test
+    void conditionals() {
+        assertMatchesScalar(
+            "If a is less than b then set y to a else set y to b.",
+            List.of("y"));
+        assertMatchesScalar(
+            """
+            Set y to 1.
+            If a is greater than 0 then:
+                Set y to 2.
+                If b equals 0 then set y to 3 else set a to a plus b.
+                Set z to a.
+            Else:
+                Set z to b.
+                If a is less than b then set b to 0.
+            End of conditional.
+            """,
+            List.of("y", "z", "a", "b"));
+    }
+
+    @Test
+    void branchesSeeEachOthersUnmodifiedRows() {
+        // The true branch changes a; the false branch must still see the original a in its own rows.
+        assertMatchesScalar(
+            "If a is less than 0 then set a to 100 else set b to a.",
+            List.of("a", "b"));
+    }
+
+    @Test
+    void blockBoundaries() {
+        for (int rows : new int[] { 0, 1, 3, VectorKernel.BLOCK_SIZE - 1, VectorKernel.BLOCK_SIZE,
+            VectorKernel.BLOCK_SIZE + 1, 10 * VectorKernel.BLOCK_SIZE + 5 }) {
+            assertMatchesScalar("If a is less than b then set y to a times 2.", List.of("y"), rows);
+        }
+    }
+
+    @Test
+    void rowsStartFromFreshVariables() {
+        var results = new VectorBatchEvaluator(parseProgram("Set total to total plus x."))
+            .evaluate(Map.of("x", new double[] { 1, 2, 3 }), List.of("total", "x", "missing"));
+        assertArrayEquals(new double[] { 1, 2, 3 }, results.get("total"));
+        assertArrayEquals(new double[] { 1, 2, 3 }, results.get("x"));
+        assertArrayEquals(new double[] { 0, 0, 0 }, results.get("missing"));
+    }
+
+    @Test
+    void loopsFallBackToScalar() {
+        var program = "Set y to 0. Loop: If a is less than 1 then exit loop. Set y to y plus a. Set a to a minus 1. End of loop.";
+        assertFalse(new VectorBatchEvaluator(parseProgram(program)).isVectorized());
+        assertTrue(new VectorBatchEvaluator(parseProgram("Set y to a.")).isVectorized());
+        assertMatchesScalar(program, List.of("y"), 1000, 50);
+    }
+
+    @Test
+    void noInputColumns() {
+        var evaluator = new VectorBatchEvaluator(parseProgram("Set y to 2."));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(Map.of(), List.of("y")));
+    }
+
+    @Test
+    void mismatchedColumns() {
+        var evaluator = new VectorBatchEvaluator(parseProgram("Set z to x plus y."));
+        assertThrows(IllegalArgumentException.class, () ->
+            evaluator.evaluate(Map.of("x", new double[3], "y", new double[2]), List.of("z")));
+    }
+
+    private static void assertMatchesScalar(String source, List<String> outputs) {
+        assertMatchesScalar(source, outputs, 5000);
+    }
+
+    private static void assertMatchesScalar(String source, List<String> outputs, int rows) {
+        assertMatchesScalar(source, outputs, rows, 10);
+    }
+
+    private static void assertMatchesScalar(String source, List<String> outputs, int rows, int range) {
+        var random = new Random(rows);
+        var a = new double[rows];
+        var b = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            a[row] = random.nextInt(2 * range) - range;
+            b[row] = (row % 17 == 0) ? Double.NaN : random.nextInt(range) - range / 2.0;
+        }
+        var inputs = Map.of("a", a, "b", b);
+
+        var program = parseProgram(source);
+        var expected = new BatchEvaluator(program).evaluate(inputs, outputs);
+        var actual = new VectorBatchEvaluator(program).evaluate(inputs, outputs);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (var output : outputs) {
+            assertArrayEquals(expected.get(output), actual.get(output), output);
+        }
+    }
+}
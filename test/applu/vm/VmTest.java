@@ -0,0 +1,61 @@
+package applu.vm;
+
+import org.junit.jupiter.api.Test;
+
+import applu.interpreter.InterpreterTest;
+
+import static applu.parser.AppluParser.parseExpression;
+import static applu.parser.AppluParser.parseProgram;
+import static applu.parser.AppluParser.parseStatement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the whole InterpreterTest suite on the VM, plus a few checks of the generated code.
+ */
+public class VmTest extends InterpreterTest {
+    @Override
+    protected void assertEvaluationEquals(double expected, String expression) {
+        assertEquals(expected, VmCompiler.compile(parseExpression(expression), context.getSlots()).evaluate(context));
+    }
+
+    @Override
+    protected void runStatement(String statement) {
+        VmCompiler.compile(parseStatement(statement), context.getSlots()).run(context);
+    }
+
+    @Override
+    protected void runProgram(String program) {
+        VmCompiler.compile(parseProgram(program), context.getSlots()).run(context);
+    }
+
+    @Test
+    void assignmentsComputeIntoVariableRegisters() {
+        var program = VmCompiler.compile(
+            parseProgram("set x to y plus 1. set y to x. set z to 0."),
+            context.getSlots());
+        assertEquals(
+            "   0  ADD       x ← y, 1.0\n"
+                + "   4  MOV       y ← x\n"
+                + "   8  MOV       z ← 0.0\n"
+                + "  12  HALT      \n",
+            program.disassemble());
+    }
+
+    @Test
+    void loopsBecomeJumps() {
+        var program = VmCompiler.compile(
+            parseStatement("loop: if x is greater than 2 then exit loop. set x to x plus 1. end of loop"),
+            context.getSlots());
+        assertEquals(
+            "   0  JNGT      x, 2.0 else → 8\n"
+                + "   4  JMP       → 16\n"
+                + "   8  ADD       x ← x, 1.0\n"
+                + "  12  JMP       → 0\n"
+                + "  16  HALT      \n",
+            program.disassemble());
+
+        context.set("x", -5);
+        program.run(context);
+        assertVariableEquals("x", 3);
+    }
+}